@@ -0,0 +1,73 @@
+package com.redis.cluster.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.cache.CacheInvalidationPublisher;
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.config.RedisCacheConfig;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisCacheConfig로 구성한 캐시의 User get/put 비용. (L2 - Redis, L1+L2 - TwoLevelCache)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CacheManagerBenchmark {
+
+    private EmbeddedRedis redis;
+    private ThreadPoolTaskExecutor refreshExecutor;
+    private Cache redisCache;
+    private Cache twoLevelCache;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        redis = new EmbeddedRedis();
+        RedisCacheConfig config = new RedisCacheConfig();
+        CompactRedisSerializer serializer = config.compactRedisSerializer(CompactRedisSerializer.Mode.MIGRATE, 1024);
+        RedisCacheManager redisCacheManager = config.redisCacheManager(RedisCacheWriter.nonLockingRedisCacheWriter(redis.getConnectionFactory()), serializer);
+        redisCacheManager.afterPropertiesSet();
+
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redis.getConnectionFactory());
+        refreshExecutor = config.cacheRefreshExecutor();
+        refreshExecutor.initialize();
+        CacheInvalidationPublisher publisher = new CacheInvalidationPublisher(stringRedisTemplate, new ObjectMapper());
+
+        redisCache = redisCacheManager.getCache(CacheKey.USER);
+        twoLevelCache = config.cacheManager(redisCacheManager, publisher, stringRedisTemplate, refreshExecutor,
+                redis.getConnectionFactory(), Collections.emptySet(), Collections.emptySet(), null, Collections.emptySet()).getCache(CacheKey.USER);
+        user = EmbeddedRedis.user(1L);
+        redisCache.put(user.getMsrl(), user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        refreshExecutor.shutdown();
+        redis.stop();
+    }
+
+    @Benchmark
+    public Object redisGet() {
+        return redisCache.get(user.getMsrl(), User.class);
+    }
+
+    @Benchmark
+    public void redisPut() {
+        redisCache.put(user.getMsrl(), user);
+    }
+
+    @Benchmark
+    public Object twoLevelGet() {
+        return twoLevelCache.get(user.getMsrl(), User.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.redis.cluster.benchmark;
+
+import com.redis.cluster.entity.User;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+
+/**
+ * 벤치마크용 in-process Redis. 오프라인에서도 실행되도록 클러스터 대신 단일 노드를 띄운다.
+ */
+public class EmbeddedRedis {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+
+    public EmbeddedRedis() {
+        int port = freePort();
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+    }
+
+    public LettuceConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    public void stop() {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    public static User user(long msrl) {
+        return User.builder()
+                .msrl(msrl)
+                .uid("happydaddy" + msrl + "@naver.com")
+                .name("happydaddy")
+                .password("password")
+                .roles(Arrays.asList("ROLE_USER", "ROLE_ADMIN"))
+                .build();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.redis.cluster.benchmark;
+
+import com.redis.cluster.cache.CacheInvalidationPublisher;
+import com.redis.cluster.cache.TwoLevelCache;
+import com.redis.cluster.support.MicrometerCommandLatencyCollector;
+import com.redis.cluster.support.NodeLatencyTracker;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.protocol.CommandType;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 상시 사용하는 계측 경로의 비용.
+ * - recordCommandLatency : Lettuce 커맨드마다 호출되는 노드별 히스토그램 및 평균 응답시간 기록
+ * - twoLevelGet : 통계 카운터를 포함한 L1 적중 경로 (localGet 대비)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsOverheadBenchmark {
+
+    private MicrometerCommandLatencyCollector collector;
+    private InetSocketAddress local;
+    private InetSocketAddress remote;
+    private com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private TwoLevelCache twoLevelCache;
+
+    @Setup
+    public void setUp() {
+        collector = new MicrometerCommandLatencyCollector(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), new NodeLatencyTracker());
+        local = new InetSocketAddress("127.0.0.1", 50000);
+        remote = new InetSocketAddress("127.0.0.1", 6300);
+        localCache = Caffeine.newBuilder().maximumSize(100).build();
+        twoLevelCache = new TwoLevelCache("user", localCache, new ConcurrentMapCache("user"), mock(CacheInvalidationPublisher.class));
+        twoLevelCache.put(1L, EmbeddedRedis.user(1L));
+    }
+
+    @Benchmark
+    public void recordCommandLatency() {
+        collector.recordCommandLatency(local, remote, CommandType.GET, 150_000, 200_000);
+    }
+
+    @Benchmark
+    public Object localGet() {
+        return localCache.getIfPresent("1");
+    }
+
+    @Benchmark
+    public Object twoLevelGet() {
+        return twoLevelCache.get(1L);
+    }
+}
@@ -0,0 +1,120 @@
+package com.redis.cluster.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.pubsub.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisSubscriber.onMessage 디코딩(+dispatcher 큐 적재) 처리량 및 발행 비용
+ * (동기 convertAndSend 1건씩 vs RedisPublisher 묶음/packed 발행)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PubSubBenchmark {
+
+    private EmbeddedRedis redis;
+    private RoomMessageDispatcher dispatcher;
+    private RedisSubscriber redisSubscriber;
+    private static final int MESSAGES = 100;
+
+    private RedisPublisher redisPublisher;
+    private RedisPublisher packedPublisher;
+    private RoomHistoryStore historyStore;
+    private RedisTemplate<String, Object> redisTemplate;
+    private RedisSerializer<Object> valueSerializer;
+    private ChannelTopic topic;
+    private RoomMessage roomMessage;
+    private Message message;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redis = new EmbeddedRedis();
+        // RedisCacheConfig.redisTemplateForObject와 동일한 구성
+        valueSerializer = (RedisSerializer) new Jackson2JsonRedisSerializer<>(String.class);
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redis.getConnectionFactory());
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.afterPropertiesSet();
+
+        RoomShards roomShards = new RoomShards(16);
+        RoomRouter roomRouter = new RoomRouter();
+        roomRouter.open("benchmark");
+        dispatcher = new RoomMessageDispatcher(roomRouter, new SimpleMeterRegistry(), 4, 8192, 256, BackpressurePolicy.DROP_OLDEST, 0);
+        dispatcher.start();
+        redisSubscriber = new RedisSubscriber(new RoomMessageCodec(new ObjectMapper()), roomShards, roomRouter, dispatcher, null);
+        historyStore = new RoomHistoryStore(redis.getConnectionFactory(), true, 1000);
+        RoomHistoryStore disabledHistory = new RoomHistoryStore(redis.getConnectionFactory(), false, 0);
+        RoomMessageCodec codec = new RoomMessageCodec(new ObjectMapper());
+        redisPublisher = new RedisPublisher(redis.getConnectionFactory(), roomShards, disabledHistory, codec, new SimpleMeterRegistry(), 2, 256, 65536, false);
+        redisPublisher.start();
+        packedPublisher = new RedisPublisher(redis.getConnectionFactory(), roomShards, disabledHistory, codec, new SimpleMeterRegistry(), 2, 256, 65536, true);
+        packedPublisher.start();
+        topic = roomShards.topicOf("benchmark");
+        roomMessage = RoomMessage.builder().roomId("benchmark").name("happydaddy").message("hello redis").build();
+        message = new DefaultMessage(topic.getTopic().getBytes(StandardCharsets.UTF_8), valueSerializer.serialize(roomMessage));
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisPublisher.stop();
+        packedPublisher.stop();
+        dispatcher.stop();
+        redis.stop();
+    }
+
+    @Benchmark
+    public void onMessage() {
+        redisSubscriber.onMessage(message, null);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return valueSerializer.serialize(roomMessage);
+    }
+
+    // 기존 방식: 메시지마다 동기 PUBLISH
+    @Benchmark
+    public void publishSync() {
+        redisTemplate.convertAndSend(topic.getTopic(), roomMessage);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void publishBatched() {
+        publishAll(redisPublisher);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void publishPacked() {
+        publishAll(packedPublisher);
+    }
+
+    private void publishAll(RedisPublisher publisher) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++)
+            futures[i] = publisher.publish(topic, roomMessage);
+        CompletableFuture.allOf(futures).join();
+    }
+
+    // stream 추가(XADD MAXLEN ~). 응답을 기다리지 않으므로 연속 호출은 파이프라인으로 전송된다.
+    @Benchmark
+    public Object appendHistory() {
+        return historyStore.append(roomMessage);
+    }
+}
@@ -0,0 +1,119 @@
+package com.redis.cluster.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.cache.CacheInvalidationPublisher;
+import com.redis.cluster.cache.TwoLevelCacheManager;
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.config.RedisCacheConfig;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import com.redis.cluster.service.ReactiveUserService;
+import com.redis.cluster.service.UserExistenceFilter;
+import com.redis.cluster.service.UserWriteBehindService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 동시 조회 REQUESTS건의 처리시간. MVC(@Cacheable(sync = true)와 같은 Cache.get(key, loader), CONCURRENCY 스레드)와
+ * ReactiveUserService.findOne(동시 CONCURRENCY건) 비교. DB는 고정 값을 반환하는 UserJpaRepo로 대신한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReactiveUserServiceBenchmark {
+
+    private static final int REQUESTS = 10000;
+    private static final int CONCURRENCY = 200;
+
+    private EmbeddedRedis redis;
+    private ThreadPoolTaskExecutor refreshExecutor;
+    private ExecutorService mvcExecutor;
+    private Cache cache;
+    private UserJpaRepo userJpaRepo;
+    private ReactiveUserService reactiveUserService;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        redis = new EmbeddedRedis();
+        user = EmbeddedRedis.user(1L);
+        userJpaRepo = (UserJpaRepo) Proxy.newProxyInstance(UserJpaRepo.class.getClassLoader(), new Class[]{UserJpaRepo.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findById":
+                            return Optional.of(user);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "UserJpaRepo";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        RedisCacheConfig config = new RedisCacheConfig();
+        CompactRedisSerializer serializer = config.compactRedisSerializer(CompactRedisSerializer.Mode.MIGRATE, 1024);
+        RedisCacheManager redisCacheManager = config.redisCacheManager(RedisCacheWriter.nonLockingRedisCacheWriter(redis.getConnectionFactory()), serializer);
+        redisCacheManager.afterPropertiesSet();
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(redis.getConnectionFactory());
+        refreshExecutor = config.cacheRefreshExecutor();
+        refreshExecutor.initialize();
+        CacheInvalidationPublisher publisher = new CacheInvalidationPublisher(stringRedisTemplate, new ObjectMapper(), redis.getConnectionFactory());
+        TwoLevelCacheManager cacheManager = config.cacheManager(redisCacheManager, publisher, stringRedisTemplate, refreshExecutor,
+                redis.getConnectionFactory(), Collections.emptySet(), Collections.emptySet(), null, Collections.emptySet());
+        cache = cacheManager.getCache(CacheKey.USER);
+        // write-behind 비활성화 (조회는 UserJpaRepo로 바로 전달)
+        UserWriteBehindService userWriteBehindService = new UserWriteBehindService(redis.getConnectionFactory(), serializer, userJpaRepo,
+                cacheManager, null, null, new SimpleMeterRegistry(), false, 8, 500, 100000, 200);
+        // Bloom filter 비활성화
+        UserExistenceFilter userExistenceFilter = new UserExistenceFilter(redis.getConnectionFactory(), null, userJpaRepo,
+                new SimpleMeterRegistry(), false, 1_000_000, 0.01, 30);
+        reactiveUserService = new ReactiveUserService(config.reactiveCacheRedisTemplate(redis.getConnectionFactory(), serializer),
+                userJpaRepo, userWriteBehindService, userExistenceFilter, cacheManager, redisCacheManager, publisher, 10, 1000);
+        mvcExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mvcExecutor.shutdown();
+        refreshExecutor.shutdown();
+        reactiveUserService.destroy();
+        redis.stop();
+    }
+
+    @Benchmark
+    public void mvcFindOne() throws Exception {
+        List<Future<?>> results = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++)
+            results.add(mvcExecutor.submit(() -> cache.get(user.getMsrl(), () -> userJpaRepo.findById(user.getMsrl()).orElse(null))));
+        for (Future<?> result : results)
+            result.get();
+    }
+
+    @Benchmark
+    public Long reactiveFindOne() {
+        return Flux.range(0, REQUESTS)
+                .flatMap(i -> reactiveUserService.findOne(user.getMsrl()), CONCURRENCY)
+                .count()
+                .block();
+    }
+}
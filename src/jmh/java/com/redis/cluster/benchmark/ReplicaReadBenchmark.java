@@ -0,0 +1,125 @@
+package com.redis.cluster.benchmark;
+
+import com.redis.cluster.cache.RecentWrites;
+import com.redis.cluster.cache.ReplicaReadCacheWriter;
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.config.RedisCacheConfig;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import io.lettuce.core.ReadFrom;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * user 캐시 조회를 master에서 읽을 때와 replica에서 읽을 때(ReplicaReadCacheWriter)의 응답시간.
+ * 각 trial 종료시 master가 처리한 GET 횟수와 CPU 사용시간(INFO)을 출력해서 master 부하 감소를 비교한다.
+ * 오프라인에서 실행되도록 클러스터 대신 in-process master 1 + replica 1 을 띄운다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class ReplicaReadBenchmark {
+
+    @Param({"MASTER", "REPLICA"})
+    private String readFrom;
+
+    private RedisServer master;
+    private RedisServer replica;
+    private LettuceConnectionFactory masterFactory;
+    private LettuceConnectionFactory replicaFactory;
+    private Cache cache;
+    private User user;
+    private long masterGets;
+    private double masterCpu;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        int masterPort = freePort();
+        int replicaPort = freePort();
+        master = new RedisServer(masterPort);
+        master.start();
+        replica = RedisServer.builder().port(replicaPort).setting("slaveof localhost " + masterPort).build();
+        replica.start();
+
+        masterFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", masterPort));
+        masterFactory.afterPropertiesSet();
+        RedisStaticMasterReplicaConfiguration replicaConfiguration = new RedisStaticMasterReplicaConfiguration("localhost", masterPort);
+        replicaConfiguration.node("localhost", replicaPort);
+        replicaFactory = new LettuceConnectionFactory(replicaConfiguration, LettuceClientConfiguration.builder().readFrom(ReadFrom.SLAVE).build());
+        replicaFactory.afterPropertiesSet();
+
+        RedisCacheWriter masterWriter = RedisCacheWriter.nonLockingRedisCacheWriter(masterFactory);
+        RedisCacheWriter cacheWriter = "REPLICA".equals(readFrom)
+                ? new ReplicaReadCacheWriter(masterWriter, RedisCacheWriter.nonLockingRedisCacheWriter(replicaFactory),
+                Collections.singleton(CacheKey.USER), new RecentWrites(Duration.ofMillis(100), 1000))
+                : masterWriter;
+        RedisCacheConfig config = new RedisCacheConfig();
+        CompactRedisSerializer serializer = config.compactRedisSerializer(CompactRedisSerializer.Mode.MIGRATE, 1024);
+        RedisCacheManager redisCacheManager = config.redisCacheManager(cacheWriter, serializer);
+        redisCacheManager.afterPropertiesSet();
+        cache = redisCacheManager.getCache(CacheKey.USER);
+
+        user = EmbeddedRedis.user(1L);
+        cache.put(user.getMsrl(), user);
+        // 복제 및 RecentWrites window 대기
+        Thread.sleep(500);
+        masterGets = masterGets();
+        masterCpu = masterCpu();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n[%s] master GET calls: %d, master CPU: %.2fs%n", readFrom, masterGets() - masterGets, masterCpu() - masterCpu);
+        replicaFactory.destroy();
+        masterFactory.destroy();
+        replica.stop();
+        master.stop();
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(user.getMsrl(), User.class);
+    }
+
+    private long masterGets() {
+        try (RedisConnection connection = masterFactory.getConnection()) {
+            Properties commandStats = connection.info("commandstats");
+            String stat = commandStats.getProperty("cmdstat_get");
+            if (stat == null)
+                return 0;
+            // calls=10,usec=...
+            return Long.parseLong(stat.substring(stat.indexOf('=') + 1, stat.indexOf(',')));
+        }
+    }
+
+    private double masterCpu() {
+        try (RedisConnection connection = masterFactory.getConnection()) {
+            Properties cpu = connection.info("cpu");
+            return Double.parseDouble(cpu.getProperty("used_cpu_user")) + Double.parseDouble(cpu.getProperty("used_cpu_sys"));
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.redis.cluster.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.pubsub.RoomMessage;
+import com.redis.cluster.pubsub.RoomMessageCodec;
+import com.redis.cluster.pubsub.RoomRouter;
+import com.redis.cluster.pubsub.RoomStreamGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.Disposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 한 인스턴스에 CONNECTIONS개의 SSE 연결(ROOMS개 방)이 있을 때 연결 하나로의 메시지 전달 시간.
+ * 연결당 heap 사용량은 Setup에서 출력한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoomStreamGatewayBenchmark {
+
+    private static final int CONNECTIONS = 20000;
+    private static final int ROOMS = 100;
+
+    private RoomRouter roomRouter;
+    private List<Disposable> connections;
+    private List<RoomMessage> messages;
+    private final AtomicLong received = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        roomRouter = new RoomRouter();
+        RoomStreamGateway gateway = new RoomStreamGateway(roomRouter, new RoomMessageCodec(new ObjectMapper()), new SimpleMeterRegistry(), 256, 60);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        connections = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++)
+            connections.add(gateway.connect("room_" + (i % ROOMS)).subscribe(event -> received.incrementAndGet()));
+        long heapPerConnection = (runtime.totalMemory() - runtime.freeMemory() - heapBefore) / CONNECTIONS;
+        System.out.printf("%n%d connections / %d rooms - ~%d bytes heap per connection%n", CONNECTIONS, ROOMS, heapPerConnection);
+
+        messages = new ArrayList<>(ROOMS);
+        for (int r = 0; r < ROOMS; r++)
+            messages.add(RoomMessage.builder().roomId("room_" + r).name("happydaddy").message("hello").build());
+    }
+
+    @TearDown
+    public void tearDown() {
+        connections.forEach(Disposable::dispose);
+    }
+
+    // 방마다 메시지 1건 = 연결마다 1건 전달
+    @Benchmark
+    @OperationsPerInvocation(CONNECTIONS)
+    public long fanOut() {
+        for (RoomMessage message : messages)
+            roomRouter.route(message);
+        return received.get();
+    }
+}
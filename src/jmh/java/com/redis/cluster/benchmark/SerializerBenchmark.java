@@ -0,0 +1,56 @@
+package com.redis.cluster.benchmark;
+
+import com.redis.cluster.entity.User;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 캐시 값 serializer별 User 인코딩/디코딩 비용
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializerBenchmark {
+
+    @Param({"jdk", "jackson2json", "compact", "compact-lz4"})
+    private String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private User user;
+    private byte[] bytes;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        switch (serializer) {
+            case "jdk":
+                redisSerializer = new JdkSerializationRedisSerializer();
+                break;
+            case "jackson2json":
+                redisSerializer = (RedisSerializer) new Jackson2JsonRedisSerializer<>(User.class);
+                break;
+            case "compact":
+                redisSerializer = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 0).register(1, User.class);
+                break;
+            default:
+                redisSerializer = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 1).register(1, User.class);
+        }
+        user = EmbeddedRedis.user(1L);
+        bytes = redisSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return redisSerializer.deserialize(bytes);
+    }
+}
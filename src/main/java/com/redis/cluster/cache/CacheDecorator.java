@@ -0,0 +1,78 @@
+package com.redis.cluster.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 다른 캐시를 감싸는 데코레이터의 기본 구현. 모든 연산을 대상 캐시에 위임한다.
+ */
+public abstract class CacheDecorator implements Cache, NearCache {
+
+    protected final Cache delegate;
+
+    protected CacheDecorator(Cache delegate) {
+        this.delegate = delegate;
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        if (delegate instanceof NearCache)
+            ((NearCache) delegate).evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        if (delegate instanceof NearCache)
+            ((NearCache) delegate).clearLocal();
+    }
+}
@@ -0,0 +1,19 @@
+package com.redis.cluster.cache;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class CacheInvalidationMessage implements Serializable {
+    private static final long serialVersionUID = -3183214728613412011L;
+    // 메시지를 발행한 인스턴스
+    private String instanceId;
+    private String cacheName;
+    // null이면 캐시 전체 무효화
+    private String key;
+}
@@ -0,0 +1,72 @@
+package com.redis.cluster.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.common.CacheKey;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class CacheInvalidationPublisher {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    // 논블로킹 경로(ReactiveUserService)의 발행용. 없으면 publishAsync도 블로킹 발행을 사용
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    // 자신이 발행한 메시지를 구분하기 위한 인스턴스 식별자
+    @Getter
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Autowired
+    public CacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                                      ReactiveRedisConnectionFactory reactiveConnectionFactory) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reactiveStringRedisTemplate = new ReactiveStringRedisTemplate(reactiveConnectionFactory);
+        this.objectMapper = objectMapper;
+    }
+
+    public CacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.reactiveStringRedisTemplate = null;
+        this.objectMapper = objectMapper;
+    }
+
+    public void publish(String cacheName, Object key) {
+        send(CacheInvalidationMessage.builder().instanceId(instanceId).cacheName(cacheName).key(String.valueOf(key)).build());
+    }
+
+    public void publishClear(String cacheName) {
+        send(CacheInvalidationMessage.builder().instanceId(instanceId).cacheName(cacheName).build());
+    }
+
+    /**
+     * publish와 같은 메시지를 논블로킹으로 발행. 실패는 로그만 남기고 완료된다.
+     */
+    public Mono<Void> publishAsync(String cacheName, Object key) {
+        CacheInvalidationMessage message = CacheInvalidationMessage.builder().instanceId(instanceId).cacheName(cacheName).key(String.valueOf(key)).build();
+        if (reactiveStringRedisTemplate == null)
+            return Mono.fromRunnable(() -> send(message));
+        return Mono.fromCallable(() -> objectMapper.writeValueAsString(message))
+                .flatMap(payload -> reactiveStringRedisTemplate.convertAndSend(CacheKey.CACHE_INVALIDATION_CHANNEL, payload))
+                .doOnError(e -> log.error(e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void send(CacheInvalidationMessage message) {
+        try {
+            stringRedisTemplate.convertAndSend(CacheKey.CACHE_INVALIDATION_CHANNEL, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // 무효화 메시지 유실시 다른 인스턴스의 로컬 캐시는 만료시간 이후 갱신된다.
+            log.error(e.getMessage());
+        }
+    }
+}
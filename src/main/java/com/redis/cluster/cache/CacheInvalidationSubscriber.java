@@ -0,0 +1,67 @@
+package com.redis.cluster.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.common.CacheKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class CacheInvalidationSubscriber implements MessageListener {
+
+    private final RedisMessageListenerContainer redisMessageListener;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final RecentWrites recentWrites;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListener.addMessageListener(this, new ChannelTopic(CacheKey.CACHE_INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CacheInvalidationMessage invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+            // 자신이 발행한 메시지는 이미 로컬에 반영되어 있음
+            if (cacheInvalidationPublisher.getInstanceId().equals(invalidation.getInstanceId()))
+                return;
+            Cache cache = cacheManager.getCache(invalidation.getCacheName());
+            // 다른 인스턴스가 변경한 키도 window 동안 master에서 읽는다. L1을 비운 뒤의 미스가 복제 전 replica 값을 다시 보관하지 않도록 비우기 전에 기록
+            recordRemoteWrite(cache, invalidation);
+            if (!(cache instanceof NearCache))
+                return;
+            if (invalidation.getKey() == null)
+                ((NearCache) cache).clearLocal();
+            else
+                ((NearCache) cache).evictLocal(invalidation.getKey());
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    private void recordRemoteWrite(Cache cache, CacheInvalidationMessage invalidation) {
+        if (invalidation.getKey() == null) {
+            recentWrites.recordClear(invalidation.getCacheName());
+            return;
+        }
+        RedisCache redisCache = Caches.unwrap(cache, RedisCache.class);
+        if (redisCache == null)
+            return;
+        String redisKey = redisCache.getCacheConfiguration().getKeyPrefixFor(invalidation.getCacheName()) + invalidation.getKey();
+        recentWrites.record(redisKey.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.redis.cluster.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 계층(L1 - 로컬, L2 - Redis)별 캐시 적중/실패 카운터 및 로딩시간(ns)
+ */
+public class CacheStatistics {
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    void l1Hit() {
+        l1Hits.increment();
+    }
+
+    void l1Miss() {
+        l1Misses.increment();
+    }
+
+    void l2Hit() {
+        l2Hits.increment();
+    }
+
+    void l2Miss() {
+        l2Misses.increment();
+    }
+
+    void put() {
+        puts.increment();
+    }
+
+    void eviction() {
+        evictions.increment();
+    }
+
+    void load(long nanos) {
+        loads.increment();
+        loadNanos.add(nanos);
+    }
+
+    public long getL1HitCount() {
+        return l1Hits.sum();
+    }
+
+    public long getL1MissCount() {
+        return l1Misses.sum();
+    }
+
+    public long getL2HitCount() {
+        return l2Hits.sum();
+    }
+
+    public long getL2MissCount() {
+        return l2Misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public long getTotalLoadTime() {
+        return loadNanos.sum();
+    }
+}
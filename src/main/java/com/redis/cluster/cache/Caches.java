@@ -0,0 +1,29 @@
+package com.redis.cluster.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * 데코레이터(L1, 로딩 합치기 등)로 감싸진 캐시에서 특정 타입의 캐시를 찾는다.
+ */
+public class Caches {
+
+    private Caches() {
+    }
+
+    /**
+     * @return 감싸진 캐시 중 type에 해당하는 캐시. 없으면 null
+     */
+    public static <T extends Cache> T unwrap(Cache cache, Class<T> type) {
+        while (cache != null) {
+            if (type.isInstance(cache))
+                return type.cast(cache);
+            if (cache instanceof TwoLevelCache)
+                cache = ((TwoLevelCache) cache).getRemoteCache();
+            else if (cache instanceof CacheDecorator)
+                cache = ((CacheDecorator) cache).getDelegate();
+            else
+                return null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+package com.redis.cluster.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+/**
+ * 대상 CacheManager가 생성한 캐시를 주어진 데코레이터로 한번만 감싸서 반환한다.
+ */
+public class DecoratingCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final BiFunction<String, Cache, Cache> decorator;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public DecoratingCacheManager(CacheManager delegate, BiFunction<String, Cache, Cache> decorator) {
+        this.delegate = delegate;
+        this.decorator = decorator;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null)
+            return cache;
+        Cache target = delegate.getCache(name);
+        if (target == null)
+            return null;
+        return caches.computeIfAbsent(name, n -> decorator.apply(n, target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
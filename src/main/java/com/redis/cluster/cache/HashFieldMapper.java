@@ -0,0 +1,84 @@
+package com.redis.cluster.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 객체를 필드별 Redis hash 값으로 변환한다. 각 필드 값은 JSON으로 저장되어 필드 단위로 읽고 쓸 수 있다.
+ * CompactRedisSerializer와 같이 Jackson 어노테이션과 무관하게 모든 필드를 보관하고 모르는 필드는 무시한다.
+ */
+public class HashFieldMapper<T> {
+
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+
+    public HashFieldMapper(Class<T> type) {
+        this.type = type;
+        this.objectMapper = new ObjectMapper()
+                .disable(MapperFeature.USE_ANNOTATIONS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * 필드명 -> JSON 값. null 필드는 값이 null인 항목으로 포함된다.
+     */
+    public Map<String, byte[]> toHash(Object value) {
+        JsonNode tree = objectMapper.valueToTree(value);
+        Map<String, byte[]> hash = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = tree.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            hash.put(field.getKey(), field.getValue().isNull() ? null : writeField(field.getValue()));
+        }
+        return hash;
+    }
+
+    public T fromHash(Map<String, byte[]> hash) {
+        ObjectNode tree = objectMapper.createObjectNode();
+        try {
+            for (Map.Entry<String, byte[]> field : hash.entrySet())
+                tree.set(field.getKey(), objectMapper.readTree(field.getValue()));
+            return objectMapper.treeToValue(tree, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read hash as " + type.getName(), e);
+        }
+    }
+
+    public Object readField(byte[] value) {
+        try {
+            return objectMapper.readValue(value, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read hash field", e);
+        }
+    }
+
+    public byte[] writeField(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write hash field", e);
+        }
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
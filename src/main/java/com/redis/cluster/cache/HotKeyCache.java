@@ -0,0 +1,132 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 일부 키에 조회가 몰리면 해당 키의 slot을 가진 master 노드 하나에 부하가 집중된다.
+ * 조회를 HotKeyDetector로 집계해서 hot key로 판단된 키만 pinTtl 동안 로컬에 보관하고 Redis 대신 응답하는 캐시 데코레이터.
+ * <p>
+ * 보관 기간이 짧으므로 다른 인스턴스의 변경은 무효화 메시지(NearCache) 또는 pinTtl 만료로 반영된다.
+ * Redis로 가는 조회를 집계하므로 L1(TwoLevelCache)이 없는 캐시에만 둔다. L1이 있으면 반복 조회는 L1에서 끝나 hot key가 되지 않는다.
+ * cache.hot-key.names에 지정한 캐시는 L1을 끄고 이 로컬 사본이 hot key에 대한 L1 역할을 한다. (RedisCacheConfig)
+ * tracking 캐시는 통지 연결이 끊긴 동안 모든 조회가 Redis로 가므로 이때 부하를 막아준다.
+ */
+public class HotKeyCache extends CacheDecorator {
+
+    private final HotKeyDetector detector;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> pinned;
+    private final LongAdder pinnedHits = new LongAdder();
+
+    public HotKeyCache(Cache delegate, HotKeyDetector detector, int maxPinned, Duration pinTtl) {
+        super(delegate);
+        this.detector = detector;
+        this.pinned = Caffeine.newBuilder()
+                .maximumSize(maxPinned)
+                .expireAfterWrite(pinTtl.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public HotKeyDetector getDetector() {
+        return detector;
+    }
+
+    public long getPinnedHitCount() {
+        return pinnedHits.sum();
+    }
+
+    public long getPinnedSize() {
+        return pinned.estimatedSize();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        if (!detector.record(localKey))
+            return delegate.get(key);
+        Object value = pinned.getIfPresent(localKey);
+        if (value != null) {
+            pinnedHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() != null)
+            pinned.put(localKey, wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        if (!detector.record(localKey))
+            return delegate.get(key, valueLoader);
+        Object value = pinned.getIfPresent(localKey);
+        if (value != null) {
+            pinnedHits.increment();
+            return (T) value;
+        }
+        T result = delegate.get(key, valueLoader);
+        if (result != null)
+            pinned.put(localKey, result);
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        pinned.invalidate(localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        pinned.invalidate(localKey(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        pinned.invalidate(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        pinned.invalidateAll();
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        pinned.invalidate(localKey(key));
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        pinned.invalidateAll();
+        super.clearLocal();
+    }
+
+    // 무효화 메시지로 전달되는 키와 동일한 형태(문자열)
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
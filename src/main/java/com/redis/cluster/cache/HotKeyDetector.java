@@ -0,0 +1,133 @@
+package com.redis.cluster.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 키별 조회 빈도를 Count-Min sketch로 추정해서 구간(window)당 threshold 이상 조회된 키를 hot key로 판단한다.
+ * <p>
+ * - sketch는 고정 크기(depth x width 카운터)라 키 수와 무관하게 메모리가 일정하다. 추정치는 실제보다 크거나 같다.
+ * - threshold를 넘은 키만 후보로 보관하고, 후보가 topK를 넘으면 추정치가 가장 작은 키를 버린다.
+ * - 구간이 끝나면 후보를 hot key 목록으로 교체하고 sketch를 초기화한다. (별도 스레드 없이 조회시 교체)
+ * 직전 구간의 hot key와 현재 구간에서 threshold를 넘은 키를 hot으로 본다.
+ */
+public class HotKeyDetector {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    private final long threshold;
+    private final int topK;
+    private final long windowNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicIntegerArray counters = new AtomicIntegerArray(DEPTH * WIDTH);
+    private final AtomicLong windowStart;
+    private final ConcurrentMap<String, Integer> candidates = new ConcurrentHashMap<>();
+    private volatile List<HotKey> hotKeys = Collections.emptyList();
+    private volatile Set<String> hotKeySet = Collections.emptySet();
+
+    /**
+     * @param ratePerSec 초당 이 횟수 이상 조회되는 키를 hot key로 판단
+     * @param topK       유지할 hot key 최대 개수
+     */
+    public HotKeyDetector(long ratePerSec, int topK, long windowMillis) {
+        this(ratePerSec, topK, windowMillis, System::nanoTime);
+    }
+
+    HotKeyDetector(long ratePerSec, int topK, long windowMillis, LongSupplier nanoTime) {
+        this.threshold = Math.max(1, ratePerSec * windowMillis / 1000);
+        this.topK = topK;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.nanoTime = nanoTime;
+        this.windowStart = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * 조회 1회를 기록
+     *
+     * @return hot key 여부
+     */
+    public boolean record(String key) {
+        rotateIfNeeded();
+        int hash = spread(key.hashCode());
+        int step = Integer.rotateLeft(hash * 0x9E3779B9, 16) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int column = (hash + row * step) & (WIDTH - 1);
+            estimate = Math.min(estimate, counters.incrementAndGet(row * WIDTH + column));
+        }
+        if (estimate >= threshold) {
+            candidates.put(key, estimate);
+            if (candidates.size() > topK)
+                evictColdestCandidate();
+            return candidates.containsKey(key) || hotKeySet.contains(key);
+        }
+        return hotKeySet.contains(key);
+    }
+
+    public boolean isHot(String key) {
+        return hotKeySet.contains(key) || candidates.containsKey(key);
+    }
+
+    /**
+     * 직전 구간의 hot key와 초당 조회수. 조회수 내림차순
+     */
+    public List<HotKey> getHotKeys() {
+        rotateIfNeeded();
+        return hotKeys;
+    }
+
+    private void rotateIfNeeded() {
+        long start = windowStart.get();
+        long now = nanoTime.getAsLong();
+        long elapsed = now - start;
+        if (elapsed < windowNanos || !windowStart.compareAndSet(start, now))
+            return;
+        double seconds = (double) elapsed / TimeUnit.SECONDS.toNanos(1);
+        List<HotKey> rotated = new ArrayList<>(candidates.size());
+        candidates.forEach((key, count) -> rotated.add(new HotKey(key, count / seconds)));
+        rotated.sort(Comparator.comparingDouble(HotKey::getRate).reversed());
+        Set<String> keys = new HashSet<>();
+        rotated.forEach(hotKey -> keys.add(hotKey.getKey()));
+        hotKeys = Collections.unmodifiableList(rotated);
+        hotKeySet = keys;
+        candidates.clear();
+        for (int i = 0; i < counters.length(); i++)
+            counters.set(i, 0);
+    }
+
+    private void evictColdestCandidate() {
+        String coldest = null;
+        int min = Integer.MAX_VALUE;
+        for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+            if (candidate.getValue() < min) {
+                min = candidate.getValue();
+                coldest = candidate.getKey();
+            }
+        }
+        if (coldest != null)
+            candidates.remove(coldest, min);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        return hash ^ (hash >>> 13);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class HotKey {
+        private final String key;
+        // 초당 조회수 (추정치)
+        private final double rate;
+    }
+}
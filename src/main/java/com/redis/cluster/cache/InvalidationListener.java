@@ -0,0 +1,12 @@
+package com.redis.cluster.cache;
+
+/**
+ * Redis 키 변경 통지를 받는 리스너
+ */
+public interface InvalidationListener {
+
+    void invalidate(String key);
+
+    // 통지를 놓쳤을 수 있는 경우(재접속 등) 또는 FLUSHALL
+    void invalidateAll();
+}
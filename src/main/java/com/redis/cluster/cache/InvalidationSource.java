@@ -0,0 +1,14 @@
+package com.redis.cluster.cache;
+
+/**
+ * Redis 키 변경 통지를 전달하는 소스 (RedisTrackingInvalidationSource)
+ */
+public interface InvalidationSource {
+
+    void addListener(InvalidationListener listener);
+
+    /**
+     * 모든 노드의 변경을 통지받고 있는지 여부. false인 동안은 로컬 사본을 사용하지 않는다.
+     */
+    boolean isActive();
+}
@@ -0,0 +1,245 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 캐시 미스시 동일 키에 대한 동시 로딩을 하나로 합치고(stampede 방지),
+ * 만료 직전의 키는 확률적으로 미리 비동기 갱신(refresh-ahead)하는 캐시 데코레이터.
+ * <p>
+ * - 인스턴스 내부: 키별 진행중인 로딩(Future)을 공유
+ * - 인스턴스 간: lockTimeout이 지정된 경우 짧은 Redis 락(SET NX PX)으로 한 노드만 로딩
+ * - refresh-ahead: XFetch 방식. now - max(delta, refreshAheadWindow) * beta * ln(rand) >= expiry 이면 갱신
+ *   delta(로딩시간)는 수 ms라 앞단 L1 때문에 드물게 오는 조회로는 거의 갱신되지 않으므로 refreshAheadWindow(L1 만료시간)를 최소값으로 쓴다.
+ * <p>
+ * @Cacheable(sync = true)로 선언된 메서드만 get(key, valueLoader)를 거치므로 이 데코레이터의 대상이 된다.
+ * refresh-ahead는 호출 스레드가 아닌 refreshExecutor에서 로더를 다시 실행한다.
+ */
+@Slf4j
+public class LoadCoalescingCache extends CacheDecorator {
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+    private static final long LOCK_POLL_MILLIS = 20;
+    // lockTimeout이 없을 때 진행중인 로딩을 기다리는 최대 시간
+    private static final Duration DEFAULT_AWAIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    // 이 인스턴스에서 로딩한 키의 로딩시간과 만료시각
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadRecord> loadRecords;
+    private final StringRedisTemplate lockTemplate;
+    private final Duration lockTimeout;
+    private final Duration awaitTimeout;
+    private final Duration ttl;
+    private final double refreshAheadBeta;
+    private final long refreshAheadWindowNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoTime;
+    private final DoubleSupplier random;
+
+    /**
+     * @param lockTimeout        인스턴스간 락 유지시간. null이면 인스턴스 내부에서만 합친다.
+     * @param refreshAheadBeta   0이면 refresh-ahead 사용 안함. 클수록 더 일찍 갱신
+     * @param refreshAheadWindow 갱신 구간의 최소 크기. 앞단 L1의 만료시간 (L1이 없으면 ZERO)
+     */
+    public LoadCoalescingCache(Cache delegate, StringRedisTemplate lockTemplate, Duration lockTimeout,
+                               double refreshAheadBeta, Duration refreshAheadWindow, Executor refreshExecutor) {
+        this(delegate, lockTemplate, lockTimeout, ttlOf(delegate), refreshAheadBeta, refreshAheadWindow, refreshExecutor,
+                System::nanoTime, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    LoadCoalescingCache(Cache delegate, StringRedisTemplate lockTemplate, Duration lockTimeout, Duration ttl,
+                        double refreshAheadBeta, Duration refreshAheadWindow, Executor refreshExecutor,
+                        LongSupplier nanoTime, DoubleSupplier random) {
+        super(delegate);
+        this.lockTemplate = lockTemplate;
+        this.lockTimeout = lockTimeout;
+        this.awaitTimeout = lockTimeout != null ? lockTimeout : DEFAULT_AWAIT_TIMEOUT;
+        this.ttl = ttl;
+        this.refreshAheadBeta = refreshAheadBeta;
+        this.refreshAheadWindowNanos = refreshAheadWindow != null ? refreshAheadWindow.toNanos() : 0;
+        this.refreshExecutor = refreshExecutor;
+        this.nanoTime = nanoTime;
+        this.random = random;
+        this.loadRecords = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Math.max(ttl.toMillis(), 1), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            refreshAheadIfNeeded(key, valueLoader, wrapper.get());
+            return (T) wrapper.get();
+        }
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey(key), load);
+        if (inFlight != null)
+            return (T) await(key, valueLoader, inFlight);
+        try {
+            Object value = lockAndLoad(key, valueLoader);
+            load.complete(value);
+            return (T) value;
+        } catch (Exception e) {
+            load.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            loads.remove(localKey(key), load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        loadRecords.invalidate(localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        loadRecords.invalidate(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        loadRecords.invalidateAll();
+    }
+
+    // 진행중인 로딩이 awaitTimeout 안에 끝나지 않으면 직접 로딩한다.
+    private Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("in-flight load timed out - cache : {}, key : {}", getName(), key);
+            try {
+                return lockAndLoad(key, valueLoader);
+            } catch (Exception loadFailure) {
+                throw new ValueRetrievalException(key, valueLoader, loadFailure);
+            }
+        }
+    }
+
+    private Object lockAndLoad(Object key, Callable<?> valueLoader) throws Exception {
+        if (lockTemplate == null || lockTimeout == null)
+            return load(key, valueLoader);
+
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = lockTemplate.opsForValue().setIfAbsent(lockKey, token, lockTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                // 락을 얻기 직전에 다른 노드가 로딩을 끝냈을 수 있다.
+                ValueWrapper wrapper = delegate.get(key);
+                if (wrapper != null && wrapper.get() != null)
+                    return wrapper.get();
+                return load(key, valueLoader);
+            } finally {
+                lockTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token);
+            }
+        }
+        // 다른 노드가 로딩중이면 락 유지시간 동안 캐시에 값이 채워지기를 기다린다.
+        long deadline = System.currentTimeMillis() + lockTimeout.toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LOCK_POLL_MILLIS);
+            ValueWrapper wrapper = delegate.get(key);
+            if (wrapper != null && wrapper.get() != null)
+                return wrapper.get();
+            if (!Boolean.TRUE.equals(lockTemplate.hasKey(lockKey)))
+                break;
+        }
+        return load(key, valueLoader);
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) throws Exception {
+        long start = nanoTime.getAsLong();
+        Object value = valueLoader.call();
+        long delta = nanoTime.getAsLong() - start;
+        // 캐시가 null을 허용하지 않으므로 없는 값은 저장하지 않는다.
+        if (value != null) {
+            delegate.put(key, value);
+            if (!ttl.isZero())
+                loadRecords.put(localKey(key), new LoadRecord(delta, nanoTime.getAsLong() + ttl.toNanos()));
+        }
+        return value;
+    }
+
+    private void refreshAheadIfNeeded(Object key, Callable<?> valueLoader, Object current) {
+        if (refreshAheadBeta <= 0 || refreshExecutor == null)
+            return;
+        LoadRecord record = loadRecords.getIfPresent(localKey(key));
+        if (record == null)
+            return;
+        double gap = Math.max(record.delta, refreshAheadWindowNanos) * refreshAheadBeta * -Math.log(random.getAsDouble());
+        if (nanoTime.getAsLong() + gap < record.expiresAt)
+            return;
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (loads.putIfAbsent(localKey(key), refresh) != null)
+            return;
+        // 중복 갱신을 막기 위해 기록을 먼저 제거
+        loadRecords.invalidate(localKey(key));
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.complete(load(key, valueLoader));
+                } catch (Exception e) {
+                    log.warn("refresh-ahead failed - cache : {}, key : {}, {}", getName(), key, e.getMessage());
+                    refresh.completeExceptionally(e);
+                } finally {
+                    loads.remove(localKey(key), refresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 갱신은 best-effort. 기다리는 호출은 아직 유효한 현재 값을 받는다.
+            loads.remove(localKey(key), refresh);
+            refresh.complete(current);
+        }
+    }
+
+    // 만료시간을 알 수 없는 캐시는 refresh-ahead 대상이 아니다.
+    private static Duration ttlOf(Cache delegate) {
+        if (delegate instanceof RedisCache)
+            return ((RedisCache) delegate).getCacheConfiguration().getTtl();
+        if (delegate instanceof RedisHashCache)
+            return ((RedisHashCache) delegate).getTtl();
+        return Duration.ZERO;
+    }
+
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private String lockKey(Object key) {
+        return "lock:" + getName() + "::" + key;
+    }
+
+    private static class LoadRecord {
+        private final long delta;
+        private final long expiresAt;
+
+        private LoadRecord(long delta, long expiresAt) {
+            this.delta = delta;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
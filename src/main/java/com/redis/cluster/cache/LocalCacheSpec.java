@@ -0,0 +1,28 @@
+package com.redis.cluster.cache;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 로컬(L1) 캐시의 최대 건수 및 만료시간 설정
+ */
+@Getter
+public class LocalCacheSpec {
+
+    private final long maximumSize;
+    private final Duration expireAfterWrite;
+
+    private LocalCacheSpec(long maximumSize, Duration expireAfterWrite) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public static LocalCacheSpec of(long maximumSize, Duration expireAfterWrite) {
+        return new LocalCacheSpec(maximumSize, expireAfterWrite);
+    }
+
+    public boolean isEnabled() {
+        return maximumSize > 0 && !expireAfterWrite.isZero();
+    }
+}
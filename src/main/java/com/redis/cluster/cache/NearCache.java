@@ -0,0 +1,12 @@
+package com.redis.cluster.cache;
+
+/**
+ * 인스턴스 로컬에 사본을 보관하는 캐시.
+ * 다른 인스턴스에서 발생한 변경을 전달받아 로컬 사본만 무효화할 때 사용한다.
+ */
+public interface NearCache {
+
+    void evictLocal(Object key);
+
+    void clearLocal();
+}
@@ -0,0 +1,45 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 이 인스턴스에서 최근 변경한 캐시 키와 다른 인스턴스가 변경을 알린 캐시 키. (CacheInvalidationSubscriber)
+ * replica는 비동기로 복제되어 master보다 늦게 반영되므로 변경 후 window 동안은 master에서 읽어 자신이 쓴 값을 보게 한다.
+ * 보관 건수를 넘으면 오래된 키부터 잊으므로 best-effort이다.
+ */
+public class RecentWrites {
+
+    private final com.github.benmanes.caffeine.cache.Cache<ByteBuffer, Boolean> keys;
+    // 캐시 전체 삭제(clean) 시각
+    private final ConcurrentMap<String, Long> clears = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public RecentWrites(Duration window, long maximumSize) {
+        this.windowNanos = window.toNanos();
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public void record(byte[] key) {
+        keys.put(ByteBuffer.wrap(key), Boolean.TRUE);
+    }
+
+    public void recordClear(String name) {
+        clears.put(name, System.nanoTime());
+    }
+
+    public boolean contains(String name, byte[] key) {
+        Long cleared = clears.get(name);
+        if (cleared != null && System.nanoTime() - cleared < windowNanos)
+            return true;
+        return keys.getIfPresent(ByteBuffer.wrap(key)) != null;
+    }
+}
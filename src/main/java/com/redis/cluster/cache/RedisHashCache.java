@@ -0,0 +1,349 @@
+package com.redis.cluster.cache;
+
+import com.redis.cluster.support.ClusterKeyDeleter;
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 값을 직렬화한 하나의 문자열 대신 필드별 Redis hash로 저장하는 캐시.
+ * <p>
+ * - 전체 조회는 HGETALL, 일부 필드 조회는 HMGET(getFields)으로 필요한 필드만 읽고 디코딩한다.
+ * - 저장(put, putAll, putFields)은 Lua로 현재 값과 다른 필드만 HSET, null 필드는 HDEL 하고 같은 호출에서 TTL을 갱신한다.
+ *   여러 항목은 응답을 기다리지 않고 연속으로 보낸다.(파이프라인) putFields는 항목이 없으면 쓰지 않는다.
+ * - putIfAbsent, putAllIfAbsent는 항목이 없을 때만 쓴다. (DB에서 읽어 채우는 경로)
+ * <p>
+ * 키는 같은 이름의 RedisCache와 겹치지 않도록 prefix 뒤에 "h:"를 붙인다. (user::h:1)
+ * 저장/삭제시 같은 항목의 문자열 키(user::1)도 함께 삭제하여 문자열 포맷으로 읽는 경로(reactive, 일괄 조회)가 오래된 값을 보지 않게 한다.
+ * 만료시간은 대상 RedisCache의 설정을 따르며 null은 캐시하지 않는다.
+ */
+public class RedisHashCache extends AbstractValueAdaptingCache {
+
+    private static final String PUT_IF_ABSENT_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('hmset', KEYS[1], unpack(ARGV, 2)) " +
+            "if tonumber(ARGV[1]) > 0 then redis.call('pexpire', KEYS[1], ARGV[1]) end " +
+            "return 1";
+    // 현재 값과 다른 필드만 HSET, 빈 값(null 필드)은 HDEL 하고 TTL을 갱신한다. ARGV[2]가 0이면 항목이 없을 때 쓰지 않는다.
+    private static final String PUT_FIELDS_SCRIPT =
+            "if ARGV[2] == '0' and redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+            "local changed = 0 " +
+            "for i = 3, #ARGV, 2 do " +
+            "  if ARGV[i + 1] == '' then changed = changed + redis.call('hdel', KEYS[1], ARGV[i]) " +
+            "  elseif redis.call('hget', KEYS[1], ARGV[i]) ~= ARGV[i + 1] then " +
+            "    redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) changed = changed + 1 end " +
+            "end " +
+            "if tonumber(ARGV[1]) > 0 then redis.call('pexpire', KEYS[1], ARGV[1]) end " +
+            "return changed";
+    private static final byte[] NULL_FIELD = new byte[0];
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final String name;
+    private final RedisCacheWriter cacheWriter;
+    private final RedisCacheConfiguration configuration;
+    private final RedisConnectionFactory connectionFactory;
+    private final HashFieldMapper<?> mapper;
+
+    /**
+     * @param redisCache 같은 이름의 RedisCache. 만료시간, 키 prefix, 전체 삭제(clear)에 사용
+     */
+    public RedisHashCache(RedisCache redisCache, RedisConnectionFactory connectionFactory, HashFieldMapper<?> mapper) {
+        super(false);
+        this.name = redisCache.getName();
+        this.cacheWriter = redisCache.getNativeCache();
+        this.configuration = redisCache.getCacheConfiguration();
+        this.connectionFactory = connectionFactory;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return cacheWriter;
+    }
+
+    public Duration getTtl() {
+        return configuration.getTtl();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Map<byte[], byte[]> hash = await(ClusterSlots.async(connection).hgetall(key(key)));
+            return hash.isEmpty() ? null : fromHash(hash);
+        }
+    }
+
+    // 같은 키의 동시 로딩은 앞단의 LoadCoalescingCache가 합치므로 여기서는 잠그지 않는다.
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null)
+            return (T) wrapper.get();
+        try {
+            T value = valueLoader.call();
+            if (value != null)
+                put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            List<RedisFuture<?>> futures = new ArrayList<>();
+            write(commands, key, value, futures);
+            awaitAll(futures);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (value == null)
+            return get(key);
+        Map<String, byte[]> hash = nonNullFields(mapper.toHash(value));
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long written = eval(ClusterSlots.async(connection), PUT_IF_ABSENT_SCRIPT, key, hash);
+            return written != null && written == 1 ? null : get(key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            // 두 키는 슬롯이 다를 수 있으므로 따로 보낸다.
+            awaitAll(Arrays.asList(commands.del(key(key)), commands.del(stringKey(key))));
+        }
+    }
+
+    @Override
+    public void clear() {
+        cacheWriter.clean(name, HashFieldMapper.bytes(ClusterKeyDeleter.escape(keyPrefix()) + "*"));
+    }
+
+    /**
+     * 지정한 필드만 HMGET으로 조회. 캐시에 없으면 빈 Map
+     */
+    public Map<String, Object> getFields(Object key, Collection<String> fields) {
+        if (fields.isEmpty())
+            return Collections.emptyMap();
+        byte[][] names = new byte[fields.size()][];
+        int i = 0;
+        for (String field : fields)
+            names[i++] = HashFieldMapper.bytes(field);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            List<KeyValue<byte[], byte[]>> values = await(ClusterSlots.async(connection).hmget(key(key), names));
+            Map<String, Object> result = new LinkedHashMap<>();
+            for (KeyValue<byte[], byte[]> value : values)
+                if (value.hasValue())
+                    result.put(new String(value.getKey(), StandardCharsets.UTF_8), mapper.readField(value.getValue()));
+            return result;
+        }
+    }
+
+    /**
+     * 캐시된 항목의 일부 필드만 변경하고 TTL을 갱신한다.
+     *
+     * @return 캐시에 항목이 없어서 쓰지 않았으면 false
+     */
+    public boolean putFields(Object key, Map<String, ?> fields) {
+        if (fields.isEmpty())
+            return false;
+        Map<String, byte[]> hash = new LinkedHashMap<>();
+        fields.forEach((field, value) -> hash.put(field, value == null ? null : mapper.writeField(value)));
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            List<RedisFuture<?>> futures = new ArrayList<>();
+            RedisFuture<Long> written = writeFields(commands, key, hash, false, futures);
+            awaitAll(futures);
+            return getNow(written) >= 0;
+        }
+    }
+
+    /**
+     * 여러 항목을 HGETALL 파이프라인으로 조회. 캐시에 있는 항목만 반환
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> result = new LinkedHashMap<>();
+        if (keys.isEmpty())
+            return result;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            Map<Object, RedisFuture<Map<byte[], byte[]>>> futures = new LinkedHashMap<>();
+            for (Object key : keys)
+                futures.put(key, commands.hgetall(key(key)));
+            awaitAll(new ArrayList<>(futures.values()));
+            futures.forEach((key, future) -> {
+                Map<byte[], byte[]> hash = getNow(future);
+                if (!hash.isEmpty())
+                    result.put(key, fromHash(hash));
+            });
+        }
+        return result;
+    }
+
+    /**
+     * 여러 항목을 HMSET/HDEL/PEXPIRE 파이프라인으로 저장
+     */
+    public void putAll(Map<?, ?> values) {
+        if (values.isEmpty())
+            return;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            List<RedisFuture<?>> futures = new ArrayList<>();
+            values.forEach((key, value) -> {
+                if (value != null)
+                    write(commands, key, value, futures);
+            });
+            awaitAll(futures);
+        }
+    }
+
+    /**
+     * 캐시에 없는 항목만 파이프라인으로 저장. 이미 있는 항목은 더 최신일 수 있으므로 덮어쓰지 않는다.
+     */
+    public void putAllIfAbsent(Map<?, ?> values) {
+        if (values.isEmpty())
+            return;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            List<RedisFuture<?>> futures = new ArrayList<>();
+            values.forEach((key, value) -> {
+                if (value == null)
+                    return;
+                futures.add(commands.eval(PUT_IF_ABSENT_SCRIPT, ScriptOutputType.INTEGER, new byte[][]{key(key)},
+                        scriptArgs(nonNullFields(mapper.toHash(value)))));
+                futures.add(commands.del(stringKey(key)));
+            });
+            awaitAll(futures);
+        }
+    }
+
+    private void write(RedisClusterAsyncCommands<byte[], byte[]> commands, Object cacheKey, Object value, List<RedisFuture<?>> futures) {
+        writeFields(commands, cacheKey, mapper.toHash(value), true, futures);
+    }
+
+    // 변경된 필드만 쓰는 스크립트와 문자열 키 삭제를 응답을 기다리지 않고 보낸다. (-1: 항목이 없어서 쓰지 않음)
+    private RedisFuture<Long> writeFields(RedisClusterAsyncCommands<byte[], byte[]> commands, Object cacheKey, Map<String, byte[]> hash,
+                                          boolean create, List<RedisFuture<?>> futures) {
+        byte[][] args = new byte[hash.size() * 2 + 2][];
+        args[0] = HashFieldMapper.bytes(String.valueOf(ttlMillis()));
+        args[1] = HashFieldMapper.bytes(create ? "1" : "0");
+        int i = 2;
+        for (Map.Entry<String, byte[]> field : hash.entrySet()) {
+            args[i++] = HashFieldMapper.bytes(field.getKey());
+            args[i++] = field.getValue() == null ? NULL_FIELD : field.getValue();
+        }
+        RedisFuture<Long> written = commands.eval(PUT_FIELDS_SCRIPT, ScriptOutputType.INTEGER, new byte[][]{key(cacheKey)}, args);
+        futures.add(written);
+        futures.add(commands.del(stringKey(cacheKey)));
+        return written;
+    }
+
+    // 스크립트와 문자열 키 삭제를 함께 보낸다.
+    private Long eval(RedisClusterAsyncCommands<byte[], byte[]> commands, String script, Object key, Map<String, byte[]> hash) {
+        RedisFuture<Long> written = commands.eval(script, ScriptOutputType.INTEGER, new byte[][]{key(key)}, scriptArgs(hash));
+        RedisFuture<Long> deleted = commands.del(stringKey(key));
+        awaitAll(Arrays.asList(written, deleted));
+        return getNow(written);
+    }
+
+    private Object fromHash(Map<byte[], byte[]> hash) {
+        Map<String, byte[]> fields = new LinkedHashMap<>();
+        hash.forEach((field, value) -> fields.put(new String(field, StandardCharsets.UTF_8), value));
+        return mapper.fromHash(fields);
+    }
+
+    private long ttlMillis() {
+        return getTtl().isNegative() ? 0 : getTtl().toMillis();
+    }
+
+    // ARGV[1] = TTL(ms), 이후 필드/값 쌍
+    private byte[][] scriptArgs(Map<String, byte[]> hash) {
+        byte[][] args = new byte[hash.size() * 2 + 1][];
+        args[0] = HashFieldMapper.bytes(String.valueOf(ttlMillis()));
+        int i = 1;
+        for (Map.Entry<String, byte[]> field : hash.entrySet()) {
+            args[i++] = HashFieldMapper.bytes(field.getKey());
+            args[i++] = field.getValue();
+        }
+        return args;
+    }
+
+    private static Map<String, byte[]> nonNullFields(Map<String, byte[]> hash) {
+        hash.values().removeIf(Objects::isNull);
+        return hash;
+    }
+
+    private String keyPrefix() {
+        return configuration.getKeyPrefixFor(name) + "h:";
+    }
+
+    /**
+     * 항목의 hash 키 (user::h:1)
+     */
+    public String keyOf(Object key) {
+        return keyPrefix() + key;
+    }
+
+    private byte[] key(Object key) {
+        return HashFieldMapper.bytes(keyOf(key));
+    }
+
+    // 같은 이름의 RedisCache가 사용하는 문자열 키 (user::1)
+    private byte[] stringKey(Object key) {
+        return HashFieldMapper.bytes(configuration.getKeyPrefixFor(name) + key);
+    }
+
+    private static void awaitAll(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0])))
+            throw new IllegalStateException("Timeout waiting for redis hash cache");
+        futures.forEach(RedisHashCache::getNow);
+    }
+
+    private static <T> T await(RedisFuture<T> future) {
+        if (!LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, future))
+            throw new IllegalStateException("Timeout waiting for redis hash cache");
+        return getNow(future);
+    }
+
+    private static <T> T getNow(RedisFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Redis hash cache command failed", e.getCause());
+        }
+    }
+}
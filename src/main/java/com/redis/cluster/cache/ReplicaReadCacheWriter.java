@@ -0,0 +1,64 @@
+package com.redis.cluster.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 지정된 캐시의 조회(GET)만 replica 읽기 연결로 보내고 나머지는 master로 보내는 RedisCacheWriter.
+ * 이 인스턴스에서 방금 변경한 키와 다른 인스턴스의 무효화 메시지로 받은 키는 RecentWrites의 window 동안 master에서 읽는다. (read-your-writes)
+ * 변경중인 키도 master에서 읽도록 master에 쓰기 전에 기록하고, 쓰기가 끝난 뒤 다시 기록해서 window를 쓰기 완료 시점부터 센다.
+ */
+public class ReplicaReadCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter masterWriter;
+    private final RedisCacheWriter replicaWriter;
+    private final Set<String> replicaCacheNames;
+    private final RecentWrites recentWrites;
+
+    public ReplicaReadCacheWriter(RedisCacheWriter masterWriter, RedisCacheWriter replicaWriter,
+                                  Set<String> replicaCacheNames, RecentWrites recentWrites) {
+        this.masterWriter = masterWriter;
+        this.replicaWriter = replicaWriter;
+        this.replicaCacheNames = new HashSet<>(replicaCacheNames);
+        this.recentWrites = recentWrites;
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        if (replicaCacheNames.contains(name) && !recentWrites.contains(name, key))
+            return replicaWriter.get(name, key);
+        return masterWriter.get(name, key);
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        recentWrites.record(key);
+        masterWriter.put(name, key, value, ttl);
+        recentWrites.record(key);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        recentWrites.record(key);
+        byte[] existing = masterWriter.putIfAbsent(name, key, value, ttl);
+        recentWrites.record(key);
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        recentWrites.record(key);
+        masterWriter.remove(name, key);
+        recentWrites.record(key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        recentWrites.recordClear(name);
+        masterWriter.clean(name, pattern);
+        recentWrites.recordClear(name);
+    }
+}
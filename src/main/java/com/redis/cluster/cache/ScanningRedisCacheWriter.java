@@ -0,0 +1,53 @@
+package com.redis.cluster.cache;
+
+import com.redis.cluster.support.ClusterKeyDeleter;
+import com.redis.cluster.support.KeyDeleteJob;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 캐시 전체 삭제(clean)를 KEYS 대신 ClusterKeyDeleter(노드별 SCAN + UNLINK)로 처리하는 RedisCacheWriter.
+ * 호출 스레드는 삭제가 끝날 때까지 기다리지만 Redis 노드를 막지 않는다. 삭제 작업이 취소되면 IllegalStateException.
+ * 나머지 커맨드는 delegate로 보낸다.
+ */
+public class ScanningRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+    private final ClusterKeyDeleter keyDeleter;
+
+    public ScanningRedisCacheWriter(RedisCacheWriter delegate, ClusterKeyDeleter keyDeleter) {
+        this.delegate = delegate;
+        this.keyDeleter = keyDeleter;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        delegate.put(name, key, value, ttl);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return delegate.get(name, key);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return delegate.putIfAbsent(name, key, value, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    // 취소되어 일부 키만 삭제되었으면 완료로 보지 않는다.
+    @Override
+    public void clean(String name, byte[] pattern) {
+        KeyDeleteJob job = keyDeleter.delete(new String(pattern, StandardCharsets.UTF_8));
+        long deleted = job.future().join();
+        if (job.getState() == KeyDeleteJob.State.CANCELLED)
+            throw new IllegalStateException("Clean of cache " + name + " was cancelled after " + deleted + " keys (job " + job.getId() + ")");
+    }
+}
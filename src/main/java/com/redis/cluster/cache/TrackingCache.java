@@ -0,0 +1,180 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Redis 서버의 키 변경 통지(client-side caching)로 무효화되는 로컬 캐시.
+ * TTL 만료를 기다리지 않고 변경된 키만 정확히 제거하므로 roles처럼 거의 바뀌지 않는 값에 적합하다.
+ * <p>
+ * - 조회 결과는 Redis 키 이름으로 로컬에 보관하고, InvalidationSource가 해당 키 변경을 통지하면 제거한다.
+ * - 조회하는 동안 무효화가 발생하면 조회 결과를 보관하지 않는다. (오래된 값이 남는 것 방지)
+ * - 통지 소스가 비활성(연결 끊김 등)인 동안에는 로컬 사본을 사용하지 않고 대상 캐시로 바로 조회한다.
+ * - 통지를 놓치는 경우에 대비해 maxStaleness가 지나면 만료된다.
+ */
+public class TrackingCache extends CacheDecorator implements InvalidationListener {
+
+    private final Function<Object, String> redisKey;
+    private final InvalidationSource invalidationSource;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    // 무효화 발생 횟수. 조회 전후 값이 다르면 조회 결과를 보관하지 않는다.
+    private final AtomicLong invalidationSequence = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * @param redisKey 캐시 키 -> Redis 키 이름 (통지되는 키와 같은 형태)
+     */
+    public TrackingCache(Cache delegate, Function<Object, String> redisKey, InvalidationSource invalidationSource,
+                         long maximumSize, Duration maxStaleness) {
+        super(delegate);
+        this.redisKey = redisKey;
+        this.invalidationSource = invalidationSource;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(maxStaleness.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        invalidationSource.addListener(this);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (!invalidationSource.isActive())
+            return delegate.get(key);
+        String localKey = redisKey.apply(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            hits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        misses.increment();
+        long sequence = invalidationSequence.get();
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() != null)
+            keep(localKey, wrapper.get(), sequence);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (!invalidationSource.isActive())
+            return delegate.get(key, valueLoader);
+        String localKey = redisKey.apply(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            hits.increment();
+            return (T) value;
+        }
+        misses.increment();
+        long sequence = invalidationSequence.get();
+        T result = delegate.get(key, valueLoader);
+        if (result != null)
+            keep(localKey, result, sequence);
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+        puts.increment();
+        localCache.invalidate(redisKey.apply(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, value);
+        localCache.invalidate(redisKey.apply(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+        localCache.invalidate(redisKey.apply(key));
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        invalidateAll();
+    }
+
+    @Override
+    public void invalidate(String key) {
+        invalidationSequence.incrementAndGet();
+        invalidations.increment();
+        localCache.invalidate(key);
+    }
+
+    @Override
+    public void invalidateAll() {
+        invalidationSequence.incrementAndGet();
+        flushes.increment();
+        localCache.invalidateAll();
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        localCache.invalidate(redisKey.apply(key));
+        super.evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        localCache.invalidateAll();
+        super.clearLocal();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    // 보관 후 조회 중에 무효화가 있었으면 다시 제거. 보관 이후의 무효화는 통지로 제거된다.
+    private void keep(String localKey, Object value, long sequence) {
+        localCache.put(localKey, value);
+        if (invalidationSequence.get() != sequence)
+            localCache.invalidate(localKey);
+    }
+}
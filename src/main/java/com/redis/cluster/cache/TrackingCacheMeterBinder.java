@@ -0,0 +1,52 @@
+package com.redis.cluster.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * TrackingCache 로컬 적중/실패, 서버 통지에 의한 무효화를 Micrometer 캐시 지표로 노출한다.
+ */
+public class TrackingCacheMeterBinder extends CacheMeterBinder {
+
+    private final TrackingCache cache;
+
+    public TrackingCacheMeterBinder(TrackingCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.getLocalSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.getHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.getInvalidationCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.tracking.flushes", cache, TrackingCache::getFlushCount)
+                .tags(getTagsWithCacheName())
+                .description("Local copies dropped because invalidations may have been missed (reconnect, FLUSHALL)")
+                .register(registry);
+    }
+}
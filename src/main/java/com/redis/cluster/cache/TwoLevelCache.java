@@ -0,0 +1,164 @@
+package com.redis.cluster.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 로컬 힙 캐시(L1)를 Redis 캐시(L2) 앞에 두는 2단계 캐시.
+ * L1은 Caffeine(W-TinyLFU)으로 크기와 만료시간이 제한되며,
+ * 변경 발생시 무효화 채널을 통해 다른 인스턴스의 L1도 함께 제거한다.
+ */
+public class TwoLevelCache implements Cache, NearCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final CacheStatistics statistics = new CacheStatistics();
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                         Cache remoteCache, CacheInvalidationPublisher cacheInvalidationPublisher) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    public Cache getRemoteCache() {
+        return remoteCache;
+    }
+
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = localCache.getIfPresent(localKey(key));
+        if (value != null) {
+            statistics.l1Hit();
+            return new SimpleValueWrapper(value);
+        }
+        statistics.l1Miss();
+        ValueWrapper wrapper = remoteCache.get(key);
+        if (wrapper == null) {
+            statistics.l2Miss();
+            return null;
+        }
+        statistics.l2Hit();
+        if (wrapper.get() != null)
+            localCache.put(localKey(key), wrapper.get());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = localCache.getIfPresent(localKey(key));
+        if (value != null) {
+            statistics.l1Hit();
+            return (T) value;
+        }
+        statistics.l1Miss();
+        boolean[] loaded = {false};
+        T result = remoteCache.get(key, () -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            try {
+                return valueLoader.call();
+            } finally {
+                statistics.load(System.nanoTime() - start);
+            }
+        });
+        if (loaded[0])
+            statistics.l2Miss();
+        else
+            statistics.l2Hit();
+        if (result != null)
+            localCache.put(localKey(key), result);
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        statistics.put();
+        if (value != null)
+            localCache.put(localKey(key), value);
+        else
+            localCache.invalidate(localKey(key));
+        cacheInvalidationPublisher.publish(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        Object current = existing != null ? existing.get() : value;
+        if (existing == null)
+            statistics.put();
+        if (current != null)
+            localCache.put(localKey(key), current);
+        cacheInvalidationPublisher.publish(name, key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        statistics.eviction();
+        localCache.invalidate(localKey(key));
+        cacheInvalidationPublisher.publish(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        cacheInvalidationPublisher.publishClear(name);
+    }
+
+    @Override
+    public void evictLocal(Object key) {
+        localCache.invalidate(localKey(key));
+        if (remoteCache instanceof NearCache)
+            ((NearCache) remoteCache).evictLocal(key);
+    }
+
+    @Override
+    public void clearLocal() {
+        localCache.invalidateAll();
+        if (remoteCache instanceof NearCache)
+            ((NearCache) remoteCache).clearLocal();
+    }
+
+    public long getLocalSize() {
+        return localCache.estimatedSize();
+    }
+
+    // 무효화 메시지로 전달되는 키와 동일한 형태(문자열)로 로컬 캐시 키를 맞춘다.
+    private String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,69 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 캐시 매니저(L2)가 생성하는 캐시 앞에 로컬 캐시(L1)를 붙여 주는 CacheManager.
+ * 로컬 캐시 설정이 없거나 비활성화된 캐시는 L2 캐시를 그대로 반환한다.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final LocalCacheSpec defaultSpec;
+    private final Map<String, LocalCacheSpec> localCacheSpecs;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, CacheInvalidationPublisher cacheInvalidationPublisher,
+                                LocalCacheSpec defaultSpec, Map<String, LocalCacheSpec> localCacheSpecs) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+        this.defaultSpec = defaultSpec;
+        this.localCacheSpecs = new HashMap<>(localCacheSpecs);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null)
+            return cache;
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null)
+            return null;
+        return caches.computeIfAbsent(name, n -> decorate(n, remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(caches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    public Map<String, CacheStatistics> getStatistics() {
+        Map<String, CacheStatistics> statistics = new TreeMap<>();
+        caches.forEach((name, cache) -> {
+            if (cache instanceof TwoLevelCache)
+                statistics.put(name, ((TwoLevelCache) cache).getStatistics());
+        });
+        return statistics;
+    }
+
+    private Cache decorate(String name, Cache remoteCache) {
+        LocalCacheSpec spec = localCacheSpecs.getOrDefault(name, defaultSpec);
+        if (spec == null || !spec.isEnabled())
+            return remoteCache;
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        return new TwoLevelCache(name, localCache, remoteCache, cacheInvalidationPublisher);
+    }
+}
@@ -0,0 +1,72 @@
+package com.redis.cluster.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * TwoLevelCache 통계를 Micrometer 캐시 지표(cache.gets, cache.puts ...)와 계층별 지표로 노출한다.
+ * 카운터를 조회 시점에 읽으므로 캐시 경로에 추가 비용이 없다.
+ */
+public class TwoLevelCacheMeterBinder extends CacheMeterBinder {
+
+    private final TwoLevelCache cache;
+
+    public TwoLevelCacheMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size() {
+        return cache.getLocalSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        return cache.getStatistics().getL1HitCount() + cache.getStatistics().getL2HitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        return cache.getStatistics().getL2MissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return cache.getStatistics().getEvictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        return cache.getStatistics().getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        CacheStatistics statistics = cache.getStatistics();
+        tierCounter(registry, statistics, "l1", "hit", CacheStatistics::getL1HitCount);
+        tierCounter(registry, statistics, "l1", "miss", CacheStatistics::getL1MissCount);
+        tierCounter(registry, statistics, "l2", "hit", CacheStatistics::getL2HitCount);
+        tierCounter(registry, statistics, "l2", "miss", CacheStatistics::getL2MissCount);
+
+        FunctionTimer.builder("cache.load", statistics, CacheStatistics::getLoadCount, CacheStatistics::getTotalLoadTime, TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("The time the cache spent loading values on L2 misses")
+                .register(registry);
+    }
+
+    private void tierCounter(MeterRegistry registry, CacheStatistics statistics, String tier, String result,
+                             ToDoubleFunction<CacheStatistics> count) {
+        FunctionCounter.builder("cache.tier.gets", statistics, count)
+                .tags(getTagsWithCacheName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -6,7 +6,33 @@ public class CacheKey {
     }
 
     public static final int DEFAULT_EXPIRE_SEC = 60;
+    // 로컬(L1) 캐시 기본 크기 및 만료시간
+    public static final int DEFAULT_LOCAL_MAX_SIZE = 1000;
+    public static final int DEFAULT_LOCAL_EXPIRE_SEC = 5;
+    // 만료 전 미리 갱신하는 정도(XFetch beta). 0이면 사용 안함
+    public static final double DEFAULT_REFRESH_AHEAD_BETA = 1.0;
+
+    // hot key 판단 기준(초당 조회수), 최대 개수, 집계 구간 및 로컬 보관시간
+    public static final long HOT_KEY_RATE_PER_SEC = 200;
+    public static final int HOT_KEY_TOP_K = 64;
+    public static final long HOT_KEY_WINDOW_MILLIS = 1000;
+    public static final long HOT_KEY_PIN_MILLIS = 1000;
+    // client-side caching(TrackingCache) 로컬 최대 건수 및 통지를 놓친 경우를 대비한 최대 보관시간
+    public static final long TRACKING_LOCAL_MAX_SIZE = 100_000;
+    public static final long TRACKING_MAX_STALENESS_SEC = 600;
 
     public static final String USER = "user";
     public static final int USER_EXPIRE_SEC = 180;
+    public static final int USER_LOCAL_MAX_SIZE = 10000;
+    public static final int USER_LOCAL_EXPIRE_SEC = 10;
+    // 캐시 미스시 인스턴스간 로딩 락 유지시간
+    public static final int USER_LOAD_LOCK_MILLIS = 3000;
+    // uid -> msrl 보조 인덱스 (user:uid:{uid})
+    public static final String USER_UID_INDEX_PREFIX = "user:uid:";
+    // 없는 회원(삭제 또는 Bloom filter 오탐) 표시. 이 시간 동안 DB를 조회하지 않는다.
+    public static final String USER_TOMBSTONE_PREFIX = "user:tombstone:";
+    public static final int USER_TOMBSTONE_SEC = 30;
+
+    // 인스턴스간 로컬 캐시 무효화 메시지를 전달하는 채널
+    public static final String CACHE_INVALIDATION_CHANNEL = "cache:invalidation";
 }
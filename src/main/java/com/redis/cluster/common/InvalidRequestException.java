@@ -0,0 +1,17 @@
+package com.redis.cluster.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 요청 값 오류(일괄 조회 크기 초과, 등록되지 않은 캐시, 검색 조건 등). 400으로 응답한다.
+ * <p>
+ * 내부 오류의 IllegalArgumentException이 400으로 바뀌지 않도록 요청 검증에서만 사용
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
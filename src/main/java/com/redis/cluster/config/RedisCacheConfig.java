@@ -1,29 +1,164 @@
 package com.redis.cluster.config;
 
+import com.redis.cluster.cache.*;
 import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import com.redis.cluster.support.ClusterKeyDeleter;
+import com.redis.cluster.support.RedisTrackingInvalidationSource;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.time.Duration;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
 
 @Configuration
 @EnableCaching
 public class RedisCacheConfig {
 
+    @Primary
     @Bean(name = "cacheManager")
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager, CacheInvalidationPublisher cacheInvalidationPublisher,
+                                             StringRedisTemplate stringRedisTemplate, ThreadPoolTaskExecutor cacheRefreshExecutor,
+                                             RedisConnectionFactory connectionFactory,
+                                             @Value("${cache.hash.names:}") Set<String> hashCacheNames,
+                                             @Value("${cache.hot-key.names:}") Set<String> hotKeyCacheNames,
+                                             RedisTrackingInvalidationSource trackingInvalidationSource,
+                                             @Value("${cache.tracking.names:}") Set<String> trackingCacheNames) {
+
+        LocalCacheSpec defaultSpec = LocalCacheSpec.of(CacheKey.DEFAULT_LOCAL_MAX_SIZE, Duration.ofSeconds(CacheKey.DEFAULT_LOCAL_EXPIRE_SEC));
+
+        Map<String, LocalCacheSpec> localCacheSpecs = new HashMap<>();
+        // User
+        localCacheSpecs.put(CacheKey.USER, LocalCacheSpec.of(CacheKey.USER_LOCAL_MAX_SIZE, Duration.ofSeconds(CacheKey.USER_LOCAL_EXPIRE_SEC)));
+        // tracking 캐시는 TrackingCache가 로컬 사본을 관리하므로 L1 사용 안함
+        // hot key 캐시도 L1 사용 안함. L1이 있으면 반복 조회가 L1에서 끝나 집계되지 않으므로 hot key의 로컬 사본(HotKeyCache)이 L1을 대신한다.
+        for (String name : trackingCacheNames)
+            localCacheSpecs.put(name, LocalCacheSpec.of(0, Duration.ZERO));
+        for (String name : hotKeyCacheNames)
+            localCacheSpecs.put(name, LocalCacheSpec.of(0, Duration.ZERO));
+
+        Map<String, Duration> loadLockTimeouts = new HashMap<>();
+        // User
+        loadLockTimeouts.put(CacheKey.USER, Duration.ofMillis(CacheKey.USER_LOAD_LOCK_MILLIS));
+
+        // 필드 단위(hash)로 저장할 수 있는 캐시와 값 타입. cache.hash.names에 지정된 캐시만 hash로 저장
+        Map<String, Class<?>> hashCacheTypes = new HashMap<>();
+        // User
+        hashCacheTypes.put(CacheKey.USER, User.class);
+
+        // 동시 미스 합치기 및 refresh-ahead
+        CacheManager loadCoalescingCacheManager = new DecoratingCacheManager(redisCacheManager, (name, cache) -> {
+            Cache remoteCache = cache;
+            if (hashCacheNames.contains(name) && hashCacheTypes.containsKey(name))
+                remoteCache = new RedisHashCache((RedisCache) cache, connectionFactory, new HashFieldMapper<>(hashCacheTypes.get(name)));
+            // L1 만료 주기로 오는 조회에서도 갱신되도록 L1 만료시간을 갱신 구간의 최소값으로 사용
+            LocalCacheSpec localCacheSpec = localCacheSpecs.getOrDefault(name, defaultSpec);
+            Duration refreshAheadWindow = localCacheSpec.isEnabled() ? localCacheSpec.getExpireAfterWrite() : Duration.ZERO;
+            Cache decorated = new LoadCoalescingCache(remoteCache, stringRedisTemplate, loadLockTimeouts.get(name),
+                    CacheKey.DEFAULT_REFRESH_AHEAD_BETA, refreshAheadWindow, cacheRefreshExecutor);
+            // 조회가 몰리는 키는 잠시 로컬에 보관 (cache.hot-key.names에 지정된 캐시, L1 대신)
+            if (hotKeyCacheNames.contains(name)) {
+                HotKeyDetector detector = new HotKeyDetector(CacheKey.HOT_KEY_RATE_PER_SEC, CacheKey.HOT_KEY_TOP_K, CacheKey.HOT_KEY_WINDOW_MILLIS);
+                decorated = new HotKeyCache(decorated, detector, CacheKey.HOT_KEY_TOP_K, Duration.ofMillis(CacheKey.HOT_KEY_PIN_MILLIS));
+            }
+            // 서버 변경 통지로 무효화되는 로컬 캐시 (cache.tracking.names에 지정된 캐시만, Redis 6 이상)
+            if (trackingCacheNames.contains(name)) {
+                Function<Object, String> redisKey = remoteCache instanceof RedisHashCache
+                        ? ((RedisHashCache) remoteCache)::keyOf
+                        : key -> ((RedisCache) cache).getCacheConfiguration().getKeyPrefixFor(name) + key;
+                decorated = new TrackingCache(decorated, redisKey, trackingInvalidationSource,
+                        CacheKey.TRACKING_LOCAL_MAX_SIZE, Duration.ofSeconds(CacheKey.TRACKING_MAX_STALENESS_SEC));
+            }
+            return decorated;
+        });
+
+        return new TwoLevelCacheManager(loadCoalescingCacheManager, cacheInvalidationPublisher, defaultSpec, localCacheSpecs);
+    }
+
+    // cache.tracking.names 캐시의 prefix에 대한 Redis 키 변경 통지
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public RedisTrackingInvalidationSource trackingInvalidationSource(RedisConnectionFactory connectionFactory, ClientResources clientResources,
+                                                                      RedisProperties redisProperties,
+                                                                      @Value("${cache.tracking.names:}") Set<String> trackingCacheNames,
+                                                                      @Value("${cache.tracking.topology-check-sec:10}") long topologyCheckSec) {
+        List<String> prefixes = new ArrayList<>();
+        for (String name : trackingCacheNames)
+            prefixes.add(CacheKeyPrefix.simple().compute(name));
+        return new RedisTrackingInvalidationSource(connectionFactory, clientResources, redisProperties.getPassword(), prefixes, topologyCheckSec);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cache-refresh-");
+        // 갱신은 best-effort. 밀리면 LoadCoalescingCache가 RejectedExecutionException을 받아 갱신을 건너뛴다.
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    // 캐시 엔티티용 binary serializer. typeId는 저장 포맷의 일부이므로 변경하지 않는다.
+    @Bean
+    public CompactRedisSerializer compactRedisSerializer(@Value("${cache.serializer.mode:JDK_COMPAT}") CompactRedisSerializer.Mode mode,
+                                                         @Value("${cache.serializer.compression-threshold:1024}") int compressionThreshold) {
+        return new CompactRedisSerializer(mode, compressionThreshold)
+                .register(1, User.class);
+    }
+
+    // 변경 직후의 키는 staleness-ms 동안 master에서 읽는다. (replica 복제 지연 대비)
+    @Bean
+    public RecentWrites recentWrites(@Value("${redis.replica-read.staleness-ms:1000}") long stalenessMillis) {
+        return new RecentWrites(Duration.ofMillis(stalenessMillis), 100_000);
+    }
+
+    // redis.replica-read.caches에 지정된 캐시의 조회는 replica 읽기 연결 사용
+    // 캐시 전체 삭제는 KEYS 대신 노드별 SCAN + UNLINK (ClusterKeyDeleter)
+    @Bean
+    public RedisCacheWriter redisCacheWriter(RedisConnectionFactory connectionFactory,
+                                             @Qualifier("replicaConnectionFactory") RedisConnectionFactory replicaConnectionFactory,
+                                             RecentWrites recentWrites, ClusterKeyDeleter clusterKeyDeleter,
+                                             @Value("${redis.replica-read.caches:}") Set<String> replicaCacheNames,
+                                             @Value("${cache.tracking.names:}") Set<String> trackingCacheNames) {
+        // tracking 통지는 master 연결로 받는다. 통지 후 replica에서 다시 읽으면 복제 전 값을 로컬에 보관할 수 있으므로 함께 사용할 수 없다.
+        for (String name : replicaCacheNames)
+            if (trackingCacheNames.contains(name))
+                throw new IllegalStateException("redis.replica-read.caches cannot include a tracking cache (cache.tracking.names): " + name);
+        RedisCacheWriter masterWriter = new ScanningRedisCacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), clusterKeyDeleter);
+        if (replicaCacheNames.isEmpty())
+            return masterWriter;
+        return new ReplicaReadCacheWriter(masterWriter, RedisCacheWriter.nonLockingRedisCacheWriter(replicaConnectionFactory),
+                replicaCacheNames, recentWrites);
+    }
+
+    @Bean
+    public RedisCacheManager redisCacheManager(RedisCacheWriter redisCacheWriter, CompactRedisSerializer compactRedisSerializer) {
 
         RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
                 .disableCachingNullValues()
@@ -34,16 +169,34 @@ public class RedisCacheConfig {
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
         // User
         cacheConfigurations.put(CacheKey.USER, RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofSeconds(CacheKey.USER_EXPIRE_SEC)));
+                .entryTtl(Duration.ofSeconds(CacheKey.USER_EXPIRE_SEC))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(compactRedisSerializer)));
 
-        return RedisCacheManager.RedisCacheManagerBuilder.fromConnectionFactory(connectionFactory).cacheDefaults(configuration)
+        return RedisCacheManager.RedisCacheManagerBuilder.fromCacheWriter(redisCacheWriter).cacheDefaults(configuration)
                 .withInitialCacheConfigurations(cacheConfigurations).build();
     }
 
+    // 수신한 메시지는 리스너 스레드 한개에서 받은 순서대로 처리한다. (기본 SimpleAsyncTaskExecutor는 메시지마다 새 스레드라 순서가 섞임)
+    // 리스너가 막히면(RoomMessageDispatcher BLOCK 정책 등) 이후 메시지(캐시 무효화, Bloom filter 추가 포함)도 기다린다.
     @Bean
     public RedisMessageListenerContainer RedisMessageListener(RedisConnectionFactory connectionFactory) {
-        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        ThreadPoolTaskExecutor listenerExecutor = new ThreadPoolTaskExecutor();
+        listenerExecutor.setCorePoolSize(1);
+        listenerExecutor.setMaxPoolSize(1);
+        listenerExecutor.setThreadNamePrefix("redis-listener-");
+        listenerExecutor.setDaemon(true);
+        listenerExecutor.initialize();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void destroy() throws Exception {
+                super.destroy();
+                listenerExecutor.shutdown();
+            }
+        };
         container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(listenerExecutor);
+        // 구독 작업은 메시지 처리와 분리
+        container.setSubscriptionExecutor(new SimpleAsyncTaskExecutor("redis-subscription-"));
         return container;
     }
 
@@ -70,4 +223,33 @@ public class RedisCacheConfig {
 
         return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
     }
-}
\ No newline at end of file
+
+    // 캐시(user 등)와 동일한 포맷으로 읽고 쓰는 reactive template
+    @Primary
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveCacheRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                            CompactRedisSerializer compactRedisSerializer) {
+        return cacheRedisTemplate(connectionFactory, compactRedisSerializer);
+    }
+
+    // reactiveCacheRedisTemplate과 같은 포맷. 조회를 replica 읽기 연결로 보낸다. (RedisConnectionConfig)
+    @Bean
+    public ReactiveRedisTemplate<String, Object> replicaReactiveCacheRedisTemplate(@Qualifier("replicaConnectionFactory") ReactiveRedisConnectionFactory replicaConnectionFactory,
+                                                                                   CompactRedisSerializer compactRedisSerializer) {
+        return cacheRedisTemplate(replicaConnectionFactory, compactRedisSerializer);
+    }
+
+    private ReactiveRedisTemplate<String, Object> cacheRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                     CompactRedisSerializer compactRedisSerializer) {
+        RedisSerializer<String> serializer = new StringRedisSerializer();
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext()
+                .key(serializer)
+                .value(compactRedisSerializer)
+                .hashKey(serializer)
+                .hashValue(compactRedisSerializer)
+                .build();
+
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+}
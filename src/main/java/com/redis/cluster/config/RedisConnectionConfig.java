@@ -0,0 +1,116 @@
+package com.redis.cluster.config;
+
+import com.redis.cluster.support.LatencyAwareReadFrom;
+import com.redis.cluster.support.NodeLatencyTracker;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * Redis 클러스터 연결.
+ * <p>
+ * - redisConnectionFactory(기본): 모든 커맨드를 master로 보낸다.
+ * - replicaConnectionFactory: 읽기 커맨드를 redis.replica-read.read-from 에 따라 replica로 보낸다. 쓰기는 Lettuce가 항상 master로 보낸다.
+ * <p>
+ * replica 읽기는 캐시 이름(redis.replica-read.caches, ReplicaReadCacheWriter) 또는
+ * replica 템플릿(replicaStringRedisTemplate, replicaReactiveCacheRedisTemplate)을 주입받아 사용하는 곳 단위로 선택한다.
+ * replica는 복제 지연만큼 오래된 값을 반환할 수 있으므로 방금 쓴 값을 읽어야 하는 곳은 기본 연결을 사용한다.
+ */
+@Configuration
+public class RedisConnectionConfig {
+
+    public enum ReadMode {
+        // master에서만 읽기
+        MASTER,
+        // replica 우선, 없으면 master
+        REPLICA_PREFERRED,
+        // 토폴로지 조회시 측정한 지연이 가장 짧은 노드
+        NEAREST,
+        // 커맨드 응답시간(EWMA)이 짧은 replica 우선 (LatencyAwareReadFrom)
+        LATENCY
+    }
+
+    @Primary
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties redisProperties, ClientResources clientResources) {
+        return connectionFactory(redisProperties, clientResources, ReadFrom.MASTER, null);
+    }
+
+    @Bean
+    public LettuceConnectionFactory replicaConnectionFactory(RedisProperties redisProperties, ClientResources clientResources,
+                                                             NodeLatencyTracker nodeLatencyTracker,
+                                                             @Value("${redis.replica-read.read-from:MASTER}") ReadMode readMode,
+                                                             @Value("${redis.replica-read.topology-refresh-sec:30}") long topologyRefreshSec) {
+        return connectionFactory(redisProperties, clientResources, readFrom(readMode, nodeLatencyTracker), Duration.ofSeconds(topologyRefreshSec));
+    }
+
+    // replica 템플릿을 등록하면 Spring Boot 기본 StringRedisTemplate이 생성되지 않으므로 직접 등록
+    @Primary
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    public StringRedisTemplate replicaStringRedisTemplate(@Qualifier("replicaConnectionFactory") RedisConnectionFactory replicaConnectionFactory) {
+        return new StringRedisTemplate(replicaConnectionFactory);
+    }
+
+    private static ReadFrom readFrom(ReadMode readMode, NodeLatencyTracker nodeLatencyTracker) {
+        switch (readMode) {
+            case REPLICA_PREFERRED:
+                return ReadFrom.SLAVE_PREFERRED;
+            case NEAREST:
+                return ReadFrom.NEAREST;
+            case LATENCY:
+                return new LatencyAwareReadFrom(nodeLatencyTracker);
+            default:
+                return ReadFrom.MASTER;
+        }
+    }
+
+    /**
+     * spring.redis.cluster 설정으로 연결 생성 (Spring Boot 자동 설정과 동일한 항목)
+     *
+     * @param topologyRefresh 토폴로지(노드 역할, 지연) 주기적 갱신 간격. null이면 Lettuce 기본값(갱신 안함)
+     */
+    private static LettuceConnectionFactory connectionFactory(RedisProperties redisProperties, ClientResources clientResources,
+                                                              ReadFrom readFrom, Duration topologyRefresh) {
+        RedisClusterConfiguration clusterConfiguration = new RedisClusterConfiguration(redisProperties.getCluster().getNodes());
+        if (redisProperties.getCluster().getMaxRedirects() != null)
+            clusterConfiguration.setMaxRedirects(redisProperties.getCluster().getMaxRedirects());
+        if (redisProperties.getPassword() != null)
+            clusterConfiguration.setPassword(RedisPassword.of(redisProperties.getPassword()));
+
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration = LettuceClientConfiguration.builder()
+                .clientResources(clientResources)
+                .readFrom(readFrom);
+        if (topologyRefresh != null) {
+            ClusterTopologyRefreshOptions topologyRefreshOptions = ClusterTopologyRefreshOptions.builder()
+                    .enablePeriodicRefresh(topologyRefresh)
+                    .enableAllAdaptiveRefreshTriggers()
+                    .build();
+            clientConfiguration.clientOptions(ClusterClientOptions.builder().topologyRefreshOptions(topologyRefreshOptions).build());
+        }
+        if (redisProperties.getTimeout() != null)
+            clientConfiguration.commandTimeout(redisProperties.getTimeout());
+        if (redisProperties.getLettuce().getShutdownTimeout() != null)
+            clientConfiguration.shutdownTimeout(redisProperties.getLettuce().getShutdownTimeout());
+        return new LettuceConnectionFactory(clusterConfiguration, clientConfiguration.build());
+    }
+}
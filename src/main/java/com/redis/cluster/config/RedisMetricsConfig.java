@@ -0,0 +1,48 @@
+package com.redis.cluster.config;
+
+import com.redis.cluster.cache.Caches;
+import com.redis.cluster.cache.TrackingCache;
+import com.redis.cluster.cache.TrackingCacheMeterBinder;
+import com.redis.cluster.cache.TwoLevelCache;
+import com.redis.cluster.cache.TwoLevelCacheMeterBinder;
+import com.redis.cluster.support.MicrometerCommandLatencyCollector;
+import com.redis.cluster.support.NodeLatencyTracker;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RedisMetricsConfig {
+
+    // cacheManager의 캐시를 actuator 캐시 지표에 등록. 데코레이터로 감싸져 있어도 찾는다.
+    // TwoLevelCache(L1), L1 대신 TrackingCache를 사용하는 캐시(cache.tracking.names) 순
+    @Bean
+    public CacheMeterBinderProvider<Cache> cacheMeterBinderProvider() {
+        return (cache, tags) -> {
+            TwoLevelCache twoLevelCache = Caches.unwrap(cache, TwoLevelCache.class);
+            if (twoLevelCache != null)
+                return new TwoLevelCacheMeterBinder(twoLevelCache, tags);
+            TrackingCache trackingCache = Caches.unwrap(cache, TrackingCache.class);
+            if (trackingCache != null)
+                return new TrackingCacheMeterBinder(trackingCache, tags);
+            return null;
+        };
+    }
+
+    @Bean
+    public NodeLatencyTracker nodeLatencyTracker() {
+        return new NodeLatencyTracker();
+    }
+
+    // RedisConnectionFactory(Lettuce)가 보내는 모든 커맨드의 노드별 응답시간 기록
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MeterRegistry meterRegistry, NodeLatencyTracker nodeLatencyTracker) {
+        return DefaultClientResources.builder()
+                .commandLatencyCollector(new MicrometerCommandLatencyCollector(meterRegistry, nodeLatencyTracker))
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.redis.cluster.controller;
+
+import com.redis.cluster.cache.CacheInvalidationPublisher;
+import com.redis.cluster.cache.CacheStatistics;
+import com.redis.cluster.cache.Caches;
+import com.redis.cluster.cache.HotKeyCache;
+import com.redis.cluster.cache.HotKeyDetector;
+import com.redis.cluster.cache.NearCache;
+import com.redis.cluster.cache.TwoLevelCacheManager;
+import com.redis.cluster.common.InvalidRequestException;
+import com.redis.cluster.service.CacheWarmupProgress;
+import com.redis.cluster.service.UserCacheWarmupService;
+import com.redis.cluster.support.ClusterKeyDeleter;
+import com.redis.cluster.support.KeyDeleteJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+@RequestMapping("/cache")
+@RestController
+public class CacheController {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final UserCacheWarmupService userCacheWarmupService;
+    private final ClusterKeyDeleter clusterKeyDeleter;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+
+    // 캐시별 L1/L2 적중 통계
+    @GetMapping("/stats")
+    public Map<String, CacheStatistics> stats() {
+        return cacheManager.getStatistics();
+    }
+
+    // 캐시별 hot key와 초당 조회수 (Redis로 가는 조회 기준)
+    @GetMapping("/hotkeys")
+    public Map<String, List<HotKeyDetector.HotKey>> hotKeys() {
+        Map<String, List<HotKeyDetector.HotKey>> hotKeys = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            HotKeyCache cache = Caches.unwrap(cacheManager.getCache(name), HotKeyCache.class);
+            if (cache != null)
+                hotKeys.put(name, cache.getDetector().getHotKeys());
+        }
+        return hotKeys;
+    }
+
+    // user 캐시 warm-up 시작 (진행중이면 무시)
+    @PostMapping("/warmup")
+    public CacheWarmupProgress startWarmup() {
+        userCacheWarmupService.start();
+        return userCacheWarmupService.getProgress();
+    }
+
+    // user 캐시 warm-up 진행상황
+    @GetMapping("/warmup")
+    public CacheWarmupProgress warmup() {
+        return userCacheWarmupService.getProgress();
+    }
+
+    // 캐시 전체 삭제를 백그라운드로 시작. Redis 삭제가 끝나면 모든 인스턴스의 로컬 사본을 비운다.
+    // 등록된 캐시만 허용하고, 이름은 패턴 문자 그대로 일치시킨다. (user* 등으로 다른 키를 지우지 않게)
+    @DeleteMapping("/{name}")
+    public KeyDeleteJob clear(@PathVariable String name) {
+        if (!cacheManager.getCacheNames().contains(name))
+            throw new InvalidRequestException("Unknown cache: " + name);
+        Cache cache = cacheManager.getCache(name);
+        KeyDeleteJob job = clusterKeyDeleter.delete(ClusterKeyDeleter.escape(CacheKeyPrefix.simple().compute(name)) + "*");
+        job.future().thenRun(() -> {
+            if (cache instanceof NearCache)
+                ((NearCache) cache).clearLocal();
+            cacheInvalidationPublisher.publishClear(name);
+        });
+        return job;
+    }
+
+    // 최근 삭제 작업과 진행상황
+    @GetMapping("/jobs")
+    public List<KeyDeleteJob> jobs() {
+        return clusterKeyDeleter.getJobs();
+    }
+
+    @GetMapping("/jobs/{id}")
+    public KeyDeleteJob job(@PathVariable String id) {
+        return clusterKeyDeleter.getJob(id);
+    }
+
+    // 삭제 작업 취소. 이미 삭제된 키는 복구되지 않는다.
+    @DeleteMapping("/jobs/{id}")
+    public KeyDeleteJob cancelJob(@PathVariable String id) {
+        return clusterKeyDeleter.cancel(id);
+    }
+}
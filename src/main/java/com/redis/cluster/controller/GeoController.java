@@ -0,0 +1,45 @@
+package com.redis.cluster.controller;
+
+import com.redis.cluster.service.GeoNearby;
+import com.redis.cluster.service.GeoPosition;
+import com.redis.cluster.service.GeoShardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * geohash 셀로 샤딩된 위치 저장/주변 검색 (GeoShardService). 거리 단위는 m
+ */
+@RequiredArgsConstructor
+@RequestMapping("/geo")
+@RestController
+public class GeoController {
+
+    private final GeoShardService geoShardService;
+
+    @PostMapping("/{name}/positions")
+    public void updatePositions(@PathVariable String name, @RequestBody List<GeoPosition> positions) {
+        geoShardService.updatePositions(name, positions);
+    }
+
+    @DeleteMapping("/{name}/positions/{member}")
+    public void remove(@PathVariable String name, @PathVariable String member) {
+        geoShardService.remove(name, Collections.singletonList(member));
+    }
+
+    @GetMapping("/{name}/radius")
+    public Mono<List<GeoNearby>> radius(@PathVariable String name, @RequestParam double lng, @RequestParam double lat,
+                                        @RequestParam double radius, @RequestParam(defaultValue = "50") int limit) {
+        return geoShardService.radius(name, lng, lat, radius, limit);
+    }
+
+    @GetMapping("/{name}/box")
+    public Mono<List<GeoNearby>> box(@PathVariable String name, @RequestParam double lng, @RequestParam double lat,
+                                     @RequestParam double width, @RequestParam double height,
+                                     @RequestParam(defaultValue = "50") int limit) {
+        return geoShardService.box(name, lng, lat, width, height, limit);
+    }
+}
@@ -1,63 +1,92 @@
 package com.redis.cluster.controller;
 
 import com.redis.cluster.pubsub.RedisPublisher;
-import com.redis.cluster.pubsub.RedisSubscriber;
+import com.redis.cluster.pubsub.RoomHistory;
+import com.redis.cluster.pubsub.RoomHistoryStore;
 import com.redis.cluster.pubsub.RoomMessage;
+import com.redis.cluster.pubsub.RoomRegistry;
+import com.redis.cluster.pubsub.RoomStreamGateway;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.listener.ChannelTopic;
-import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
-import javax.annotation.PostConstruct;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RequiredArgsConstructor
 @RequestMapping("/pubsub")
 @RestController
 public class PubSubController {
-    // topic에 발행되는 액션을 처리할 Listner
-    private final RedisMessageListenerContainer redisMessageListener;
+    // 클러스터 전체의 방 목록
+    private final RoomRegistry roomRegistry;
     // 발행자
     private final RedisPublisher redisPublisher;
-    // 구독자
-    private final RedisSubscriber redisSubscriber;
-    // 특정 topic에 메시지를 발송할 수 있도록 topic정보를 Map에 저장
-    private Map<String, ChannelTopic> channels;
+    // 방별 메시지 이력(stream)
+    private final RoomHistoryStore roomHistoryStore;
+    // 연결된 클라이언트로 메시지 전달
+    private final RoomStreamGateway roomStreamGateway;
 
-    @PostConstruct
-    public void init() {
-        // 실행될때 topic정보를 담을 Map을 초기화
-        channels = new HashMap<>();
-    }
-
-    // 유효한 Topic 리스트 반환
+    // 모든 인스턴스에서 같은 방 목록 반환
     @GetMapping("/room")
     public Set<String> findAllRoom() {
-        return channels.keySet();
+        return roomRegistry.getRooms();
     }
 
-    // Topic 생성하여 Listener에 등록후 Topic Map에 저장
+    // 방 등록. Redis 구독은 shard 채널로 이미 되어 있고 Redis 반영은 비동기로 처리된다.
     @PutMapping("/room/{roomId}")
     public void createRoom(@PathVariable String roomId) {
-        ChannelTopic channel = new ChannelTopic(roomId);
-        redisMessageListener.addMessageListener(redisSubscriber, channel);
-        channels.put(roomId, channel);
+        roomRegistry.open(roomId);
     }
 
-    // 특정 Topic에 메시지 발송
+    // 방이 속한 shard 채널에 메시지 발송
     @PostMapping("/room/{roomId}")
-    public void pushMessage(@PathVariable String roomId, @RequestParam String name, @RequestParam String message) {
-        ChannelTopic channel = channels.get(roomId);
-        redisPublisher.publish(channel, RoomMessage.builder().name(name).roomId(roomId).message(message).build());
+    public CompletableFuture<Void> pushMessage(@PathVariable String roomId, @RequestParam String name, @RequestParam String message) {
+        // 발행은 모아서 비동기로 처리되며 요청 스레드는 기다리지 않는다.
+        return redisPublisher.publish(RoomMessage.builder().name(name).roomId(roomId).message(message).build())
+                .thenAccept(receivers -> {
+                });
+    }
+
+    // 방 메시지를 Server-Sent Events로 수신
+    @GetMapping(value = "/room/{roomId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamRoom(@PathVariable String roomId) {
+        return roomStreamGateway.connect(roomId);
+    }
+
+    // since(이전 페이지 마지막 id) 이후의 메시지 이력 조회
+    @GetMapping("/room/{roomId}/history")
+    public List<RoomHistory> findHistory(@PathVariable String roomId, @RequestParam(required = false) String since,
+                                         @RequestParam(defaultValue = "100") int count) {
+        return roomHistoryStore.findSince(roomId, since, Math.min(count, 1000));
+    }
+
+    // 방 이력의 consumer group 생성. 생성 이후 메시지부터 전달된다.
+    @PutMapping("/room/{roomId}/history/group/{group}")
+    public void createHistoryGroup(@PathVariable String roomId, @PathVariable String group) {
+        roomHistoryStore.createGroup(roomId, group);
+    }
+
+    // 여러 방의 consumer group에서 아직 전달되지 않은 메시지를 방별로 조회
+    @GetMapping("/history/group/{group}")
+    public Map<String, List<RoomHistory>> readHistoryGroup(@PathVariable String group, @RequestParam List<String> roomIds,
+                                                           @RequestParam String consumer, @RequestParam(defaultValue = "100") int count) {
+        return roomHistoryStore.readGroup(roomIds, group, consumer, Math.min(count, 1000));
+    }
+
+    // 처리한 메시지 id 확인(XACK). 확인된 건수 반환
+    @PostMapping("/room/{roomId}/history/group/{group}/ack")
+    public long acknowledgeHistory(@PathVariable String roomId, @PathVariable String group, @RequestBody Collection<String> ids) {
+        return roomHistoryStore.acknowledge(roomId, group, ids);
     }
 
-    // 특정 Topic 삭제 후 Listener 해제
+    // 방 삭제. 모든 인스턴스의 라우팅 테이블에서 제거된다.
     @DeleteMapping("/room/{roomId}")
     public void deleteRoom(@PathVariable String roomId) {
-        ChannelTopic channel = channels.get(roomId);
-        redisMessageListener.removeMessageListener(redisSubscriber, channel);
-        channels.remove(roomId);
+        roomRegistry.close(roomId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package com.redis.cluster.controller;
+
+import com.redis.cluster.entity.User;
+import com.redis.cluster.service.ReactiveUserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * RedisController와 동일한 API를 논블로킹으로 처리. 서블릿 스레드는 응답을 기다리지 않고 반환된다.
+ */
+@RequiredArgsConstructor
+@RequestMapping("/reactive/redis")
+@RestController
+public class ReactiveRedisController {
+
+    private final ReactiveUserService reactiveUserService;
+
+    @GetMapping("/user/{msrl}")
+    public Mono<User> findOne(@PathVariable long msrl) {
+        return reactiveUserService.findOne(msrl);
+    }
+
+    @PutMapping("/user")
+    public Mono<User> putUser(@RequestBody User user) {
+        return reactiveUserService.putUser(user);
+    }
+
+    @DeleteMapping("/user/{msrl}")
+    public Mono<Boolean> deleteUser(@PathVariable long msrl) {
+        return reactiveUserService.deleteUser(msrl);
+    }
+}
@@ -1,42 +1,125 @@
 package com.redis.cluster.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.cache.Caches;
+import com.redis.cluster.cache.RedisHashCache;
 import com.redis.cluster.common.CacheKey;
 import com.redis.cluster.entity.User;
 import com.redis.cluster.repo.UserJpaRepo;
+import com.redis.cluster.service.UserBatchService;
+import com.redis.cluster.service.UserExistenceFilter;
+import com.redis.cluster.service.UserUidIndexService;
+import com.redis.cluster.service.UserWriteBehindService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
 @RequiredArgsConstructor
 @RequestMapping("/redis")
 @RestController
 public class RedisController {
 
+    // 필드 조회로 노출할 수 있는 필드 (password 제외)
+    private static final Set<String> USER_FIELDS = new HashSet<>(Arrays.asList("msrl", "uid", "name", "roles"));
+
     private final UserJpaRepo userJpaRepo;
+    private final UserBatchService userBatchService;
+    private final UserUidIndexService userUidIndexService;
+    private final UserWriteBehindService userWriteBehindService;
+    private final UserExistenceFilter userExistenceFilter;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
 
-    @Cacheable(value = CacheKey.USER, key = "#msrl", unless = "#result == null")
+    // sync = true : 동시 미스를 캐시 데코레이터에서 하나의 로딩으로 합친다. null은 캐시하지 않음
+    // Bloom filter에 없는 msrl은 캐시(Redis)와 DB를 조회하지 않는다.
+    // 로더는 write-behind로 반영 대기중인 변경을 DB보다 먼저 읽는다.
+    @Cacheable(value = CacheKey.USER, key = "#msrl", sync = true, condition = "@userExistenceFilter.mightContain(#msrl)")
     @GetMapping("/user/{msrl}")
     public User findOne(@PathVariable long msrl) {
-        return userJpaRepo.findById(msrl).orElse(null);
+        return userExistenceFilter.load(msrl, () -> userWriteBehindService.findById(msrl).orElse(null));
+    }
+
+    // 회원의 일부 필드만 조회. user 캐시가 hash 모드이면 HMGET으로 필요한 필드만 읽는다.
+    @GetMapping("/user/{msrl}/fields")
+    public Map<String, Object> findFields(@PathVariable long msrl, @RequestParam List<String> names) {
+        List<String> fields = new ArrayList<>(names);
+        fields.retainAll(USER_FIELDS);
+        Cache cache = cacheManager.getCache(CacheKey.USER);
+        RedisHashCache hashCache = Caches.unwrap(cache, RedisHashCache.class);
+        if (hashCache != null) {
+            Map<String, Object> values = hashCache.getFields(msrl, fields);
+            if (!values.isEmpty())
+                return values;
+        }
+        // 캐시에 없거나 hash 모드가 아니면 전체를 읽어서 필요한 필드만 반환
+        User user = cache.get(msrl, () -> userWriteBehindService.findById(msrl).orElse(null));
+        if (user == null)
+            return Collections.emptyMap();
+        Map<String, Object> all = objectMapper.convertValue(user, new TypeReference<Map<String, Object>>() {
+        });
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields)
+            if (all.get(field) != null)
+                values.put(field, all.get(field));
+        return values;
+    }
+
+    // 여러 회원 일괄 조회. 없는 회원은 결과에서 제외
+    @PostMapping("/users/batch")
+    public List<User> findAll(@RequestBody List<Long> msrls) {
+        return userBatchService.findAll(msrls);
+    }
+
+    // uid로 조회. uid -> msrl 인덱스로 msrl을 찾아 user 캐시에서 읽는다.
+    @GetMapping("/user/uid/{uid}")
+    public User findByUid(@PathVariable String uid) {
+        return userUidIndexService.findByUid(uid);
     }
 
+    // uid 중복시 DB unique 제약으로 실패하며 인덱스는 쓰지 않는다.
     @PostMapping("/user")
     public User postUser(@RequestBody User user) {
-        return userJpaRepo.save(user);
+        User saved = userJpaRepo.save(user);
+        userUidIndexService.update(null, saved);
+        userExistenceFilter.add(saved.getMsrl());
+        return saved;
     }
 
+    // write-behind 모드에서 기존 회원의 수정은 Redis 변경 로그에 기록되고 DB에는 비동기로 반영된다. (uid 변경은 바로 반영)
     @CachePut(value = CacheKey.USER, key = "#user.msrl")
     @PutMapping("/user")
     public User putUser(@RequestBody User user) {
-        return userJpaRepo.save(user);
+        // uid 변경시 이전 uid의 인덱스를 제거하기 위해 저장 전 값을 (가능하면 캐시에서) 읽는다.
+        User before = cacheManager.getCache(CacheKey.USER).get(user.getMsrl(), () -> userWriteBehindService.findById(user.getMsrl()).orElse(null));
+        User saved = before != null && userWriteBehindService.isEnabled() ? userWriteBehindService.save(user, before) : userJpaRepo.save(user);
+        userUidIndexService.update(before, saved);
+        if (before == null)
+            userExistenceFilter.add(saved.getMsrl());
+        return saved;
     }
 
     @CacheEvict(value = CacheKey.USER, key = "#msrl")
     @DeleteMapping("/user/{msrl}")
     public boolean deleteUser(@PathVariable long msrl) {
+        User before = userJpaRepo.findById(msrl).orElse(null);
         userJpaRepo.deleteById(msrl);
+        userWriteBehindService.discard(msrl);
+        userUidIndexService.remove(before);
+        userExistenceFilter.tombstone(msrl);
         return true;
     }
+
+    // 회원 테이블 전체로 Bloom filter 재생성 (삭제된 회원 제거). 다른 인스턴스가 재생성 중이면 -1
+    @PostMapping("/user/existence-filter/rebuild")
+    public CompletableFuture<Long> rebuildExistenceFilter() {
+        return userExistenceFilter.rebuildAsync();
+    }
 }
@@ -0,0 +1,13 @@
+package com.redis.cluster.pubsub;
+
+/**
+ * 분배 큐가 가득 찼을 때의 처리 방식
+ */
+public enum BackpressurePolicy {
+    // 가장 오래된 메시지를 버리고 넣는다.
+    DROP_OLDEST,
+    // 자리가 날 때까지 수신 스레드를 대기시킨다.
+    BLOCK,
+    // 보조 큐(spillCapacity)에 쌓고, 보조 큐도 가득 차면 버린다.
+    SPILL
+}
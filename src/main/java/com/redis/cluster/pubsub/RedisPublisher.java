@@ -1,17 +1,231 @@
 package com.redis.cluster.pubsub;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.stereotype.Service;
 
-@RequiredArgsConstructor
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 방 메시지를 모아서 비동기로 발행한다.
+ * <p>
+ * - publish는 큐에 넣고 바로 반환하며, 발행 결과(수신자 수)는 메시지별 CompletableFuture로 전달된다.
+ * - 발행 스레드는 첫 메시지 이후 window(ms) 동안 또는 batchSize 만큼 모은 뒤 shard 채널별로 나눈다.
+ * - 클러스터에서는 PUBLISH가 모든 노드로 전파되므로 어느 노드로 보내도 되지만, 채널 이름의 슬롯을 가진 노드로 보내 부하를 나눈다.
+ *   노드별 연결로 응답을 기다리지 않고 연속으로 보내므로 PUBLISH는 노드별 파이프라인으로 전송된다.
+ * - packed 모드에서는 같은 방의 메시지를 하나의 프레임(JSON 배열)으로 묶어 보내고 RedisSubscriber가 풀어서 처리한다.
+ * <p>
+ * 큐(capacity)가 가득 차면 해당 메시지의 future는 실패로 완료된다.
+ */
+@Slf4j
 @Service
 public class RedisPublisher {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RoomShards roomShards;
+    private final RoomHistoryStore roomHistoryStore;
+    private final RoomMessageCodec roomMessageCodec;
+    private final long windowMillis;
+    private final int batchSize;
+    private final boolean packed;
+    private final BlockingQueue<Pending> queue;
+    private final Counter rejected;
+    private final Thread worker;
+    private volatile boolean running;
+
+    public RedisPublisher(RedisConnectionFactory connectionFactory, RoomShards roomShards, RoomHistoryStore roomHistoryStore,
+                          RoomMessageCodec roomMessageCodec, MeterRegistry meterRegistry,
+                          @Value("${pubsub.publisher.window-ms:2}") long windowMillis,
+                          @Value("${pubsub.publisher.batch-size:256}") int batchSize,
+                          @Value("${pubsub.publisher.capacity:65536}") int capacity,
+                          @Value("${pubsub.publisher.packed:false}") boolean packed) {
+        this.connectionFactory = connectionFactory;
+        this.roomShards = roomShards;
+        this.roomHistoryStore = roomHistoryStore;
+        this.roomMessageCodec = roomMessageCodec;
+        this.windowMillis = windowMillis;
+        this.batchSize = batchSize;
+        this.packed = packed;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("pubsub.publish.queue.depth", queue, Collection::size).register(meterRegistry);
+        this.rejected = Counter.builder("pubsub.publish.rejected").register(meterRegistry);
+        this.worker = new Thread(this::drain, "room-publisher");
+        this.worker.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // 발행 스레드가 모으던 묶음을 마저 보내고 끝날 때까지 기다린 뒤 큐에 남은 메시지를 발행한다.
+        try {
+            worker.join(STOP_TIMEOUT_MILLIS);
+            if (worker.isAlive()) {
+                worker.interrupt();
+                worker.join(STOP_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 남은 메시지는 종료 전에 발행
+        List<Pending> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        if (!batch.isEmpty())
+            flush(batch);
+    }
+
+    /**
+     * 방이 속한 shard 채널로 발행. history 사용시 stream에도 비동기로 추가
+     *
+     * @return 메시지를 받은 구독자 수 (packed 모드에서는 프레임 단위)
+     */
+    public CompletableFuture<Long> publish(RoomMessage message) {
+        CompletableFuture<Long> future = publish(roomShards.topicOf(message.getRoomId()), message);
+        roomHistoryStore.append(message);
+        return future;
+    }
+
+    public CompletableFuture<Long> publish(ChannelTopic topic, RoomMessage message) {
+        Pending pending = new Pending(topic.getTopic(), message);
+        if (!queue.offer(pending)) {
+            rejected.increment();
+            pending.future.completeExceptionally(new RejectedExecutionException("Publish queue is full"));
+        }
+        return pending.future;
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                // 첫 메시지 이후 window 동안 batchSize 까지 모은다.
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // 모으던 중 중단되어도 이미 꺼낸 메시지는 발행
+                if (!batch.isEmpty())
+                    flush(batch);
+                return;
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 채널별로 나누어 채널 슬롯의 노드로 PUBLISH를 연속으로 보내고, 응답이 오면 메시지별 future를 완료한다.
+    private void flush(List<Pending> batch) {
+        Map<String, List<Pending>> byChannel = new LinkedHashMap<>();
+        for (Pending pending : batch)
+            byChannel.computeIfAbsent(pending.channel, c -> new ArrayList<>()).add(pending);
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            for (Map.Entry<String, List<Pending>> share : byChannel.entrySet()) {
+                byte[] channel = share.getKey().getBytes(StandardCharsets.UTF_8);
+                RedisClusterAsyncCommands<byte[], byte[]> nodeCommands = nodeCommands(connection, commands, channel);
+                if (packed) {
+                    Map<String, List<Pending>> byRoom = new LinkedHashMap<>();
+                    for (Pending pending : share.getValue())
+                        byRoom.computeIfAbsent(pending.message.getRoomId(), r -> new ArrayList<>()).add(pending);
+                    for (List<Pending> room : byRoom.values())
+                        send(nodeCommands, channel, room);
+                } else {
+                    for (Pending pending : share.getValue())
+                        send(nodeCommands, channel, Collections.singletonList(pending));
+                }
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            for (Pending pending : batch)
+                pending.future.completeExceptionally(e);
+        }
+    }
+
+    private void send(RedisClusterAsyncCommands<byte[], byte[]> commands, byte[] channel, List<Pending> pendings) {
+        try {
+            byte[] payload;
+            if (pendings.size() == 1) {
+                payload = roomMessageCodec.encode(pendings.get(0).message);
+            } else {
+                List<RoomMessage> messages = new ArrayList<>(pendings.size());
+                for (Pending pending : pendings)
+                    messages.add(pending.message);
+                payload = roomMessageCodec.encodeAll(messages);
+            }
+            RedisFuture<Long> future = commands.publish(channel, payload);
+            future.whenComplete((receivers, e) -> {
+                for (Pending pending : pendings) {
+                    if (e != null)
+                        pending.future.completeExceptionally(e);
+                    else
+                        pending.future.complete(receivers);
+                }
+            });
+        } catch (Exception e) {
+            for (Pending pending : pendings)
+                pending.future.completeExceptionally(e);
+        }
+    }
+
+    // 채널 이름의 슬롯을 가진 master 노드 연결. 단일 노드 구성이면 그대로 사용
+    private RedisClusterAsyncCommands<byte[], byte[]> nodeCommands(RedisConnection connection, RedisClusterAsyncCommands<byte[], byte[]> commands,
+                                                                   byte[] channel) {
+        if (!(connection instanceof RedisClusterConnection) || !(commands instanceof RedisAdvancedClusterAsyncCommands))
+            return commands;
+        RedisClusterNode node = ((RedisClusterConnection) connection).clusterGetNodeForSlot(ClusterSlots.slot(channel));
+        if (node == null)
+            return commands;
+        return ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) commands).getConnection(node.getHost(), node.getPort());
+    }
+
+    private static class Pending {
+        private final String channel;
+        private final RoomMessage message;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
 
-    public void publish(ChannelTopic topic, RoomMessage message) {
-        redisTemplate.convertAndSend(topic.getTopic(), message);
+        private Pending(String channel, RoomMessage message) {
+            this.channel = channel;
+            this.message = message;
+        }
     }
 }
@@ -1,27 +1,41 @@
 package com.redis.cluster.pubsub;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class RedisSubscriber implements MessageListener {
 
-    private final ObjectMapper objectMapper;
-    private final RedisTemplate redisTemplate;
+    private final RoomMessageCodec roomMessageCodec;
+    private final RoomShards roomShards;
+    private final RoomRouter roomRouter;
+    private final RoomMessageDispatcher roomMessageDispatcher;
+    private final RedisMessageListenerContainer redisMessageListener;
+
+    // 방별로 구독하지 않고 shard 채널만 구독
+    @PostConstruct
+    public void init() {
+        redisMessageListener.addMessageListener(this, roomShards.getTopics());
+    }
 
+    // 리스너 스레드에서는 디코딩만 하고 처리는 dispatcher 스레드로 넘긴다.
     @Override
     public void onMessage(Message message, byte[] pattern) {
         try {
-            String body = (String) redisTemplate.getStringSerializer().deserialize(message.getBody());
-            RoomMessage roomMessage = objectMapper.readValue(body, RoomMessage.class);
-            log.info("Room - Message : {}", roomMessage.toString());
+            // 발행측에서 묶어 보낸 프레임(packed)이면 풀어서 한건씩 분배
+            for (RoomMessage roomMessage : roomMessageCodec.decodeAll(message.getBody())) {
+                // 이 인스턴스에 열려있는 방의 메시지만 처리
+                if (roomRouter.isOpen(roomMessage.getRoomId()))
+                    roomMessageDispatcher.dispatch(roomMessage);
+            }
         } catch (Exception e) {
             log.error(e.getMessage());
         }
@@ -0,0 +1,19 @@
+package com.redis.cluster.pubsub;
+
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RoomHistory implements Serializable {
+    private static final long serialVersionUID = -6512097398312540513L;
+    // stream entry id. 다음 페이지 조회시 since로 사용
+    private String id;
+    private String roomId;
+    private String name;
+    private String message;
+}
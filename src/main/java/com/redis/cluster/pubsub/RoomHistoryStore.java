@@ -0,0 +1,156 @@
+package com.redis.cluster.pubsub;
+
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.*;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 방 메시지를 방별 Redis Stream(room:history:{roomId})에 보관하여 재접속/재시작시 놓친 메시지를 조회할 수 있게 한다.
+ * <p>
+ * - 발행시 XADD MAXLEN ~ maxLength 로 길이를 제한하며, 응답을 기다리지 않으므로 연속 발행은 파이프라인으로 전송된다.
+ * - 조회는 XRANGE로 since 이후를 count 만큼 페이지 단위로 읽는다.
+ * - consumer group은 여러 방을 XREADGROUP 한번씩 동시에 보내고(방마다 슬롯이 다르므로) XACK는 방별로 묶어서 보낸다.
+ */
+@Slf4j
+@Component
+public class RoomHistoryStore {
+
+    private static final String KEY_PREFIX = "room:history:";
+    private static final byte[] FIELD_NAME = "name".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIELD_MESSAGE = "message".getBytes(StandardCharsets.UTF_8);
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final boolean enabled;
+    private final XAddArgs addArgs;
+
+    public RoomHistoryStore(RedisConnectionFactory connectionFactory,
+                            @Value("${pubsub.history.enabled:false}") boolean enabled,
+                            @Value("${pubsub.history.max-length:1000}") long maxLength) {
+        this.connectionFactory = connectionFactory;
+        this.enabled = enabled;
+        this.addArgs = XAddArgs.Builder.maxlen(maxLength).approximateTrimming();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CompletionStage<String> append(RoomMessage message) {
+        if (!enabled)
+            return CompletableFuture.completedFuture(null);
+        Map<byte[], byte[]> body = new LinkedHashMap<>();
+        body.put(FIELD_NAME, bytes(message.getName()));
+        body.put(FIELD_MESSAGE, bytes(message.getMessage()));
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return ClusterSlots.async(connection).xadd(key(message.getRoomId()), addArgs, body)
+                    .whenComplete((id, e) -> {
+                        if (e != null)
+                            log.error("Could not append history of {} - {}", message.getRoomId(), e.getMessage());
+                    });
+        }
+    }
+
+    /**
+     * since(entry id, 제외) 이후의 메시지를 최대 count건 조회. since가 없으면 처음부터
+     */
+    public List<RoomHistory> findSince(String roomId, String since, int count) {
+        Range<String> range = since == null ? Range.unbounded()
+                : Range.from(Range.Boundary.including(since), Range.Boundary.unbounded());
+        // XRANGE 시작은 포함 조건이므로 since 자신을 제외하기 위해 한건 더 읽는다.
+        Limit limit = Limit.from(since == null ? count : count + 1);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            List<StreamMessage<byte[], byte[]>> messages = await(ClusterSlots.async(connection).xrange(key(roomId), range, limit));
+            List<RoomHistory> histories = new ArrayList<>(messages.size());
+            for (StreamMessage<byte[], byte[]> message : messages) {
+                if (message.getId().equals(since))
+                    continue;
+                if (histories.size() == count)
+                    break;
+                histories.add(toHistory(roomId, message));
+            }
+            return histories;
+        }
+    }
+
+    /**
+     * 여러 방의 consumer group에서 아직 전달되지 않은 메시지를 방별 최대 count건씩 읽는다.
+     */
+    public Map<String, List<RoomHistory>> readGroup(Collection<String> roomIds, String group, String consumer, int count) {
+        Map<String, List<RoomHistory>> result = new LinkedHashMap<>();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            Map<String, RedisFuture<List<StreamMessage<byte[], byte[]>>>> futures = new LinkedHashMap<>();
+            for (String roomId : roomIds)
+                futures.put(roomId, commands.xreadgroup(Consumer.from(bytes(group), bytes(consumer)),
+                        XReadArgs.Builder.count(count), XReadArgs.StreamOffset.lastConsumed(key(roomId))));
+            for (Map.Entry<String, RedisFuture<List<StreamMessage<byte[], byte[]>>>> entry : futures.entrySet()) {
+                List<RoomHistory> histories = new ArrayList<>();
+                for (StreamMessage<byte[], byte[]> message : await(entry.getValue()))
+                    histories.add(toHistory(entry.getKey(), message));
+                result.put(entry.getKey(), histories);
+            }
+        }
+        return result;
+    }
+
+    public long acknowledge(String roomId, String group, Collection<String> ids) {
+        if (ids.isEmpty())
+            return 0;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return await(ClusterSlots.async(connection).xack(key(roomId), bytes(group), ids.toArray(new String[0])));
+        }
+    }
+
+    // 이미 있으면 무시. 새 그룹은 생성 이후의 메시지부터 읽는다. (Redis 5는 stream이 있어야 생성 가능)
+    public void createGroup(String roomId, String group) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            await(ClusterSlots.async(connection).xgroupCreate(XReadArgs.StreamOffset.latest(key(roomId)), bytes(group)));
+        } catch (Exception e) {
+            if (!String.valueOf(e.getMessage()).contains("BUSYGROUP"))
+                throw e;
+        }
+    }
+
+    private RoomHistory toHistory(String roomId, StreamMessage<byte[], byte[]> message) {
+        String name = null;
+        String text = null;
+        for (Map.Entry<byte[], byte[]> field : message.getBody().entrySet()) {
+            if (Arrays.equals(FIELD_NAME, field.getKey()))
+                name = new String(field.getValue(), StandardCharsets.UTF_8);
+            else if (Arrays.equals(FIELD_MESSAGE, field.getKey()))
+                text = new String(field.getValue(), StandardCharsets.UTF_8);
+        }
+        return RoomHistory.builder().id(message.getId()).roomId(roomId).name(name).message(text).build();
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+        }
+    }
+
+    private byte[] key(String roomId) {
+        return bytes(KEY_PREFIX + "{" + roomId + "}");
+    }
+
+    private byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package com.redis.cluster.pubsub;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RoomMessage JSON 인코딩/디코딩. 미리 만든 ObjectReader/Writer를 재사용하고 byte[]를 직접 다룬다.
+ * <p>
+ * 여러 메시지를 묶은 프레임은 JSON 배열이며, 첫 바이트('[')로 단건 메시지(객체)와 구분한다.
+ */
+@Component
+public class RoomMessageCodec {
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final ObjectReader listReader;
+    private final ObjectWriter listWriter;
+
+    public RoomMessageCodec(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(RoomMessage.class);
+        this.writer = objectMapper.writerFor(RoomMessage.class);
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, RoomMessage.class);
+        this.listReader = objectMapper.readerFor(listType);
+        this.listWriter = objectMapper.writerFor(listType);
+    }
+
+    public RoomMessage decode(byte[] body) throws IOException {
+        return reader.readValue(body);
+    }
+
+    public byte[] encode(RoomMessage message) throws IOException {
+        return writer.writeValueAsBytes(message);
+    }
+
+    /**
+     * 단건 메시지와 묶음 프레임을 모두 디코딩
+     */
+    public List<RoomMessage> decodeAll(byte[] body) throws IOException {
+        if (isPacked(body))
+            return listReader.readValue(body);
+        return Collections.singletonList(decode(body));
+    }
+
+    public byte[] encodeAll(List<RoomMessage> messages) throws IOException {
+        return listWriter.writeValueAsBytes(messages);
+    }
+
+    private static boolean isPacked(byte[] body) {
+        for (byte b : body) {
+            if (b == '[')
+                return true;
+            if (!Character.isWhitespace(b))
+                return false;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package com.redis.cluster.pubsub;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 수신한 RoomMessage를 리스너 스레드에서 분리하여 전용 스레드에서 묶음 단위로 처리한다.
+ * <p>
+ * 리스너 컨테이너가 메시지를 한 스레드에서 받은 순서대로 넘기고(RedisCacheConfig) 방 ID로 stripe를 정하므로 같은 방의 메시지 순서는 유지된다.
+ * stripe별 고정 크기 큐(capacity)가 가득 차면 {@link BackpressurePolicy}에 따라 처리하며
+ * 큐 길이, 버려진/처리된 메시지 수는 Micrometer 지표(pubsub.dispatch.*)로 노출한다.
+ */
+@Slf4j
+@Component
+public class RoomMessageDispatcher {
+
+    private final RoomRouter roomRouter;
+    private final BackpressurePolicy policy;
+    private final int batchSize;
+    private final int spillCapacity;
+    private final Stripe[] stripes;
+    private final Counter dropped;
+    private final Counter processed;
+    private volatile boolean running;
+
+    public RoomMessageDispatcher(RoomRouter roomRouter, MeterRegistry meterRegistry,
+                                 @Value("${pubsub.dispatcher.stripes:4}") int stripes,
+                                 @Value("${pubsub.dispatcher.capacity:8192}") int capacity,
+                                 @Value("${pubsub.dispatcher.batch-size:256}") int batchSize,
+                                 @Value("${pubsub.dispatcher.policy:DROP_OLDEST}") BackpressurePolicy policy,
+                                 @Value("${pubsub.dispatcher.spill-capacity:100000}") int spillCapacity) {
+        this.roomRouter = roomRouter;
+        this.policy = policy;
+        this.batchSize = batchSize;
+        this.spillCapacity = spillCapacity;
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            Stripe stripe = new Stripe(i, capacity);
+            this.stripes[i] = stripe;
+            Gauge.builder("pubsub.dispatch.queue.depth", stripe.queue, Collection::size)
+                    .tag("stripe", String.valueOf(i)).register(meterRegistry);
+            Gauge.builder("pubsub.dispatch.spill.depth", stripe.spillSize, AtomicInteger::get)
+                    .tag("stripe", String.valueOf(i)).register(meterRegistry);
+        }
+        this.dropped = Counter.builder("pubsub.dispatch.dropped").register(meterRegistry);
+        this.processed = Counter.builder("pubsub.dispatch.processed").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (Stripe stripe : stripes)
+            stripe.worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Stripe stripe : stripes)
+            stripe.worker.interrupt();
+    }
+
+    public void dispatch(RoomMessage message) {
+        Stripe stripe = stripes[(message.getRoomId().hashCode() & Integer.MAX_VALUE) % stripes.length];
+        switch (policy) {
+            case BLOCK:
+                try {
+                    stripe.queue.put(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+                break;
+            case SPILL:
+                // 보조 큐에 남은 메시지가 있으면 순서 유지를 위해 보조 큐 뒤에 넣는다.
+                if (stripe.spillSize.get() == 0 && stripe.queue.offer(message))
+                    break;
+                if (stripe.spillSize.incrementAndGet() <= spillCapacity) {
+                    stripe.spill.add(message);
+                } else {
+                    stripe.spillSize.decrementAndGet();
+                    dropped.increment();
+                }
+                break;
+            default:
+                while (!stripe.queue.offer(message)) {
+                    if (stripe.queue.poll() != null)
+                        dropped.increment();
+                }
+        }
+    }
+
+    private void drain(Stripe stripe) {
+        List<RoomMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                // 보조 큐에 남은 메시지가 있으면 기다리지 않는다.
+                RoomMessage first = stripe.spillSize.get() > 0 ? stripe.queue.poll() : stripe.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    stripe.queue.drainTo(batch, batchSize - 1);
+                } else {
+                    RoomMessage spilled;
+                    while (batch.size() < batchSize && (spilled = stripe.spill.poll()) != null) {
+                        stripe.spillSize.decrementAndGet();
+                        batch.add(spilled);
+                    }
+                }
+                if (!batch.isEmpty())
+                    handle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // 방별로 묶어서 핸들러에 전달
+    private void handle(List<RoomMessage> batch) {
+        Map<String, List<RoomMessage>> byRoom = new LinkedHashMap<>();
+        for (RoomMessage message : batch)
+            byRoom.computeIfAbsent(message.getRoomId(), r -> new ArrayList<>()).add(message);
+        byRoom.forEach(roomRouter::route);
+        processed.increment(batch.size());
+    }
+
+    private class Stripe {
+        private final BlockingQueue<RoomMessage> queue;
+        private final Queue<RoomMessage> spill = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger spillSize = new AtomicInteger();
+        private final Thread worker;
+
+        private Stripe(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = new Thread(() -> drain(this), "room-dispatcher-" + index);
+            this.worker.setDaemon(true);
+        }
+    }
+}
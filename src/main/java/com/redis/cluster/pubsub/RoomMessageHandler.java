@@ -0,0 +1,19 @@
+package com.redis.cluster.pubsub;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface RoomMessageHandler {
+
+    void handle(RoomMessage message);
+
+    // 같은 방의 메시지를 묶음으로 처리. 기본은 한건씩 처리
+    default void handleBatch(List<RoomMessage> messages) {
+        for (RoomMessage message : messages)
+            handle(message);
+    }
+
+    // 방이 닫혀 핸들러가 해제될 때 호출
+    default void closed() {
+    }
+}
@@ -0,0 +1,222 @@
+package com.redis.cluster.pubsub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 클러스터 전체의 방 목록.
+ * <p>
+ * Redis set(pubsub:rooms)이 원본이고, 각 인스턴스는 로컬 인덱스(ConcurrentHashMap)를 두어 조회시 Redis를 거치지 않는다.
+ * 방 생성/삭제는 로컬 인덱스와 RoomRouter에 즉시 반영하고, Redis 반영(SADD/SREM)과 변경 이벤트 발행은
+ * 전용 스레드가 모아서 처리하므로 요청 스레드는 Redis를 기다리지 않는다.
+ * 다른 인스턴스는 변경 채널(pubsub:rooms:changes)로 동기화하며, 이벤트 유실에 대비해 주기적으로 전체를 다시 읽는다.
+ */
+@Slf4j
+@Component
+public class RoomRegistry implements MessageListener {
+
+    private static final String ROOMS_KEY = "pubsub:rooms";
+    private static final ChannelTopic CHANGES_TOPIC = new ChannelTopic("pubsub:rooms:changes");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer redisMessageListener;
+    private final RoomRouter roomRouter;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long resyncIntervalSec;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<String> rooms = ConcurrentHashMap.newKeySet();
+    // 아직 Redis에 반영되지 않은 변경. 같은 방은 마지막 변경만 남긴다. (true: 생성, false: 삭제)
+    private final Map<String, Boolean> pending = new LinkedHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public RoomRegistry(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer redisMessageListener,
+                        RoomRouter roomRouter, ObjectMapper objectMapper,
+                        @Value("${pubsub.registry.batch-size:1000}") int batchSize,
+                        @Value("${pubsub.registry.flush-interval-ms:50}") long flushIntervalMillis,
+                        @Value("${pubsub.registry.resync-interval-sec:60}") long resyncIntervalSec) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListener = redisMessageListener;
+        this.roomRouter = roomRouter;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.resyncIntervalSec = resyncIntervalSec;
+    }
+
+    @PostConstruct
+    public void start() {
+        redisMessageListener.addMessageListener(this, CHANGES_TOPIC);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "room-registry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        // 첫 동기화도 스케줄러에서 수행하여 Redis 연결 지연이 기동을 막지 않도록 한다.
+        scheduler.scheduleWithFixedDelay(this::resync, 0, resyncIntervalSec, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        redisMessageListener.removeMessageListener(this, CHANGES_TOPIC);
+        scheduler.shutdown();
+        // 남은 변경은 종료 전에 반영
+        flush();
+    }
+
+    /**
+     * 방 생성. 이미 있으면 아무것도 하지 않는다.
+     */
+    public void open(String roomId) {
+        // resync가 로컬 인덱스와 pending을 같은 시점으로 보도록 pending lock 안에서 변경한다.
+        synchronized (pending) {
+            if (rooms.add(roomId)) {
+                roomRouter.open(roomId);
+                enqueue(roomId, true);
+            }
+        }
+    }
+
+    /**
+     * 방 삭제. 없으면 아무것도 하지 않는다.
+     */
+    public void close(String roomId) {
+        synchronized (pending) {
+            if (rooms.remove(roomId)) {
+                roomRouter.close(roomId);
+                enqueue(roomId, false);
+            }
+        }
+    }
+
+    public boolean contains(String roomId) {
+        return rooms.contains(roomId);
+    }
+
+    public Set<String> getRooms() {
+        return Collections.unmodifiableSet(rooms);
+    }
+
+    private void enqueue(String roomId, boolean opened) {
+        synchronized (pending) {
+            pending.remove(roomId);
+            pending.put(roomId, opened);
+        }
+    }
+
+    // 모인 변경을 batchSize 단위로 SADD/SREM 하고 같은 묶음을 이벤트로 발행
+    void flush() {
+        while (true) {
+            List<String> opened = new ArrayList<>();
+            List<String> closed = new ArrayList<>();
+            synchronized (pending) {
+                Iterator<Map.Entry<String, Boolean>> it = pending.entrySet().iterator();
+                while (it.hasNext() && opened.size() + closed.size() < batchSize) {
+                    Map.Entry<String, Boolean> entry = it.next();
+                    (entry.getValue() ? opened : closed).add(entry.getKey());
+                    it.remove();
+                }
+            }
+            if (opened.isEmpty() && closed.isEmpty())
+                return;
+            try {
+                // 하나의 key이므로 같은 노드로 가는 명령을 파이프라인으로 묶는다.
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    byte[] key = ROOMS_KEY.getBytes(StandardCharsets.UTF_8);
+                    if (!opened.isEmpty())
+                        connection.sAdd(key, toBytes(opened));
+                    if (!closed.isEmpty())
+                        connection.sRem(key, toBytes(closed));
+                    return null;
+                });
+                stringRedisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), objectMapper.writeValueAsString(
+                        RoomRegistryEvent.builder().instanceId(instanceId).opened(opened).closed(closed).build()));
+            } catch (Exception e) {
+                // 실패한 변경은 다음 주기에 다시 시도. 그 사이 새 변경이 있으면 새 변경을 우선한다.
+                log.error(e.getMessage());
+                synchronized (pending) {
+                    opened.forEach(roomId -> pending.putIfAbsent(roomId, true));
+                    closed.forEach(roomId -> pending.putIfAbsent(roomId, false));
+                }
+                return;
+            }
+        }
+    }
+
+    // Redis set 전체를 SSCAN으로 읽어 로컬 인덱스를 맞춘다. 아직 반영되지 않은 로컬 변경은 유지한다.
+    // flush와 같은 스레드에서 실행되므로 읽는 도중 pending이 Redis에 반영되는 일은 없고,
+    // 비교는 open/close와 같은 lock 안에서 하므로 SSCAN 이후 생성/삭제된 방은 pending에 있어 되돌리지 않는다.
+    void resync() {
+        try {
+            Set<String> remote = new HashSet<>();
+            try (Cursor<String> cursor = stringRedisTemplate.opsForSet().scan(ROOMS_KEY, ScanOptions.scanOptions().count(1000).build())) {
+                cursor.forEachRemaining(remote::add);
+            }
+            synchronized (pending) {
+                for (String roomId : remote)
+                    if (!pending.containsKey(roomId))
+                        applyOpen(roomId);
+                for (String roomId : new ArrayList<>(rooms))
+                    if (!remote.contains(roomId) && !pending.containsKey(roomId))
+                        applyClose(roomId);
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            RoomRegistryEvent event = objectMapper.readValue(message.getBody(), RoomRegistryEvent.class);
+            // 자신이 발행한 이벤트는 이미 로컬에 반영되어 있음
+            if (instanceId.equals(event.getInstanceId()))
+                return;
+            if (event.getOpened() != null)
+                event.getOpened().forEach(this::applyOpen);
+            if (event.getClosed() != null)
+                event.getClosed().forEach(this::applyClose);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    // 다른 인스턴스의 변경 반영. Redis에 다시 쓰지 않는다.
+    private void applyOpen(String roomId) {
+        if (rooms.add(roomId))
+            roomRouter.open(roomId);
+    }
+
+    private void applyClose(String roomId) {
+        if (rooms.remove(roomId))
+            roomRouter.close(roomId);
+    }
+
+    private static byte[][] toBytes(List<String> roomIds) {
+        byte[][] values = new byte[roomIds.size()][];
+        for (int i = 0; i < values.length; i++)
+            values[i] = roomIds.get(i).getBytes(StandardCharsets.UTF_8);
+        return values;
+    }
+}
@@ -0,0 +1,19 @@
+package com.redis.cluster.pubsub;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class RoomRegistryEvent implements Serializable {
+    private static final long serialVersionUID = 6120915823706431377L;
+    // 이벤트를 발행한 인스턴스
+    private String instanceId;
+    private List<String> opened;
+    private List<String> closed;
+}
@@ -0,0 +1,80 @@
+package com.redis.cluster.pubsub;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 이 인스턴스에 열려있는 방과 방별 메시지 핸들러의 라우팅 테이블
+ */
+@Slf4j
+@Component
+public class RoomRouter {
+
+    private final ConcurrentMap<String, Set<RoomMessageHandler>> rooms = new ConcurrentHashMap<>();
+
+    public void open(String roomId) {
+        rooms.computeIfAbsent(roomId, r -> new CopyOnWriteArraySet<>());
+    }
+
+    // 방을 닫고 등록된 핸들러에 알린다.
+    public void close(String roomId) {
+        Set<RoomMessageHandler> handlers = rooms.remove(roomId);
+        if (handlers == null)
+            return;
+        for (RoomMessageHandler handler : handlers) {
+            try {
+                handler.closed();
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+    }
+
+    public void join(String roomId, RoomMessageHandler handler) {
+        rooms.computeIfAbsent(roomId, r -> new CopyOnWriteArraySet<>()).add(handler);
+    }
+
+    public void leave(String roomId, RoomMessageHandler handler) {
+        Set<RoomMessageHandler> handlers = rooms.get(roomId);
+        if (handlers != null)
+            handlers.remove(handler);
+    }
+
+    public boolean isOpen(String roomId) {
+        return rooms.containsKey(roomId);
+    }
+
+    public Set<String> getRooms() {
+        return Collections.unmodifiableSet(rooms.keySet());
+    }
+
+    /**
+     * 로컬 핸들러에 메시지 전달. 이 인스턴스에 열려있지 않은 방이면 false
+     */
+    public boolean route(RoomMessage message) {
+        return route(message.getRoomId(), Collections.singletonList(message));
+    }
+
+    public boolean route(String roomId, List<RoomMessage> messages) {
+        Set<RoomMessageHandler> handlers = rooms.get(roomId);
+        if (handlers == null)
+            return false;
+        if (log.isDebugEnabled())
+            messages.forEach(message -> log.debug("Room - Message : {}", message));
+        for (RoomMessageHandler handler : handlers) {
+            try {
+                handler.handleBatch(messages);
+            } catch (Exception e) {
+                log.error(e.getMessage());
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,37 @@
+package com.redis.cluster.pubsub;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 방(room)을 고정된 개수의 shard 채널에 매핑한다.
+ * 인스턴스는 방 개수와 관계없이 shard 채널 수 만큼만 구독하고, 수신한 메시지는 RoomRouter로 로컬 분배한다.
+ */
+@Component
+public class RoomShards {
+
+    private static final String CHANNEL_PREFIX = "room:shard:";
+
+    private final List<ChannelTopic> topics;
+
+    public RoomShards(@Value("${pubsub.shards:16}") int shards) {
+        List<ChannelTopic> topics = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++)
+            topics.add(new ChannelTopic(CHANNEL_PREFIX + i));
+        this.topics = Collections.unmodifiableList(topics);
+    }
+
+    public List<ChannelTopic> getTopics() {
+        return topics;
+    }
+
+    // String.hashCode는 JVM과 무관하게 동일하므로 모든 인스턴스가 같은 shard를 계산한다.
+    public ChannelTopic topicOf(String roomId) {
+        return topics.get((roomId.hashCode() & Integer.MAX_VALUE) % topics.size());
+    }
+}
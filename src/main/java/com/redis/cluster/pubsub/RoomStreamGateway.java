@@ -0,0 +1,134 @@
+package com.redis.cluster.pubsub;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.MonoProcessor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 방 메시지를 연결된 클라이언트(SSE)로 전달한다.
+ * <p>
+ * - Redis 구독은 shard 채널 단위로 이미 되어 있으므로(RedisSubscriber) 방마다 RoomRouter에 핸들러 하나만 등록하고
+ *   같은 방의 모든 연결이 이를 공유한다. 메시지는 핸들러에서 한번만 JSON으로 만들어 모든 연결에 같은 문자열을 보낸다.
+ * - 연결마다 bufferSize 크기의 버퍼를 두며, 버퍼가 가득 찬 느린 연결은 종료시킨다. (다른 연결에 영향 없음)
+ * - 끊어진 연결을 감지할 수 있도록 heartbeat 주기로 comment 이벤트를 보낸다.
+ * - 방이 닫히면 연결을 완료시킨다.
+ */
+@Slf4j
+@Component
+public class RoomStreamGateway {
+
+    private final RoomRouter roomRouter;
+    private final RoomMessageCodec roomMessageCodec;
+    private final int bufferSize;
+    private final Duration heartbeat;
+    // 방별 공유 스트림. 마지막 연결이 끊기거나 방이 닫히면 핸들러를 해제하고 제거된다.
+    private final ConcurrentMap<String, Flux<String>> rooms = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter evicted;
+
+    public RoomStreamGateway(RoomRouter roomRouter, RoomMessageCodec roomMessageCodec, MeterRegistry meterRegistry,
+                             @Value("${pubsub.stream.buffer-size:256}") int bufferSize,
+                             @Value("${pubsub.stream.heartbeat-sec:15}") long heartbeatSec) {
+        this.roomRouter = roomRouter;
+        this.roomMessageCodec = roomMessageCodec;
+        this.bufferSize = bufferSize;
+        this.heartbeat = Duration.ofSeconds(heartbeatSec);
+        Gauge.builder("pubsub.stream.connections", connections, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("pubsub.stream.rooms", rooms, ConcurrentMap::size).register(meterRegistry);
+        this.evicted = Counter.builder("pubsub.stream.evicted")
+                .description("Connections closed because their buffer overflowed")
+                .register(meterRegistry);
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * 방의 메시지를 SSE 이벤트로 구독
+     */
+    public Flux<ServerSentEvent<String>> connect(String roomId) {
+        return Flux.defer(() -> stream(roomId))
+                .onErrorResume(e -> {
+                    // 느린 연결은 종료. 클라이언트는 재접속 후 history API로 놓친 메시지를 조회할 수 있다.
+                    if (Exceptions.isOverflow(e)) {
+                        evicted.increment();
+                        log.warn("Slow consumer evicted from room {}", roomId);
+                        return Flux.empty();
+                    }
+                    return Flux.error(e);
+                })
+                .doOnSubscribe(subscription -> connections.incrementAndGet())
+                .doFinally(signal -> connections.decrementAndGet());
+    }
+
+    // 연결별 스트림. 방이 닫혀 메시지 스트림이 끝나면 heartbeat도 멈춰 연결을 완료시킨다.
+    private Flux<ServerSentEvent<String>> stream(String roomId) {
+        MonoProcessor<Void> closed = MonoProcessor.create();
+        Flux<ServerSentEvent<String>> messages = room(roomId)
+                .onBackpressureBuffer(bufferSize, dropped -> {
+                }, BufferOverflowStrategy.ERROR)
+                .map(data -> ServerSentEvent.<String>builder(data).event("message").build())
+                .doOnComplete(closed::onComplete);
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeat)
+                .takeUntilOther(closed)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+        return Flux.merge(messages, heartbeats);
+    }
+
+    private Flux<String> room(String roomId) {
+        return rooms.computeIfAbsent(roomId, this::createRoom);
+    }
+
+    // 방이 닫히면(RoomRouter.close) 모든 연결을 완료시키고, 다음 연결은 새 스트림으로 다시 등록한다.
+    private Flux<String> createRoom(String roomId) {
+        AtomicReference<Flux<String>> self = new AtomicReference<>();
+        Flux<String> room = Flux.<String>create(sink -> {
+            RoomMessageHandler handler = new RoomMessageHandler() {
+                @Override
+                public void handle(RoomMessage message) {
+                    sink.next(encode(message));
+                }
+
+                @Override
+                public void closed() {
+                    sink.complete();
+                }
+            };
+            roomRouter.join(roomId, handler);
+            sink.onDispose(() -> {
+                roomRouter.leave(roomId, handler);
+                // 그 사이 새로 등록된 스트림은 지우지 않는다.
+                rooms.remove(roomId, self.get());
+            });
+        }).publish().refCount();
+        self.set(room);
+        return room;
+    }
+
+    private String encode(RoomMessage message) {
+        try {
+            return new String(roomMessageCodec.encode(message), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.redis.cluster.repo;
 
 import com.redis.cluster.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserJpaRepo extends JpaRepository<User, Long> {
 
     Optional<User> findByUid(String email);
+
+    // keyset 페이지 조회 (msrl 이후 size건)
+    List<User> findByMsrlGreaterThanOrderByMsrlAsc(long msrl, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.redis.cluster.repo.redis;
+
+import com.redis.cluster.entity.redis.Student;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 대량 처리용 StudentRedisRepo 메서드. @RedisHash 저장 형식(student:{id} hash)은 CrudRepository와 같다.
+ * <p>
+ * 키 목록은 하나의 student set 대신 샤드된 sorted set(student:ids:{n}, score는 만료 시각)에 보관한다.
+ * CrudRepository.save로 저장한 엔티티는 기존 student set에 남으며 streamAll, findAll, count, delete 메서드는 두 곳을 모두 대상으로 한다.
+ * (CrudRepository의 기본 구현은 student set만 보므로 여기서 다시 정의한다.)
+ */
+public interface StudentRedisRepoCustom {
+
+    /**
+     * 엔티티별 DEL + HMSET, 샤드별 SADD를 노드별 파이프라인으로 저장
+     */
+    void saveAllPipelined(Collection<Student> students);
+
+    /**
+     * ids 순서대로 조회. 없는 id는 결과에서 빠진다.
+     */
+    List<Student> findAllByIdPipelined(Collection<Long> ids);
+
+    void deleteAllByIdPipelined(Collection<Long> ids);
+
+    /**
+     * 키 set을 SCAN으로 순회하며 batch 단위로 조회한다. 사용 후 반드시 close 해야 한다.
+     */
+    Stream<Student> streamAll();
+
+    /**
+     * 모든 엔티티를 메모리에 읽는다. 건수가 많으면 streamAll을 사용
+     */
+    Iterable<Student> findAll();
+
+    /**
+     * 만료되지 않은 엔티티 수
+     */
+    long count();
+
+    void deleteById(Long id);
+
+    void delete(Student student);
+
+    void deleteAll(Iterable<? extends Student> students);
+
+    /**
+     * 모든 엔티티와 키 set 삭제
+     */
+    void deleteAll();
+}
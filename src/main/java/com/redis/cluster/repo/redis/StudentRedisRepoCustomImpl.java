@@ -0,0 +1,376 @@
+package com.redis.cluster.repo.redis;
+
+import com.redis.cluster.entity.redis.Student;
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisZSetCommands.Tuple;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * StudentRedisRepoCustom 구현.
+ * <p>
+ * - 엔티티 변환은 CrudRepository와 같은 RedisConverter를 사용하므로 어느 쪽으로 저장해도 서로 읽을 수 있다.
+ * - 커맨드는 batchSize 엔티티 단위로 응답을 기다리지 않고 보낸 뒤 한번에 대기한다. (클러스터에서는 노드별 파이프라인)
+ * - id는 keysetShards 개의 sorted set(student:ids:{n})에 나누어 보관하여 하나의 키에 쓰기가 몰리지 않게 한다.
+ *   score는 엔티티의 만료 시각(ms, 만료 없으면 +inf)이다. 만료된 id는 조회/집계에서 제외하고 저장, streamAll, count에서 정리한다.
+ * - findAll, count, delete 메서드는 CrudRepository 대신 샤드 set과 student set을 모두 대상으로 한다.
+ * - @Indexed 보조 인덱스는 관리하지 않는다. 인덱스가 있는 엔티티는 저장하지 않고 예외를 던진다.
+ */
+public class StudentRedisRepoCustomImpl implements StudentRedisRepoCustom {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisConverter redisConverter;
+    private final String keyspace;
+    private final int keysetShards;
+    private final int batchSize;
+
+    public StudentRedisRepoCustomImpl(RedisConnectionFactory connectionFactory, RedisConverter redisConverter,
+                                      @Value("${redis.student-repo.keyset-shards:16}") int keysetShards,
+                                      @Value("${redis.student-repo.batch-size:500}") int batchSize) {
+        this.connectionFactory = connectionFactory;
+        this.redisConverter = redisConverter;
+        this.keyspace = redisConverter.getMappingContext().getRequiredPersistentEntity(Student.class).getKeySpace();
+        this.keysetShards = keysetShards;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void saveAllPipelined(Collection<Student> students) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            for (List<Student> batch : partition(new ArrayList<>(students))) {
+                List<RedisFuture<?>> futures = new ArrayList<>();
+                long now = System.currentTimeMillis();
+                Map<Integer, Map<byte[], Double>> idsByShard = new HashMap<>();
+                for (Student student : batch) {
+                    RedisData data = new RedisData();
+                    redisConverter.write(student, data);
+                    if (!data.getIndexedData().isEmpty())
+                        throw new IllegalStateException("Indexed properties are not supported: " + data.getIndexedData());
+                    byte[] key = bytes(keyspace + ":" + data.getId());
+                    Map<byte[], byte[]> hash = new LinkedHashMap<>();
+                    data.getBucket().rawMap().forEach((field, value) -> hash.put(bytes(field), value));
+                    // CrudRepository.save와 같이 이전 필드를 지우고 다시 쓴다.
+                    futures.add(commands.del(key));
+                    futures.add(commands.hmset(key, hash));
+                    double expireAt = Double.POSITIVE_INFINITY;
+                    if (data.getTimeToLive() != null && data.getTimeToLive() > 0) {
+                        futures.add(commands.expire(key, data.getTimeToLive()));
+                        expireAt = now + TimeUnit.SECONDS.toMillis(data.getTimeToLive());
+                    }
+                    idsByShard.computeIfAbsent(shard(student.getStudentId()), s -> new LinkedHashMap<>()).put(bytes(data.getId()), expireAt);
+                }
+                idsByShard.forEach((shard, ids) -> {
+                    futures.add(commands.zadd(shardKey(shard), scoredValues(ids)));
+                    futures.add(commands.zremrangebyscore(shardKey(shard), Range.from(Range.Boundary.unbounded(), Range.Boundary.including(now))));
+                });
+                awaitAll(futures);
+            }
+        }
+    }
+
+    @Override
+    public List<Student> findAllByIdPipelined(Collection<Long> ids) {
+        List<Student> students = new ArrayList<>(ids.size());
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            for (List<Long> batch : partition(new ArrayList<>(new LinkedHashSet<>(ids))))
+                students.addAll(read(commands, batch));
+        }
+        return students;
+    }
+
+    @Override
+    public void deleteAllByIdPipelined(Collection<Long> ids) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            for (List<Long> batch : partition(new ArrayList<>(ids))) {
+                List<RedisFuture<?>> futures = new ArrayList<>();
+                for (Long id : batch) {
+                    byte[] member = bytes(String.valueOf(id));
+                    futures.add(commands.del(bytes(keyspace + ":" + id)));
+                    futures.add(commands.zrem(shardKey(shard(id)), member));
+                    futures.add(commands.srem(bytes(keyspace), member));
+                }
+                awaitAll(futures);
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        deleteAllByIdPipelined(Collections.singletonList(id));
+    }
+
+    @Override
+    public void delete(Student student) {
+        deleteById(student.getStudentId());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Student> students) {
+        List<Long> ids = new ArrayList<>();
+        students.forEach(student -> ids.add(student.getStudentId()));
+        deleteAllByIdPipelined(ids);
+    }
+
+    @Override
+    public Iterable<Student> findAll() {
+        try (Stream<Student> students = streamAll()) {
+            return students.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 샤드 set은 만료된 id를 지운 뒤의 id 수, student set은 샤드 set에 없는 id 수
+     */
+    @Override
+    public long count() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            long now = System.currentTimeMillis();
+            long count = 0;
+            for (int shard = 0; shard < keysetShards; shard++) {
+                connection.zRemRangeByScore(shardKey(shard), Double.NEGATIVE_INFINITY, now);
+                count += connection.zCard(shardKey(shard));
+            }
+            StudentIterator legacy = new StudentIterator(connection, keysetShards);
+            List<Long> ids;
+            while ((ids = legacy.nextIds()) != null)
+                count += ids.size();
+            return count;
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            for (int shard = 0; shard < keysetShards; shard++) {
+                try (Cursor<Tuple> ids = connection.zScan(shardKey(shard), ScanOptions.scanOptions().count(batchSize).build())) {
+                    deleteEntities(commands, () -> ids.hasNext() ? ids.next().getValue() : null);
+                } catch (IOException e) {
+                    // 커서 닫기 실패는 무시
+                }
+                connection.del(shardKey(shard));
+            }
+            try (Cursor<byte[]> ids = connection.sScan(bytes(keyspace), ScanOptions.scanOptions().count(batchSize).build())) {
+                deleteEntities(commands, () -> ids.hasNext() ? ids.next() : null);
+            } catch (IOException e) {
+                // 커서 닫기 실패는 무시
+            }
+            connection.del(bytes(keyspace));
+        }
+    }
+
+    @Override
+    public Stream<Student> streamAll() {
+        RedisConnection connection = connectionFactory.getConnection();
+        StudentIterator iterator = new StudentIterator(connection);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private List<Student> read(RedisClusterAsyncCommands<byte[], byte[]> commands, List<Long> ids) {
+        List<RedisFuture<Map<byte[], byte[]>>> futures = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            futures.add(commands.hgetall(bytes(keyspace + ":" + id)));
+        awaitAll(futures);
+        List<Student> students = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Map<byte[], byte[]> hash = getNow(futures.get(i));
+            if (hash.isEmpty())
+                continue;
+            Map<String, byte[]> fields = new LinkedHashMap<>();
+            hash.forEach((field, value) -> fields.put(new String(field, StandardCharsets.UTF_8), value));
+            RedisData data = new RedisData(Bucket.newBucketFromRawMap(fields));
+            data.setId(String.valueOf(ids.get(i)));
+            data.setKeyspace(keyspace);
+            students.add(redisConverter.read(Student.class, data));
+        }
+        return students;
+    }
+
+    // 다음 id가 없을 때까지 batchSize 단위로 엔티티 키를 삭제
+    private void deleteEntities(RedisClusterAsyncCommands<byte[], byte[]> commands, Supplier<byte[]> ids) {
+        List<RedisFuture<?>> futures = new ArrayList<>(batchSize);
+        for (byte[] id = ids.get(); id != null; id = ids.get()) {
+            futures.add(commands.del(bytes(keyspace + ":" + new String(id, StandardCharsets.UTF_8))));
+            if (futures.size() >= batchSize) {
+                awaitAll(futures);
+                futures.clear();
+            }
+        }
+        awaitAll(futures);
+    }
+
+    private static ScoredValue<byte[]>[] scoredValues(Map<byte[], Double> ids) {
+        @SuppressWarnings("unchecked")
+        ScoredValue<byte[]>[] values = new ScoredValue[ids.size()];
+        int i = 0;
+        for (Map.Entry<byte[], Double> id : ids.entrySet())
+            values[i++] = ScoredValue.fromNullable(id.getValue(), id.getKey());
+        return values;
+    }
+
+    private int shard(long id) {
+        return Math.floorMod(Long.hashCode(id), keysetShards);
+    }
+
+    private byte[] shardKey(int shard) {
+        return bytes(keyspace + ":ids:{" + shard + "}");
+    }
+
+    private <T> List<List<T>> partition(List<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += batchSize)
+            batches.add(values.subList(from, Math.min(from + batchSize, values.size())));
+        return batches;
+    }
+
+    private void awaitAll(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0])))
+            throw new IllegalStateException("Timeout waiting for student commands");
+    }
+
+    private <T> T getNow(RedisFuture<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read student", e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 샤드 set을 차례로 ZSCAN 한 뒤 CrudRepository의 student set을 SSCAN 한다.
+     * 샤드 set의 만료된 id는 건너뛰고 다 읽은 샤드에서 지운다. student set의 id 중 샤드 set에도 있는 id는 이미 읽었으므로 건너뛴다.
+     */
+    private class StudentIterator implements Iterator<Student> {
+
+        private final RedisConnection connection;
+        private final RedisClusterAsyncCommands<byte[], byte[]> commands;
+        // 마지막은 CrudRepository의 student set
+        private int set;
+        private Cursor<?> cursor;
+        private Iterator<Student> page = Collections.emptyIterator();
+
+        StudentIterator(RedisConnection connection) {
+            this(connection, 0);
+        }
+
+        StudentIterator(RedisConnection connection, int fromSet) {
+            this.connection = connection;
+            this.commands = ClusterSlots.async(connection);
+            this.set = fromSet;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext()) {
+                List<Long> ids = nextIds();
+                if (ids == null)
+                    return false;
+                page = read(commands, ids).iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Student next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return page.next();
+        }
+
+        // 다음 batch의 id. 모든 set을 다 읽었으면 null
+        List<Long> nextIds() {
+            while (set <= keysetShards) {
+                boolean legacy = set == keysetShards;
+                ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+                if (cursor == null)
+                    cursor = legacy ? connection.sScan(bytes(keyspace), options) : connection.zScan(shardKey(set), options);
+                long now = System.currentTimeMillis();
+                List<Long> ids = new ArrayList<>(batchSize);
+                while (ids.size() < batchSize && cursor.hasNext()) {
+                    Object next = cursor.next();
+                    if (legacy) {
+                        ids.add(id((byte[]) next));
+                    } else if (((Tuple) next).getScore() > now) {
+                        ids.add(id(((Tuple) next).getValue()));
+                    }
+                }
+                if (!cursor.hasNext()) {
+                    closeCursor();
+                    if (!legacy)
+                        connection.zRemRangeByScore(shardKey(set), Double.NEGATIVE_INFINITY, now);
+                    set++;
+                }
+                if (legacy)
+                    ids = notSharded(ids);
+                if (!ids.isEmpty())
+                    return ids;
+            }
+            return null;
+        }
+
+        // 샤드 set에 없거나 만료된 id
+        private List<Long> notSharded(List<Long> ids) {
+            List<RedisFuture<Double>> futures = new ArrayList<>(ids.size());
+            for (Long id : ids)
+                futures.add(commands.zscore(shardKey(shard(id)), bytes(String.valueOf(id))));
+            awaitAll(futures);
+            long now = System.currentTimeMillis();
+            List<Long> notSharded = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                Double expireAt = getNow(futures.get(i));
+                if (expireAt == null || expireAt <= now)
+                    notSharded.add(ids.get(i));
+            }
+            return notSharded;
+        }
+
+        private Long id(byte[] value) {
+            return Long.valueOf(new String(value, StandardCharsets.UTF_8));
+        }
+
+        private void closeCursor() {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                // 커서 닫기 실패는 무시
+            }
+            cursor = null;
+        }
+
+        void close() {
+            if (cursor != null)
+                closeCursor();
+            connection.close();
+        }
+    }
+}
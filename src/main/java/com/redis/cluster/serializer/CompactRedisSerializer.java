@@ -0,0 +1,159 @@
+package com.redis.cluster.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 등록된 타입을 Smile(binary JSON)로 직렬화하는 캐시 값 serializer.
+ * <p>
+ * 포맷 : [magic 1byte][flags 1byte][typeId 2byte][payload]
+ * - payload는 크기가 compressionThreshold 이상이면 LZ4로 압축하고 원본 길이(4byte)를 앞에 둔다.
+ * - 필드 기준으로 직렬화하며 모르는 필드는 무시하므로 필드 추가/삭제에 호환된다.
+ * <p>
+ * 기존 JDK 직렬화 데이터와의 호환은 {@link Mode}로 조절한다. 롤링 배포시
+ * JDK_COMPAT(모든 인스턴스 배포) -> MIGRATE -> COMPACT 순으로 전환하면 캐시를 비우지 않아도 된다.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public enum Mode {
+        // 두 포맷 모두 읽고 JDK 포맷으로 쓴다. (구버전 인스턴스와 공존)
+        JDK_COMPAT,
+        // 두 포맷 모두 읽고 compact 포맷으로 쓴다.
+        MIGRATE,
+        // compact 포맷만 사용
+        COMPACT
+    }
+
+    private static final byte MAGIC = (byte) 0xC5;
+    private static final byte FLAG_LZ4 = 0x01;
+    private static final int HEADER_SIZE = 4;
+
+    private final ObjectMapper objectMapper;
+    private final Mode mode;
+    private final int compressionThreshold;
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    private final Map<Class<?>, Short> typeIds = new ConcurrentHashMap<>();
+    private final Map<Short, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Short, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * @param compressionThreshold 이 크기(byte) 이상의 payload만 압축. 0 이하면 압축하지 않음
+     */
+    public CompactRedisSerializer(Mode mode, int compressionThreshold) {
+        this.mode = mode;
+        this.compressionThreshold = compressionThreshold;
+        this.objectMapper = new ObjectMapper(new SmileFactory())
+                // 캐시는 API 응답용 Jackson 어노테이션(WRITE_ONLY 등)과 무관하게 모든 필드를 보관한다.
+                .disable(MapperFeature.USE_ANNOTATIONS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    /**
+     * 직렬화할 타입 등록. typeId는 저장 포맷의 일부이므로 한번 정한 값은 바꾸지 않는다.
+     */
+    public CompactRedisSerializer register(int typeId, Class<?> type) {
+        short id = (short) typeId;
+        if (readers.containsKey(id))
+            throw new IllegalArgumentException("Duplicate typeId " + typeId + " for " + type.getName());
+        typeIds.put(type, id);
+        readers.put(id, objectMapper.readerFor(type));
+        writers.put(id, objectMapper.writerFor(type));
+        return this;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null)
+            return new byte[0];
+        if (mode == Mode.JDK_COMPAT)
+            return jdkSerializer.serialize(value);
+        short typeId = typeIdOf(value.getClass());
+        try {
+            byte[] payload = writers.get(typeId).writeValueAsBytes(value);
+            boolean compress = compressionThreshold > 0 && payload.length >= compressionThreshold;
+            if (!compress)
+                return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                        .put(MAGIC).put((byte) 0).putShort(typeId).put(payload).array();
+
+            byte[] compressed = new byte[compressor.maxCompressedLength(payload.length)];
+            int compressedLength = compressor.compress(payload, 0, payload.length, compressed, 0);
+            return ByteBuffer.allocate(HEADER_SIZE + 4 + compressedLength)
+                    .put(MAGIC).put(FLAG_LZ4).putShort(typeId).putInt(payload.length)
+                    .put(compressed, 0, compressedLength).array();
+        } catch (Exception e) {
+            throw new SerializationException("Could not write " + value.getClass().getName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0)
+            return null;
+        if (bytes[0] != MAGIC) {
+            if (mode != Mode.COMPACT && isJdkSerialized(bytes))
+                return jdkSerializer.deserialize(bytes);
+            throw new SerializationException("Unknown cache value format");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        byte flags = buffer.get();
+        short typeId = buffer.getShort();
+        ObjectReader reader = readers.get(typeId);
+        if (reader == null)
+            throw new SerializationException("Unregistered typeId " + typeId);
+        try {
+            if ((flags & FLAG_LZ4) == 0)
+                return reader.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+
+            int originalLength = buffer.getInt();
+            byte[] payload = new byte[originalLength];
+            decompressor.decompress(bytes, HEADER_SIZE + 4, payload, 0, originalLength);
+            return reader.readValue(payload);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read typeId " + typeId, e);
+        }
+    }
+
+    private short typeIdOf(Class<?> type) {
+        // 프록시 등 하위 클래스는 등록된 상위 타입으로 직렬화
+        for (Class<?> candidate = type; candidate != null; candidate = candidate.getSuperclass()) {
+            Short typeId = typeIds.get(candidate);
+            if (typeId != null) {
+                if (candidate != type)
+                    typeIds.put(type, typeId);
+                return typeId;
+            }
+        }
+        throw new SerializationException("Unregistered type " + type.getName() + ", registered : " + Arrays.toString(typeIds.keySet().toArray()));
+    }
+
+    // java.io.ObjectStreamConstants.STREAM_MAGIC (0xACED)
+    private boolean isJdkSerialized(byte[] bytes) {
+        return bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+}
@@ -0,0 +1,22 @@
+package com.redis.cluster.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class CacheWarmupProgress {
+    public enum State {
+        IDLE, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private State state;
+    // 캐시에 적재한 회원 수 (hot list 포함)
+    private long loaded;
+    // 마지막으로 적재한 페이지의 msrl. 다음 페이지는 이 값 이후부터 읽는다.
+    private long lastMsrl;
+    private Long startedAt;
+    private Long finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.redis.cluster.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class GeoNearby {
+    private String member;
+    private double lng;
+    private double lat;
+    // 조회 중심에서의 거리 (m)
+    private double distance;
+}
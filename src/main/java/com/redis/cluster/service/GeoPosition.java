@@ -0,0 +1,14 @@
+package com.redis.cluster.service;
+
+import lombok.*;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class GeoPosition {
+    private String member;
+    private double lng;
+    private double lat;
+}
@@ -0,0 +1,321 @@
+package com.redis.cluster.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redis.cluster.common.InvalidRequestException;
+import com.redis.cluster.support.ClusterSlots;
+import com.redis.cluster.support.GeoHash;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 좌표를 geohash 셀 단위로 여러 GEO 키에 나누어 저장하고 주변 검색을 하는 서비스.
+ * <p>
+ * - 위치는 shardPrecision 글자 geohash 셀의 키(geo:{name:cell})에 저장되어 클러스터 슬롯에 분산된다.
+ *   멤버별 현재 셀은 샤드된 hash(geo:{name:members:n})에 보관하여 셀이 바뀌면 이전 셀에서 삭제한다.
+ * - 위치 변경은 batchSize 단위로 GEOADD(새 셀), 현재 셀 교체(스크립트, 이전 셀 반환), ZREM(이전 셀)을 차례로 노드별 파이프라인으로 보낸다.
+ *   이전 셀은 새 셀을 기록하는 스크립트가 원자적으로 돌려주므로 같은 멤버의 셀이 동시에 바뀌어도 각 변경이 서로 다른 이전 셀을 지운다.
+ * - 반경/영역 검색은 영역과 겹치는 셀 키에만 GEORADIUS를 동시에 보내고(ReactiveGeoOperations) 결과를 합친다.
+ *   영역 검색은 영역을 덮는 반경으로 조회한 뒤 영역 밖의 결과를 제외한다.
+ * - 검색 결과는 중심 좌표가 속한 queryCellPrecision 셀 단위로 queryCacheTtl 동안 캐시한다.
+ *   셀 중심에서 (요청 반경 + 셀 반지름)으로 조회한 결과를 공유하고, 요청마다 실제 중심 기준으로 거리를 다시 계산한다.
+ *   조회 결과는 요청 영역 밖의 멤버를 포함하므로 셀 키 조회에는 COUNT를 쓰지 않고 영역 필터와 중복 제거 뒤에 limit을 적용한다.
+ * - 이전 셀 삭제 전에 조회되면 같은 멤버가 두 셀에서 나올 수 있어 합친 결과는 멤버별로 가까운 하나만 남긴다.
+ * <p>
+ * 현재 셀이 아닌 셀에 사본이 남지는 않지만, 이전 셀을 지우는 사이 멤버가 그 셀로 다시 저장되면 사본이 지워질 수 있다.
+ * (다음 위치 변경에서 다시 저장됨)
+ */
+@Service
+public class GeoShardService {
+
+    // Redis GEO 거리 계산과 같은 지구 반지름
+    private static final double EARTH_RADIUS_METERS = 6372797.560856;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+    private static final long TIMEOUT_MILLIS = 5000;
+    // ARGV: member, cell 쌍. 현재 셀을 새 셀로 바꾸고 이전 셀(없으면 '')을 순서대로 반환
+    private static final String SWAP_CELLS_SCRIPT =
+            "local previous = {} " +
+            "for i = 1, #ARGV, 2 do " +
+            "  previous[#previous + 1] = redis.call('hget', KEYS[1], ARGV[i]) or '' " +
+            "  redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) " +
+            "end " +
+            "return previous";
+    // ARGV: member. 현재 셀을 지우고 이전 셀(없으면 '')을 순서대로 반환
+    private static final String REMOVE_CELLS_SCRIPT =
+            "local previous = {} " +
+            "for i = 1, #ARGV do " +
+            "  previous[i] = redis.call('hget', KEYS[1], ARGV[i]) or '' " +
+            "  redis.call('hdel', KEYS[1], ARGV[i]) " +
+            "end " +
+            "return previous";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+    private final int shardPrecision;
+    private final int memberIndexShards;
+    private final int maxShardsPerQuery;
+    private final int batchSize;
+    private final int queryCellPrecision;
+    private final Cache<GeoQuery, Mono<List<GeoNearby>>> queryCache;
+    private final Counter queryLoads;
+    private final DistributionSummary queryShards;
+
+    public GeoShardService(RedisConnectionFactory connectionFactory, ReactiveRedisConnectionFactory reactiveConnectionFactory,
+                           MeterRegistry meterRegistry,
+                           @Value("${geo.shard-precision:3}") int shardPrecision,
+                           @Value("${geo.member-index-shards:16}") int memberIndexShards,
+                           @Value("${geo.max-shards-per-query:64}") int maxShardsPerQuery,
+                           @Value("${geo.batch-size:500}") int batchSize,
+                           @Value("${geo.query-cache.cell-precision:7}") int queryCellPrecision,
+                           @Value("${geo.query-cache.ttl-ms:1000}") long queryCacheTtlMillis,
+                           @Value("${geo.query-cache.max-size:10000}") long queryCacheMaxSize) {
+        this.connectionFactory = connectionFactory;
+        this.reactiveStringRedisTemplate = new ReactiveStringRedisTemplate(reactiveConnectionFactory);
+        this.shardPrecision = shardPrecision;
+        this.memberIndexShards = memberIndexShards;
+        this.maxShardsPerQuery = maxShardsPerQuery;
+        this.batchSize = batchSize;
+        this.queryCellPrecision = queryCellPrecision;
+        this.queryCache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(queryCacheTtlMillis))
+                .maximumSize(queryCacheMaxSize)
+                .build();
+        this.queryLoads = Counter.builder("geo.query.loads")
+                .description("Nearby queries sent to Redis (query cache misses)")
+                .register(meterRegistry);
+        this.queryShards = DistributionSummary.builder("geo.query.shards")
+                .description("Geo shard keys queried per nearby query")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 위치 저장. 셀이 바뀐 멤버는 이전 셀에서 삭제한다.
+     */
+    public void updatePositions(String name, Collection<GeoPosition> positions) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            // 같은 멤버는 마지막 위치만 사용
+            List<GeoPosition> values = new ArrayList<>(positions.stream()
+                    .collect(Collectors.toMap(GeoPosition::getMember, position -> position, (first, last) -> last, LinkedHashMap::new))
+                    .values());
+            for (int from = 0; from < values.size(); from += batchSize) {
+                List<GeoPosition> batch = values.subList(from, Math.min(from + batchSize, values.size()));
+                Map<String, List<Object>> added = new HashMap<>();
+                Map<String, String> cells = new HashMap<>();
+                for (GeoPosition position : batch) {
+                    String cell = GeoHash.encode(position.getLat(), position.getLng(), shardPrecision);
+                    added.computeIfAbsent(cell, c -> new ArrayList<>()).addAll(Arrays.asList(position.getLng(), position.getLat(), bytes(position.getMember())));
+                    cells.put(position.getMember(), cell);
+                }
+                // 새 셀에 저장된 뒤에 현재 셀을 바꿔야 다른 변경이 이 셀을 이전 셀로 받아 지울 때 남는 사본이 없다.
+                List<RedisFuture<?>> futures = new ArrayList<>();
+                added.forEach((cell, lngLatMembers) -> futures.add(commands.geoadd(cellKey(name, cell), lngLatMembers.toArray())));
+                awaitAll(futures);
+
+                Map<String, String> previousCells = swapCells(commands, name, SWAP_CELLS_SCRIPT, cells.keySet(),
+                        member -> new byte[][]{bytes(member), bytes(cells.get(member))});
+                Map<String, List<byte[]>> removed = new HashMap<>();
+                previousCells.forEach((member, previous) -> {
+                    if (!previous.equals(cells.get(member)))
+                        removed.computeIfAbsent(previous, c -> new ArrayList<>()).add(bytes(member));
+                });
+                deleteFromCells(commands, name, removed);
+            }
+        }
+    }
+
+    public void remove(String name, Collection<String> members) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            Map<String, String> previousCells = swapCells(commands, name, REMOVE_CELLS_SCRIPT, new HashSet<>(members),
+                    member -> new byte[][]{bytes(member)});
+            Map<String, List<byte[]>> removed = new HashMap<>();
+            previousCells.forEach((member, previous) -> removed.computeIfAbsent(previous, c -> new ArrayList<>()).add(bytes(member)));
+            deleteFromCells(commands, name, removed);
+        }
+    }
+
+    /**
+     * 중심에서 radiusMeters 안의 멤버를 가까운 순으로 최대 limit 건
+     */
+    public Mono<List<GeoNearby>> radius(String name, double lng, double lat, double radiusMeters, int limit) {
+        if (radiusMeters < 0)
+            throw new InvalidRequestException("radius must not be negative: " + radiusMeters);
+        return nearby(name, lng, lat, radiusMeters, limit, nearby -> nearby.getDistance() <= radiusMeters);
+    }
+
+    /**
+     * 중심에서 동서 widthMeters, 남북 heightMeters 영역 안의 멤버를 가까운 순으로 최대 limit 건
+     */
+    public Mono<List<GeoNearby>> box(String name, double lng, double lat, double widthMeters, double heightMeters, int limit) {
+        if (widthMeters < 0 || heightMeters < 0)
+            throw new InvalidRequestException("width and height must not be negative: " + widthMeters + ", " + heightMeters);
+        double halfDiagonal = Math.hypot(widthMeters, heightMeters) / 2;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        return nearby(name, lng, lat, halfDiagonal, limit, nearby ->
+                Math.abs(nearby.getLat() - lat) * METERS_PER_DEGREE <= heightMeters / 2
+                        && Math.abs(nearby.getLng() - lng) * METERS_PER_DEGREE * cosLat <= widthMeters / 2);
+    }
+
+    private Mono<List<GeoNearby>> nearby(String name, double lng, double lat, double radiusMeters, int limit, Predicate<GeoNearby> filter) {
+        if (limit <= 0)
+            throw new InvalidRequestException("limit must be positive: " + limit);
+        double[] center = GeoHash.cellCenter(lat, lng, queryCellPrecision);
+        double cellRadius = Math.hypot(GeoHash.cellHeight(queryCellPrecision),
+                GeoHash.cellWidth(queryCellPrecision) * Math.cos(Math.toRadians(center[0]))) / 2 * METERS_PER_DEGREE;
+        // limit과 무관하게 같은 셀 중심과 반경의 검색이 조회 결과를 공유한다.
+        GeoQuery query = new GeoQuery(name, center[0], center[1], radiusMeters + cellRadius);
+        // 검색 영역이 너무 넓으면 load에서 InvalidRequestException
+        return Mono.defer(() -> queryCache.get(query, this::load))
+                .map(results -> results.stream()
+                        .map(result -> new GeoNearby(result.getMember(), result.getLng(), result.getLat(), distance(lat, lng, result.getLat(), result.getLng())))
+                        .filter(filter)
+                        .sorted(Comparator.comparingDouble(GeoNearby::getDistance))
+                        // 셀 이동 중 두 셀에 있는 멤버는 가까운 하나만
+                        .collect(Collectors.toMap(GeoNearby::getMember, nearby -> nearby, (closer, farther) -> closer, LinkedHashMap::new))
+                        .values().stream()
+                        .limit(limit)
+                        .collect(Collectors.toList()));
+    }
+
+    // 겹치는 셀 키에 동시에 조회. 결과를 공유하도록 cache() 하며 실패하면 캐시에서 제거
+    private Mono<List<GeoNearby>> load(GeoQuery query) {
+        double latDelta = query.radiusMeters / METERS_PER_DEGREE;
+        double lngDelta = latDelta / Math.max(Math.cos(Math.toRadians(query.lat)), 0.01);
+        Set<String> cells;
+        try {
+            cells = GeoHash.covering(query.lat - latDelta, query.lng - lngDelta, query.lat + latDelta, query.lng + lngDelta,
+                    shardPrecision, maxShardsPerQuery);
+        } catch (IllegalArgumentException e) {
+            // 검색 영역이 너무 넓음
+            throw new InvalidRequestException(e.getMessage());
+        }
+        queryLoads.increment();
+        queryShards.record(cells.size());
+
+        Circle within = new Circle(new Point(query.lng, query.lat), new Distance(query.radiusMeters, Metrics.METERS));
+        // COUNT를 주면 셀 중심 기준 상위 건이 영역 밖이라 걸러졌을 때 결과가 모자란다. 정렬과 limit은 nearby에서
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .includeCoordinates().includeDistance();
+        List<Flux<GeoNearby>> shards = new ArrayList<>(cells.size());
+        for (String cell : cells)
+            shards.add(reactiveStringRedisTemplate.opsForGeo().radius(cellKey(query.name, cell), within, args)
+                    .map(result -> new GeoNearby(result.getContent().getName(), result.getContent().getPoint().getX(),
+                            result.getContent().getPoint().getY(), result.getDistance().getValue())));
+        return Flux.merge(shards)
+                .collectList()
+                .doOnError(e -> queryCache.invalidate(query))
+                .cache();
+    }
+
+    // 인덱스 샤드별로 script를 실행하고 멤버 -> 이전 셀을 반환. 이전 셀이 없던 멤버는 없다.
+    private Map<String, String> swapCells(RedisClusterAsyncCommands<byte[], byte[]> commands, String name, String script,
+                                          Collection<String> members, Function<String, byte[][]> memberArgs) {
+        Map<Integer, List<String>> membersByShard = new HashMap<>();
+        for (String member : members)
+            membersByShard.computeIfAbsent(memberIndexShard(member), s -> new ArrayList<>()).add(member);
+        Map<Integer, RedisFuture<List<Object>>> futures = new HashMap<>();
+        membersByShard.forEach((shard, shardMembers) -> futures.put(shard, commands.eval(script, ScriptOutputType.MULTI,
+                new byte[][]{memberIndexKey(name, shard)},
+                shardMembers.stream().flatMap(member -> Arrays.stream(memberArgs.apply(member))).toArray(byte[][]::new))));
+        awaitAll(new ArrayList<>(futures.values()));
+
+        Map<String, String> cells = new HashMap<>();
+        futures.forEach((shard, future) -> {
+            List<String> shardMembers = membersByShard.get(shard);
+            List<Object> values = getNow(future);
+            for (int i = 0; i < values.size(); i++) {
+                byte[] value = (byte[]) values.get(i);
+                if (value.length > 0)
+                    cells.put(shardMembers.get(i), new String(value, StandardCharsets.UTF_8));
+            }
+        });
+        return cells;
+    }
+
+    private void deleteFromCells(RedisClusterAsyncCommands<byte[], byte[]> commands, String name, Map<String, List<byte[]>> membersByCell) {
+        List<RedisFuture<?>> futures = new ArrayList<>();
+        membersByCell.forEach((cell, members) -> futures.add(commands.zrem(cellKey(name, cell), members.toArray(new byte[0][]))));
+        awaitAll(futures);
+    }
+
+    private byte[] cellKey(String name, String cell) {
+        return bytes("geo:{" + name + ":" + cell + "}");
+    }
+
+    private byte[] memberIndexKey(String name, int shard) {
+        return bytes("geo:{" + name + ":members:" + shard + "}");
+    }
+
+    private int memberIndexShard(String member) {
+        return Math.floorMod(member.hashCode(), memberIndexShards);
+    }
+
+    // haversine (m)
+    private static double distance(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLng / 2), 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    private void awaitAll(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0])))
+            throw new IllegalStateException("Timeout waiting for geo commands");
+    }
+
+    private <T> T getNow(RedisFuture<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not update geo member index", e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @EqualsAndHashCode
+    private static class GeoQuery {
+        private final String name;
+        private final double lat;
+        private final double lng;
+        private final double radiusMeters;
+
+        GeoQuery(String name, double lat, double lng, double radiusMeters) {
+            this.name = name;
+            this.lat = lat;
+            this.lng = lng;
+            this.radiusMeters = radiusMeters;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.cache.CacheInvalidationPublisher;
+import com.redis.cluster.cache.Caches;
+import com.redis.cluster.cache.NearCache;
+import com.redis.cluster.cache.RedisHashCache;
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RedisController의 @Cacheable/@CachePut/@CacheEvict와 동일한 cache-aside를 논블로킹으로 처리한다.
+ * <p>
+ * - 캐시는 ReactiveRedisTemplate으로 user 캐시와 같은 키/포맷을 사용
+ * - 블로킹 JPA 호출은 크기가 제한된 전용 스케줄러에서 실행
+ * - 조회 미스시 캐시 저장은 응답을 기다리지 않고 비동기로 처리
+ * - 동일 키의 동시 미스는 하나의 DB 조회로 합친다. (sync = true와 동일)
+ * - 없는 회원은 MVC와 같이 Bloom filter와 tombstone으로 Redis/DB 조회 없이 응답한다. (UserExistenceFilter)
+ * - write-behind 모드에서 기존 회원의 수정은 MVC와 같이 변경 로그에 기록하고, 미스시 반영 대기중인 변경을 DB보다 먼저 읽는다.
+ */
+@Slf4j
+@Service
+public class ReactiveUserService {
+
+    private final ReactiveRedisTemplate<String, Object> reactiveCacheRedisTemplate;
+    private final UserJpaRepo userJpaRepo;
+    private final UserWriteBehindService userWriteBehindService;
+    private final UserExistenceFilter userExistenceFilter;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final RedisCacheConfiguration configuration;
+    private final Scheduler jdbcScheduler;
+    private final ConcurrentMap<Long, Mono<User>> loads = new ConcurrentHashMap<>();
+
+    public ReactiveUserService(ReactiveRedisTemplate<String, Object> reactiveCacheRedisTemplate, UserJpaRepo userJpaRepo,
+                               UserWriteBehindService userWriteBehindService, UserExistenceFilter userExistenceFilter,
+                               CacheManager cacheManager, RedisCacheManager redisCacheManager,
+                               CacheInvalidationPublisher cacheInvalidationPublisher,
+                               @Value("${reactive.jdbc.pool-size:10}") int poolSize,
+                               @Value("${reactive.jdbc.queue-size:1000}") int queueSize) {
+        this.reactiveCacheRedisTemplate = reactiveCacheRedisTemplate;
+        this.userJpaRepo = userJpaRepo;
+        this.userWriteBehindService = userWriteBehindService;
+        this.userExistenceFilter = userExistenceFilter;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+        this.configuration = ((RedisCache) redisCacheManager.getCache(CacheKey.USER)).getCacheConfiguration();
+        AtomicInteger threadCount = new AtomicInteger();
+        // 큐가 가득 차면 RejectedExecutionException으로 즉시 실패시켜 DB 과부하를 막는다.
+        this.jdbcScheduler = Schedulers.fromExecutorService(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> new Thread(runnable, "reactive-jdbc-" + threadCount.incrementAndGet())));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jdbcScheduler.dispose();
+    }
+
+    // Bloom filter에 없는 msrl은 캐시(Redis)와 DB를 조회하지 않는다. (MVC의 condition과 같음)
+    public Mono<User> findOne(long msrl) {
+        if (!userExistenceFilter.mightContain(msrl))
+            return Mono.empty();
+        String key = cacheKey(msrl);
+        return reactiveCacheRedisTemplate.opsForValue().get(key)
+                .cast(User.class)
+                .onErrorResume(e -> {
+                    // 캐시 장애시 DB에서 조회
+                    log.warn("Could not read {} - {}", key, e.getMessage());
+                    return Mono.empty();
+                })
+                .switchIfEmpty(Mono.defer(() -> loads.computeIfAbsent(msrl, id -> load(id, key))));
+    }
+
+    public Mono<User> putUser(User user) {
+        // 기존 회원이면 변경 로그로 기록하여 반영 대기중인 이전 변경이 나중에 덮어쓰지 않게 한다.
+        Mono<Optional<User>> before = userWriteBehindService.isEnabled()
+                ? findOne(user.getMsrl()).map(Optional::of).defaultIfEmpty(Optional.empty())
+                : Mono.just(Optional.empty());
+        return before
+                .flatMap(existing -> Mono.fromCallable(() -> save(user, existing.orElse(null)))
+                        .subscribeOn(jdbcScheduler))
+                .flatMap(saved -> reactiveCacheRedisTemplate.opsForValue().set(cacheKey(saved.getMsrl()), saved, configuration.getTtl())
+                        .then(deleteHashKey(saved.getMsrl()))
+                        .then(invalidateLocal(saved.getMsrl()))
+                        .thenReturn(saved));
+    }
+
+    public Mono<Boolean> deleteUser(long msrl) {
+        return Mono.fromRunnable(() -> delete(msrl))
+                .subscribeOn(jdbcScheduler)
+                .then(reactiveCacheRedisTemplate.delete(cacheKey(msrl)))
+                .then(deleteHashKey(msrl))
+                .then(invalidateLocal(msrl))
+                .thenReturn(true);
+    }
+
+    // 기존 회원인지 모르면(새로 등록될 수 있으면) MVC와 같이 Bloom filter에 추가한다.
+    private User save(User user, User before) {
+        if (before != null)
+            return userWriteBehindService.save(user, before);
+        User saved = userJpaRepo.save(user);
+        userExistenceFilter.add(saved.getMsrl());
+        return saved;
+    }
+
+    // 반영 대기중인 변경도 더 이상 조회되지 않게 한다.
+    private void delete(long msrl) {
+        userJpaRepo.deleteById(msrl);
+        userWriteBehindService.discard(msrl);
+        userExistenceFilter.tombstone(msrl);
+    }
+
+    private Mono<User> load(long msrl, String key) {
+        // 없는 회원은 tombstone으로 DB 조회 없이 응답하고, DB에 없으면 tombstone을 남긴다. (MVC 로더와 같음)
+        return Mono.fromCallable(() -> userExistenceFilter.load(msrl, () -> userWriteBehindService.findById(msrl).orElse(null)))
+                .subscribeOn(jdbcScheduler)
+                .doOnNext(user -> writeBack(key, user))
+                .doFinally(signal -> loads.remove(msrl))
+                .cache();
+    }
+
+    private void writeBack(String key, User user) {
+        reactiveCacheRedisTemplate.opsForValue().set(key, user, configuration.getTtl())
+                .subscribe(ok -> {
+                }, e -> log.warn("Could not write {} - {}", key, e.getMessage()));
+    }
+
+    // 현재 인스턴스 및 다른 인스턴스의 로컬(L1) 캐시 제거
+    private Mono<Void> invalidateLocal(long msrl) {
+        return Mono.defer(() -> {
+            Cache cache = cacheManager.getCache(CacheKey.USER);
+            if (cache instanceof NearCache)
+                ((NearCache) cache).evictLocal(msrl);
+            return cacheInvalidationPublisher.publishAsync(CacheKey.USER, msrl);
+        });
+    }
+
+    // user 캐시가 hash 모드이면 hash 키도 제거하여 MVC 경로가 오래된 값을 읽지 않게 한다.
+    private Mono<Long> deleteHashKey(long msrl) {
+        RedisHashCache hashCache = Caches.unwrap(cacheManager.getCache(CacheKey.USER), RedisHashCache.class);
+        return hashCache == null ? Mono.just(0L) : reactiveCacheRedisTemplate.delete(hashCache.keyOf(msrl));
+    }
+
+    private String cacheKey(long msrl) {
+        return configuration.getKeyPrefixFor(CacheKey.USER) + msrl;
+    }
+}
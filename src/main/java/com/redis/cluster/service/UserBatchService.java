@@ -0,0 +1,183 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.cache.Caches;
+import com.redis.cluster.cache.RedisHashCache;
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.common.InvalidRequestException;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.support.BulkEntry;
+import com.redis.cluster.support.BulkWriteResult;
+import com.redis.cluster.support.ClusterBulkWriter;
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 회원을 한번에 조회하는 cache-aside 로더.
+ * 캐시 키를 클러스터 슬롯별로 묶어 슬롯당 MGET 한번을 비동기로 보내고(노드별 파이프라인),
+ * 캐시에 없는 회원은 findAllById 한번으로 조회하여 USER TTL로 다시 캐시에 저장한다. (ClusterBulkWriter)
+ * <p>
+ * user 캐시가 hash 모드(RedisHashCache)이면 HGETALL/HMSET 파이프라인으로 같은 방식의 일괄 조회/저장을 한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class UserBatchService {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final CacheManager cacheManager;
+    private final RedisCacheManager redisCacheManager;
+    private final UserWriteBehindService userWriteBehindService;
+    private final ClusterBulkWriter clusterBulkWriter;
+
+    public List<User> findAll(Collection<Long> msrls) {
+        if (msrls.size() > MAX_BATCH_SIZE)
+            throw new InvalidRequestException("batch size must be less than or equal to " + MAX_BATCH_SIZE);
+        Set<Long> ids = new LinkedHashSet<>(msrls);
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        RedisHashCache hashCache = Caches.unwrap(cacheManager.getCache(CacheKey.USER), RedisHashCache.class);
+        Map<Long, User> users = hashCache != null ? findAllHash(hashCache, ids) : findAllString(ids);
+
+        List<User> result = new ArrayList<>(users.size());
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user != null)
+                result.add(user);
+        }
+        return result;
+    }
+
+    /**
+     * 회원들을 user 캐시와 같은 키/포맷으로 노드별 파이프라인 저장 (hash 모드이면 Lua 파이프라인)
+     * 캐시에 없는 회원만 채운다. 이미 있는 값은 그 사이 @CachePut으로 바뀐 더 최신 값일 수 있다.
+     */
+    public void cacheAll(Collection<User> users) {
+        if (users.isEmpty())
+            return;
+        RedisHashCache hashCache = Caches.unwrap(cacheManager.getCache(CacheKey.USER), RedisHashCache.class);
+        if (hashCache != null) {
+            Map<Long, User> values = new LinkedHashMap<>();
+            for (User user : users)
+                values.put(user.getMsrl(), user);
+            hashCache.putAllIfAbsent(values);
+        } else {
+            writeCache(userCacheConfiguration(), users);
+        }
+    }
+
+    private Map<Long, User> findAllHash(RedisHashCache hashCache, Set<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        hashCache.getAll(ids).forEach((id, user) -> users.put((Long) id, (User) user));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids)
+            if (!users.containsKey(id))
+                missing.add(id);
+        if (!missing.isEmpty()) {
+            Map<Long, User> loaded = new HashMap<>();
+            for (User user : userWriteBehindService.findAllById(missing))
+                loaded.put(user.getMsrl(), user);
+            users.putAll(loaded);
+            hashCache.putAllIfAbsent(loaded);
+        }
+        return users;
+    }
+
+    private Map<Long, User> findAllString(Set<Long> ids) {
+        RedisCacheConfiguration configuration = userCacheConfiguration();
+        Map<Long, User> users = new HashMap<>();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+            readCache(commands, configuration, ids, users);
+
+            List<Long> missing = new ArrayList<>();
+            for (Long id : ids)
+                if (!users.containsKey(id))
+                    missing.add(id);
+            if (!missing.isEmpty()) {
+                List<User> loaded = userWriteBehindService.findAllById(missing);
+                for (User user : loaded)
+                    users.put(user.getMsrl(), user);
+                writeCache(configuration, loaded);
+            }
+        }
+        return users;
+    }
+
+    private void readCache(RedisClusterAsyncCommands<byte[], byte[]> commands, RedisCacheConfiguration configuration,
+                           Set<Long> ids, Map<Long, User> users) {
+        List<byte[]> keys = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            keys.add(cacheKey(configuration, id));
+
+        List<RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = new ArrayList<>();
+        for (List<byte[]> slotKeys : ClusterSlots.groupBySlot(keys).values())
+            futures.add(commands.mget(slotKeys.toArray(new byte[0][])));
+        if (!LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0])))
+            throw new IllegalStateException("Timeout reading user cache");
+
+        for (RedisFuture<List<KeyValue<byte[], byte[]>>> future : futures) {
+            // mget 응답은 요청한 키 순서를 유지한다.
+            for (KeyValue<byte[], byte[]> keyValue : getNow(future)) {
+                if (!keyValue.hasValue())
+                    continue;
+                try {
+                    Object value = configuration.getValueSerializationPair().read(ByteBuffer.wrap(keyValue.getValue()));
+                    if (value instanceof User)
+                        users.put(((User) value).getMsrl(), (User) value);
+                } catch (Exception e) {
+                    // 읽을 수 없는 값은 DB에서 다시 로딩한다.
+                    log.warn("Could not read cached user - {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    // DB에서 읽은 값으로 비어있는 키만 채운다. (SET NX)
+    private void writeCache(RedisCacheConfiguration configuration, Collection<User> users) {
+        List<BulkEntry> entries = new ArrayList<>(users.size());
+        for (User user : users)
+            entries.add(BulkEntry.ifAbsent(cacheKey(configuration, user.getMsrl()),
+                    ClusterSlots.toBytes(configuration.getValueSerializationPair().write(user)), configuration.getTtl()));
+        BulkWriteResult result = clusterBulkWriter.writeAll(entries);
+        if (!result.isSuccess())
+            log.warn("Could not cache users - {}", result.getFailures());
+    }
+
+    private RedisCacheConfiguration userCacheConfiguration() {
+        return ((RedisCache) redisCacheManager.getCache(CacheKey.USER)).getCacheConfiguration();
+    }
+
+    // RedisCache와 동일한 키 (prefix + msrl)
+    private byte[] cacheKey(RedisCacheConfiguration configuration, long msrl) {
+        return (configuration.getKeyPrefixFor(CacheKey.USER) + msrl).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private <T> T getNow(RedisFuture<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not read user cache", e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * user 캐시 warm-up. 배포나 클러스터 failover 직후 캐시가 비어 DB로 조회가 몰리는 것을 줄인다.
+ * <p>
+ * 1. hot list(msrl 목록 파일)에 있는 회원을 먼저 적재
+ * 2. 이후 전체 회원을 msrl 기준 keyset 페이지로 읽어서 적재
+ * <p>
+ * 적재는 UserBatchService.cacheAll(ClusterBulkWriter 노드별 병렬 파이프라인)을 사용하며 초당 rate건으로 제한한다.
+ * 캐시에 없는 키만 채우므로 warm-up 중에 수정되어 캐시된 값을 덮어쓰지 않는다.
+ * 기동시 실행(cache.warmup.on-startup)하면 startupDeadline 까지만 기동을 지연시키고 이후는 백그라운드에서 계속한다.
+ * 진행상황은 cache.warmup.* 지표와 GET /cache/warmup으로 확인한다.
+ */
+@Slf4j
+@Service
+public class UserCacheWarmupService implements ApplicationRunner {
+
+    private final UserJpaRepo userJpaRepo;
+    private final UserBatchService userBatchService;
+    private final UserWriteBehindService userWriteBehindService;
+    private final ResourceLoader resourceLoader;
+    private final boolean onStartup;
+    private final String hotList;
+    private final int pageSize;
+    private final int rate;
+    private final long startupDeadlineSec;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-warmup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong loaded = new AtomicLong();
+    private volatile CacheWarmupProgress.State state = CacheWarmupProgress.State.IDLE;
+    private volatile long lastMsrl;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private Future<?> job;
+
+    public UserCacheWarmupService(UserJpaRepo userJpaRepo, UserBatchService userBatchService, UserWriteBehindService userWriteBehindService,
+                                  ResourceLoader resourceLoader,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${cache.warmup.on-startup:false}") boolean onStartup,
+                                  @Value("${cache.warmup.hot-list:}") String hotList,
+                                  @Value("${cache.warmup.page-size:500}") int pageSize,
+                                  @Value("${cache.warmup.rate:5000}") int rate,
+                                  @Value("${cache.warmup.startup-deadline-sec:30}") long startupDeadlineSec) {
+        this.userJpaRepo = userJpaRepo;
+        this.userBatchService = userBatchService;
+        this.userWriteBehindService = userWriteBehindService;
+        this.resourceLoader = resourceLoader;
+        this.onStartup = onStartup;
+        this.hotList = hotList;
+        this.pageSize = Math.min(pageSize, UserBatchService.MAX_BATCH_SIZE);
+        this.rate = rate;
+        this.startupDeadlineSec = startupDeadlineSec;
+        Gauge.builder("cache.warmup.loaded", loaded, AtomicLong::get).tag("cache", "user").register(meterRegistry);
+        Gauge.builder("cache.warmup.running", this, service -> service.state == CacheWarmupProgress.State.RUNNING ? 1 : 0)
+                .tag("cache", "user").register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!onStartup)
+            return;
+        Future<?> started = start();
+        try {
+            started.get(startupDeadlineSec, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.info("Cache warm-up continues in background after {}s - {} users loaded", startupDeadlineSec, loaded.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Cache warm-up failed - {}", e.getCause().getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * warm-up 시작. 이미 진행중이면 진행중인 작업을 반환한다.
+     */
+    public synchronized Future<?> start() {
+        if (job != null && !job.isDone())
+            return job;
+        loaded.set(0);
+        lastMsrl = 0;
+        startedAt = System.currentTimeMillis();
+        finishedAt = null;
+        state = CacheWarmupProgress.State.RUNNING;
+        job = executor.submit(this::warmup);
+        return job;
+    }
+
+    public CacheWarmupProgress getProgress() {
+        return new CacheWarmupProgress(state, loaded.get(), lastMsrl, startedAt, finishedAt);
+    }
+
+    private void warmup() {
+        long begin = System.nanoTime();
+        try {
+            List<Long> hot = readHotList();
+            for (int from = 0; from < hot.size() && !Thread.currentThread().isInterrupted(); from += pageSize) {
+                load(userJpaRepo.findAllById(hot.subList(from, Math.min(from + pageSize, hot.size()))));
+                throttle(begin);
+            }
+
+            // keyset 페이지: msrl > lastMsrl order by msrl limit pageSize
+            while (!Thread.currentThread().isInterrupted()) {
+                List<User> users = userJpaRepo.findByMsrlGreaterThanOrderByMsrlAsc(lastMsrl, PageRequest.of(0, pageSize));
+                if (users.isEmpty())
+                    break;
+                load(users);
+                lastMsrl = users.get(users.size() - 1).getMsrl();
+                throttle(begin);
+            }
+            // 중단(취소, 종료)되어 루프를 빠져나왔으면 완료가 아니다.
+            state = Thread.currentThread().isInterrupted() ? CacheWarmupProgress.State.CANCELLED : CacheWarmupProgress.State.COMPLETED;
+            log.info("Cache warm-up {} - {} users in {}ms", state == CacheWarmupProgress.State.CANCELLED ? "cancelled" : "completed",
+                    loaded.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (RuntimeException e) {
+            state = CacheWarmupProgress.State.FAILED;
+            log.error("Cache warm-up failed after {} users - {}", loaded.get(), e.getMessage());
+            throw e;
+        } finally {
+            finishedAt = System.currentTimeMillis();
+        }
+    }
+
+    // 반영 대기중인 변경이 있는 회원은 변경 값으로 적재
+    private void load(List<User> users) {
+        userBatchService.cacheAll(userWriteBehindService.withPending(users));
+        loaded.addAndGet(users.size());
+    }
+
+    // 적재한 건수 기준으로 초당 rate건이 되도록 대기
+    private void throttle(long begin) {
+        if (rate <= 0)
+            return;
+        long wait = begin + loaded.get() * TimeUnit.SECONDS.toNanos(1) / rate - System.nanoTime();
+        if (wait <= 0)
+            return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 한 줄에 msrl 하나. 빈 줄과 #으로 시작하는 줄은 무시
+    private List<Long> readHotList() {
+        List<Long> msrls = new ArrayList<>();
+        if (hotList == null || hotList.isEmpty())
+            return msrls;
+        Resource resource = resourceLoader.getResource(hotList);
+        if (!resource.exists()) {
+            log.warn("Cache warm-up hot list not found - {}", hotList);
+            return msrls;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#"))
+                    msrls.add(Long.parseLong(line));
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Could not read cache warm-up hot list {} - {}", hotList, e.getMessage());
+        }
+        return msrls;
+    }
+}
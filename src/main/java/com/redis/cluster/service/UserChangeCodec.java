@@ -0,0 +1,68 @@
+package com.redis.cluster.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * write-behind 변경 로그의 회원 포맷. 캐시 serializer와 달리 모드 전환(JDK_COMPAT -> COMPACT)에 따라 읽을 수 있는 포맷이 바뀌지 않는다.
+ * <p>
+ * 포맷 : [version 1byte][Smile(회원 필드)]
+ * version이 없는 값은 이전 버전이 캐시 serializer로 기록한 로그이므로 캐시 serializer로 읽는다. (현재 모드에서 못 읽으면 SerializationException)
+ */
+class UserChangeCodec {
+
+    private static final byte VERSION = 1;
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final CompactRedisSerializer legacySerializer;
+
+    UserChangeCodec(CompactRedisSerializer legacySerializer) {
+        ObjectMapper objectMapper = new ObjectMapper(new SmileFactory())
+                // API 응답용 Jackson 어노테이션(WRITE_ONLY 등)과 무관하게 모든 필드를 기록한다.
+                .disable(MapperFeature.USE_ANNOTATIONS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        this.reader = objectMapper.readerFor(User.class);
+        this.writer = objectMapper.writerFor(User.class);
+        this.legacySerializer = legacySerializer;
+    }
+
+    byte[] encode(User user) {
+        try {
+            byte[] payload = writer.writeValueAsBytes(user);
+            byte[] bytes = new byte[payload.length + 1];
+            bytes[0] = VERSION;
+            System.arraycopy(payload, 0, bytes, 1, payload.length);
+            return bytes;
+        } catch (Exception e) {
+            throw new SerializationException("Could not write user " + user.getMsrl(), e);
+        }
+    }
+
+    User decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0)
+            throw new SerializationException("Empty user change");
+        if (bytes[0] != VERSION) {
+            Object legacy = legacySerializer.deserialize(bytes);
+            if (!(legacy instanceof User))
+                throw new SerializationException("Not a user change : " + (legacy == null ? null : legacy.getClass().getName()));
+            return (User) legacy;
+        }
+        try {
+            return reader.readValue(bytes, 1, bytes.length - 1);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read user change", e);
+        }
+    }
+}
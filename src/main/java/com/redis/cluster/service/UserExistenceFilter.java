@@ -0,0 +1,299 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import com.redis.cluster.support.BloomFilter;
+import com.redis.cluster.support.ClusterSlots;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 존재하는 회원 msrl의 Bloom filter. 없는 msrl 조회(ID 대입 크롤링 등)를 Redis/DB 조회 없이 응답한다. (user.existence-filter.enabled)
+ * <p>
+ * - 원본은 Redis 비트맵({bloom:user})이고 각 인스턴스는 로컬 사본으로 판단한다. 사본은 sync 주기로 Redis 비트맵과 합치며,
+ *   다른 인스턴스에서 추가된 msrl은 채널(bloom:user:added)로 받아 바로 반영한다.
+ * - 회원 등록시 로컬/Redis 비트를 켜고(SETBIT 파이프라인), 삭제된 회원은 Bloom filter에서 뺄 수 없으므로
+ *   짧은 TTL의 tombstone(user:tombstone:{msrl})으로 DB 조회를 막고 다음 재생성에서 제거된다.
+ * - 재생성은 테이블을 msrl 순으로 읽어 임시 키에 저장한 뒤 RENAME으로 교체하고 버전을 올린다. 버전이 바뀌면 각 인스턴스는 사본을 교체하고
+ *   최근 추가된 msrl({bloom:user}:recent, 모든 인스턴스 공유)을 다시 반영한다. 재생성 중 다른 인스턴스에서 추가된 msrl도 잃지 않는다.
+ * - 비트맵이 아직 없거나 설정된 크기와 다르면 모든 msrl이 있을 수 있다고 판단한다. (fail open)
+ */
+@Slf4j
+@Service
+public class UserExistenceFilter implements MessageListener {
+
+    private static final String FILTER_KEY = "{bloom:user}";
+    private static final String TMP_KEY = FILTER_KEY + ":tmp";
+    private static final String VERSION_KEY = FILTER_KEY + ":version";
+    private static final String LOCK_KEY = FILTER_KEY + ":lock";
+    // 최근 추가된 msrl (score: 추가 시각). 재생성 중 추가된 msrl을 새 비트맵에 다시 반영하기 위해 보관
+    private static final String RECENT_KEY = FILTER_KEY + ":recent";
+    private static final String ADDED_CHANNEL = "bloom:user:added";
+    private static final String SWAP_SCRIPT = "redis.call('rename', KEYS[1], KEYS[2]) return redis.call('incr', KEYS[3])";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+    private static final int PAGE_SIZE = 1000;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisMessageListenerContainer redisMessageListener;
+    private final UserJpaRepo userJpaRepo;
+    private final boolean enabled;
+    private final long bits;
+    private final int hashes;
+    private final long syncIntervalSec;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Counter rejected;
+    private final Counter tombstoned;
+    private volatile BloomFilter filter;
+    private volatile long version = -1;
+    private ScheduledExecutorService scheduler;
+
+    public UserExistenceFilter(RedisConnectionFactory connectionFactory, RedisMessageListenerContainer redisMessageListener,
+                               UserJpaRepo userJpaRepo, MeterRegistry meterRegistry,
+                               @Value("${user.existence-filter.enabled:false}") boolean enabled,
+                               @Value("${user.existence-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${user.existence-filter.fpp:0.01}") double fpp,
+                               @Value("${user.existence-filter.sync-interval-sec:30}") long syncIntervalSec) {
+        this.connectionFactory = connectionFactory;
+        this.redisMessageListener = redisMessageListener;
+        this.userJpaRepo = userJpaRepo;
+        this.enabled = enabled;
+        this.bits = BloomFilter.optimalBits(expectedInsertions, fpp);
+        this.hashes = BloomFilter.optimalHashes(expectedInsertions, bits);
+        this.syncIntervalSec = syncIntervalSec;
+        Gauge.builder("user.existence-filter.ready", this, service -> service.filter != null ? 1 : 0).register(meterRegistry);
+        this.rejected = Counter.builder("user.existence-filter.rejected")
+                .description("Lookups answered as not found by the bloom filter")
+                .register(meterRegistry);
+        this.tombstoned = Counter.builder("user.existence-filter.tombstoned")
+                .description("Lookups answered as not found by a tombstone")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled)
+            return;
+        redisMessageListener.addMessageListener(this, new ChannelTopic(ADDED_CHANNEL));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-existence-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, 0, syncIntervalSec, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    /**
+     * @return false이면 확실히 없는 회원
+     */
+    public boolean mightContain(long msrl) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(msrl);
+    }
+
+    /**
+     * 캐시 미스시 DB 조회. 없는 회원은 Bloom filter 또는 tombstone으로 DB 조회 없이 null을 반환하고, DB에 없으면 tombstone을 남긴다.
+     */
+    public User load(long msrl, Supplier<User> loader) {
+        if (!mightContain(msrl)) {
+            rejected.increment();
+            return null;
+        }
+        if (enabled && isTombstoned(msrl)) {
+            tombstoned.increment();
+            return null;
+        }
+        User user = loader.get();
+        if (user == null)
+            tombstone(msrl);
+        return user;
+    }
+
+    /**
+     * 등록된 회원 msrl 추가 (로컬, Redis, 다른 인스턴스)
+     */
+    public void add(long msrl) {
+        if (!enabled)
+            return;
+        BloomFilter current = filter;
+        if (current != null)
+            current.put(msrl);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            // 비트보다 먼저 기록해야 그 사이 교체된 비트맵에도 반영된다. (install)
+            connection.zAdd(bytes(RECENT_KEY), System.currentTimeMillis(), bytes(String.valueOf(msrl)));
+            setBits(connection, Collections.singleton(msrl));
+            connection.del(tombstoneKey(msrl));
+            connection.publish(bytes(ADDED_CHANNEL), bytes(String.valueOf(msrl)));
+        } catch (Exception e) {
+            // Redis 비트맵은 다음 재생성에서 복구된다.
+            log.error("Could not add {} to user existence filter - {}", msrl, e.getMessage());
+        }
+    }
+
+    /**
+     * 삭제된(또는 DB에 없는) 회원은 TTL 동안 DB를 조회하지 않는다.
+     */
+    public void tombstone(long msrl) {
+        if (!enabled)
+            return;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.set(tombstoneKey(msrl), bytes("1"), Expiration.seconds(CacheKey.USER_TOMBSTONE_SEC), RedisStringCommands.SetOption.UPSERT);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            BloomFilter current = filter;
+            if (current != null)
+                current.put(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 테이블 전체로 비트맵을 다시 만든다. 삭제된 회원이 제거된다.
+     *
+     * @return 반영된 회원 수. 다른 인스턴스가 재생성 중이면 -1
+     */
+    public CompletableFuture<Long> rebuildAsync() {
+        if (!enabled)
+            return CompletableFuture.completedFuture(-1L);
+        return CompletableFuture.supplyAsync(this::rebuild, scheduler);
+    }
+
+    private long rebuild() {
+        byte[] token = bytes(instanceId);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            if (!Boolean.TRUE.equals(connection.set(bytes(LOCK_KEY), token, Expiration.seconds(600), RedisStringCommands.SetOption.SET_IF_ABSENT)))
+                return -1;
+            try {
+                long started = System.currentTimeMillis();
+                BloomFilter built = new BloomFilter(bits, hashes);
+                long count = 0;
+                long lastMsrl = 0;
+                while (true) {
+                    List<User> users = userJpaRepo.findByMsrlGreaterThanOrderByMsrlAsc(lastMsrl, PageRequest.of(0, PAGE_SIZE));
+                    if (users.isEmpty())
+                        break;
+                    for (User user : users)
+                        built.put(user.getMsrl());
+                    count += users.size();
+                    lastMsrl = users.get(users.size() - 1).getMsrl();
+                }
+                connection.set(bytes(TMP_KEY), built.toByteArray());
+                Long swapped = connection.eval(bytes(SWAP_SCRIPT), ReturnType.INTEGER, 3, bytes(TMP_KEY), bytes(FILTER_KEY), bytes(VERSION_KEY));
+                install(connection, built, swapped);
+                log.info("User existence filter rebuilt - {} users, {} bits, {}ms", count, built.getBits(), System.currentTimeMillis() - started);
+                return count;
+            } finally {
+                connection.eval(bytes(RELEASE_SCRIPT), ReturnType.INTEGER, 1, bytes(LOCK_KEY), token);
+            }
+        }
+    }
+
+    // Redis 비트맵을 로컬 사본에 반영. 비트맵이 없으면 재생성한다.
+    private void sync() {
+        try {
+            byte[] bitmap;
+            byte[] remoteVersion;
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                remoteVersion = connection.get(bytes(VERSION_KEY));
+                bitmap = remoteVersion != null ? connection.get(bytes(FILTER_KEY)) : null;
+                if (remoteVersion == null || bitmap == null) {
+                    filter = null;
+                    rebuild();
+                    return;
+                }
+                if ((long) bitmap.length * 8 > bits) {
+                    log.warn("User existence filter size does not match configuration - rebuild required");
+                    filter = null;
+                    return;
+                }
+                long loadedVersion = Long.parseLong(new String(remoteVersion, StandardCharsets.UTF_8));
+                BloomFilter current = filter;
+                if (current == null || loadedVersion != version)
+                    install(connection, BloomFilter.fromByteArray(bits, hashes, bitmap), loadedVersion);
+                else
+                    current.merge(bitmap);
+                connection.zRemRangeByScore(bytes(RECENT_KEY), Double.NEGATIVE_INFINITY, recentSince());
+            }
+        } catch (Exception e) {
+            log.error("Could not sync user existence filter - {}", e.getMessage());
+        }
+    }
+
+    // 새 비트맵으로 교체하고 최근 추가분을 새 비트맵(로컬, Redis)에 다시 반영한다.
+    // 교체 후에 읽으므로 읽은 뒤에 추가된 msrl은 새 비트맵에 직접 쓰이고 채널로 새 사본에 반영된다.
+    private void install(RedisConnection connection, BloomFilter loaded, long loadedVersion) {
+        filter = loaded;
+        version = loadedVersion;
+        List<Long> adds = new ArrayList<>();
+        for (byte[] member : connection.zRangeByScore(bytes(RECENT_KEY), recentSince(), Double.POSITIVE_INFINITY))
+            adds.add(Long.valueOf(new String(member, StandardCharsets.UTF_8)));
+        adds.forEach(loaded::put);
+        setBits(connection, adds);
+    }
+
+    // 최근 추가분 보관 기간. 동기화 주기의 20배 (재생성 시간보다 길어야 한다)
+    private long recentSince() {
+        return System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(syncIntervalSec) * 20;
+    }
+
+    private void setBits(RedisConnection connection, Collection<Long> msrls) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+        List<RedisFuture<Long>> futures = new ArrayList<>();
+        for (long msrl : msrls)
+            for (long offset : BloomFilter.offsets(msrl, bits, hashes))
+                futures.add(commands.setbit(bytes(FILTER_KEY), offset, 1));
+        if (!futures.isEmpty() && !LettuceFutures.awaitAll(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0])))
+            throw new IllegalStateException("Timeout waiting for user existence filter update");
+    }
+
+    private boolean isTombstoned(long msrl) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            return Boolean.TRUE.equals(connection.exists(tombstoneKey(msrl)));
+        }
+    }
+
+    private static byte[] tombstoneKey(long msrl) {
+        return bytes(CacheKey.USER_TOMBSTONE_PREFIX + msrl);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
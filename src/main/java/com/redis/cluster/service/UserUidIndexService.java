@@ -0,0 +1,105 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * uid로 회원을 조회하기 위한 uid -> msrl 보조 인덱스(user:uid:{uid}).
+ * <p>
+ * 인덱스로 msrl을 찾은 뒤 user 캐시(L1/L2)에서 회원을 읽으므로 DB를 거치지 않는다.
+ * 인덱스는 값(msrl)만 보관하고 회원 데이터는 user 캐시 한곳에만 두므로 회원 변경시 인덱스를 다시 쓸 필요가 없다.
+ * <p>
+ * 인덱스가 오래된 경우(uid 변경 직후의 경쟁 등)에 대비해 읽은 회원의 uid가 요청한 uid와 다르면 인덱스를 버리고 DB에서 조회한다.
+ * 인덱스 삭제는 값이 일치할 때만 수행하여, 그 사이 같은 uid를 가져간 다른 회원의 인덱스를 지우지 않는다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class UserUidIndexService {
+
+    private static final RedisScript<Long> DELETE_IF_EQUALS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CacheManager cacheManager;
+    private final UserJpaRepo userJpaRepo;
+    private final UserWriteBehindService userWriteBehindService;
+
+    public User findByUid(String uid) {
+        String msrl = stringRedisTemplate.opsForValue().get(indexKey(uid));
+        if (msrl != null) {
+            long id = Long.parseLong(msrl);
+            User user = userCache().get(id, () -> userWriteBehindService.findById(id).orElse(null));
+            if (user != null && uid.equals(user.getUid()))
+                return user;
+            // 회원이 삭제되었거나 uid가 바뀐 경우
+            remove(uid, id);
+        }
+        User user = userJpaRepo.findByUid(uid)
+                .map(found -> userWriteBehindService.withPending(Collections.singletonList(found)).get(0))
+                .orElse(null);
+        // 반영 대기중인 변경으로 uid가 바뀐 회원
+        if (user != null && !uid.equals(user.getUid()))
+            return null;
+        if (user != null) {
+            // 그 사이 @CachePut으로 저장된 최신 값을 덮어쓰지 않는다.
+            userCache().putIfAbsent(user.getMsrl(), user);
+            put(user);
+        }
+        return user;
+    }
+
+    /**
+     * 회원 저장 후 인덱스 반영. uid가 바뀌었으면 이전 uid의 인덱스를 제거한다.
+     *
+     * @param before 저장 전 회원. 신규 회원이면 null
+     */
+    public void update(User before, User after) {
+        if (before != null && !before.getUid().equals(after.getUid()))
+            remove(before.getUid(), before.getMsrl());
+        put(after);
+    }
+
+    public void remove(User user) {
+        if (user != null)
+            remove(user.getUid(), user.getMsrl());
+    }
+
+    private void put(User user) {
+        try {
+            stringRedisTemplate.opsForValue().set(indexKey(user.getUid()), String.valueOf(user.getMsrl()),
+                    CacheKey.USER_EXPIRE_SEC, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // 인덱스가 없으면 다음 조회시 DB에서 다시 만든다.
+            log.warn("Could not index uid {} - {}", user.getUid(), e.getMessage());
+        }
+    }
+
+    private void remove(String uid, long msrl) {
+        try {
+            stringRedisTemplate.execute(DELETE_IF_EQUALS_SCRIPT, Collections.singletonList(indexKey(uid)), String.valueOf(msrl));
+        } catch (Exception e) {
+            log.warn("Could not remove uid index {} - {}", uid, e.getMessage());
+        }
+    }
+
+    private Cache userCache() {
+        return cacheManager.getCache(CacheKey.USER);
+    }
+
+    private String indexKey(String uid) {
+        return CacheKey.USER_UID_INDEX_PREFIX + uid;
+    }
+}
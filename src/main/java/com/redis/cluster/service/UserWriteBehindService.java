@@ -0,0 +1,423 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 수정을 Redis 변경 로그에 먼저 기록하고 DB에는 모아서 반영하는 write-behind (user.write-behind.enabled).
+ * <p>
+ * - 변경 로그는 shard별 Redis list(user:changelog:{n})이며 항목은 [기록시각 8byte][회원(UserChangeCodec)]이다.
+ *   캐시 serializer 모드를 바꿔도 읽을 수 있도록 로그 전용 포맷을 쓰며, 읽을 수 없는 항목은 shard를 막지 않도록 user:changelog:{n}:dead로 옮긴다.
+ *   같은 호출에서 msrl별 최신 값을 hash(user:changelog:{n}:latest)에도 기록하고, DB 반영 후 값이 같을 때만 지운다.
+ * - 캐시 로더는 findById/findAllById로 반영 대기중인 값을 DB보다 먼저 읽어 반영 전의 DB 값을 캐시에 올리지 않는다.
+ * - flusher는 shard별로 락(SET NX PX)을 잡고 Lua로 batchSize 만큼을 처리중 list(user:changelog:{n}:processing)로 옮긴 뒤
+ *   msrl별 마지막 변경만 남겨 JDBC batch update로 반영하고 처리중 list를 지운다.
+ * - 반영 전에 종료되면 처리중 list가 남으므로 기동시(및 다음 flush에서) 먼저 다시 반영한다. 반영은 최종 상태를 쓰므로 중복 반영해도 같다.
+ * - 로그가 maxBacklog를 넘으면 호출 스레드가 직접 DB에 저장한다.(backpressure) 이때도 로그에 기록하여 이전 변경이 나중에 덮어쓰지 않게 한다.
+ * - uid를 바꾸는 수정은 unique 제약 위반을 호출자에게 알리도록 DB에 바로 저장한다. (반영시 위반하면 이미 응답한 변경을 버리게 됨)
+ * <p>
+ * 지표 : user.write-behind.backlog(로그 길이), user.write-behind.lag(가장 오래된 미반영 변경의 경과시간), user.write-behind.flush(반영 시간),
+ * user.write-behind.dead-letters(읽을 수 없어 옮긴 항목 수)
+ */
+@Slf4j
+@Service
+public class UserWriteBehindService {
+
+    private static final String LOG_PREFIX = "user:changelog:";
+    private static final String CLAIM_SCRIPT =
+            "local processing = redis.call('lrange', KEYS[2], 0, -1) " +
+            "if #processing > 0 then return processing end " +
+            "local items = redis.call('lrange', KEYS[1], 0, tonumber(ARGV[1]) - 1) " +
+            "if #items == 0 then return items end " +
+            "redis.call('ltrim', KEYS[1], #items, -1) " +
+            "redis.call('rpush', KEYS[2], unpack(items)) " +
+            "return items";
+    private static final String APPEND_SCRIPT =
+            "redis.call('rpush', KEYS[1], ARGV[1]) " +
+            "redis.call('hset', KEYS[2], ARGV[2], ARGV[3]) " +
+            "return 1";
+    // 반영한 값과 같을 때만 지운다. 그 사이 새 변경이 기록되었으면 남긴다.
+    private static final String RELEASE_LATEST_SCRIPT =
+            "local removed = 0 " +
+            "for i = 1, #ARGV, 2 do " +
+            "  if redis.call('hget', KEYS[1], ARGV[i]) == ARGV[i + 1] then removed = removed + redis.call('hdel', KEYS[1], ARGV[i]) end " +
+            "end " +
+            "return removed";
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+    private static final String UPDATE_USER = "update user set uid = ?, password = ?, name = ? where msrl = ?";
+    private static final String DELETE_ROLES = "delete from user_roles where user_msrl = ?";
+    private static final String INSERT_ROLE = "insert into user_roles (user_msrl, roles) values (?, ?)";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final UserChangeCodec codec;
+    private final UserJpaRepo userJpaRepo;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int shards;
+    private final int batchSize;
+    private final long maxBacklog;
+    private final long flushIntervalMillis;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter synchronousWrites;
+    private final Counter deadLetters;
+    private ScheduledExecutorService scheduler;
+
+    public UserWriteBehindService(RedisConnectionFactory connectionFactory, CompactRedisSerializer compactRedisSerializer,
+                                  UserJpaRepo userJpaRepo, CacheManager cacheManager, JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${user.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${user.write-behind.shards:8}") int shards,
+                                  @Value("${user.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${user.write-behind.max-backlog:100000}") long maxBacklog,
+                                  @Value("${user.write-behind.flush-interval-ms:200}") long flushIntervalMillis) {
+        this.connectionFactory = connectionFactory;
+        // 이전 버전이 캐시 serializer로 기록한 로그도 읽는다.
+        this.codec = new UserChangeCodec(compactRedisSerializer);
+        this.userJpaRepo = userJpaRepo;
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.maxBacklog = maxBacklog;
+        this.flushIntervalMillis = flushIntervalMillis;
+        Gauge.builder("user.write-behind.backlog", backlog, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("user.write-behind.lag", oldestPendingAt, at -> at.get() == 0 ? 0 : System.currentTimeMillis() - at.get())
+                .baseUnit("milliseconds").register(meterRegistry);
+        this.flushTimer = Timer.builder("user.write-behind.flush").register(meterRegistry);
+        this.coalesced = Counter.builder("user.write-behind.coalesced")
+                .description("Updates superseded by a later update of the same user before flushing")
+                .register(meterRegistry);
+        this.synchronousWrites = Counter.builder("user.write-behind.synchronous")
+                .description("Updates written directly to the database because the change log was full or the uid changed")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("user.write-behind.dead-letters")
+                .description("Change log entries that could not be decoded and were moved to the dead-letter list")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::flushAll, 0, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            // 비활성화 상태에서도 이전에 남은 로그는 반영한다.
+            scheduler.execute(this::flushAll);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 기존 회원 수정을 변경 로그에 기록. 로그가 가득 찼거나 uid가 바뀌면 DB에 바로 저장한다.
+     *
+     * @param before 수정 전 값 (반영 대기중인 변경 포함)
+     */
+    public User save(User user, User before) {
+        if (backlog.get() >= maxBacklog || !Objects.equals(user.getUid(), before.getUid())) {
+            User saved = userJpaRepo.save(user);
+            synchronousWrites.increment();
+            append(saved);
+            return saved;
+        }
+        append(user);
+        return user;
+    }
+
+    /**
+     * 반영 대기중인 변경이 있으면 그 값, 없으면 DB에서 조회
+     */
+    public Optional<User> findById(long msrl) {
+        if (enabled) {
+            User pending = pending(Collections.singletonList(msrl)).get(msrl);
+            if (pending != null)
+                return Optional.of(pending);
+        }
+        return userJpaRepo.findById(msrl);
+    }
+
+    public List<User> findAllById(Collection<Long> msrls) {
+        return withPending(userJpaRepo.findAllById(msrls));
+    }
+
+    /**
+     * DB에서 읽은 회원 중 반영 대기중인 변경이 있는 회원을 변경 값으로 바꾼다.
+     */
+    public List<User> withPending(List<User> users) {
+        if (!enabled || users.isEmpty())
+            return users;
+        List<Long> msrls = new ArrayList<>(users.size());
+        for (User user : users)
+            msrls.add(user.getMsrl());
+        Map<Long, User> pending = pending(msrls);
+        if (pending.isEmpty())
+            return users;
+        List<User> result = new ArrayList<>(users.size());
+        for (User user : users)
+            result.add(pending.getOrDefault(user.getMsrl(), user));
+        return result;
+    }
+
+    /**
+     * 회원 삭제시 반영 대기중인 변경을 더 이상 조회되지 않게 한다. (로그에 남은 변경은 삭제된 행에 반영되지 않는다.)
+     */
+    public void discard(long msrl) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.hDel(bytes(latestKey(shardOf(msrl))), bytes(String.valueOf(msrl)));
+        }
+    }
+
+    // 읽을 수 없는 값은 대기중인 변경이 없는 것으로 보고(DB 값 사용) 지운다. 로그의 항목은 flush에서 dead-letter로 옮긴다.
+    private Map<Long, User> pending(List<Long> msrls) {
+        Map<Integer, List<Long>> byShard = new LinkedHashMap<>();
+        for (Long msrl : msrls)
+            byShard.computeIfAbsent(shardOf(msrl), shard -> new ArrayList<>()).add(msrl);
+        Map<Long, User> pending = new HashMap<>();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            byShard.forEach((shard, ids) -> {
+                byte[][] fields = new byte[ids.size()][];
+                for (int i = 0; i < fields.length; i++)
+                    fields[i] = bytes(String.valueOf(ids.get(i)));
+                List<byte[]> values = connection.hMGet(bytes(latestKey(shard)), fields);
+                Map<Long, byte[]> undecodable = new HashMap<>();
+                for (int i = 0; values != null && i < values.size(); i++) {
+                    if (values.get(i) == null)
+                        continue;
+                    try {
+                        pending.put(ids.get(i), codec.decode(values.get(i)));
+                    } catch (SerializationException e) {
+                        log.error("Ignored undecodable pending change of user {} - {}", ids.get(i), e.getMessage());
+                        undecodable.put(ids.get(i), values.get(i));
+                    }
+                }
+                if (!undecodable.isEmpty())
+                    releaseLatest(connection, shard, undecodable);
+            });
+        }
+        return pending;
+    }
+
+    private void append(User user) {
+        byte[] payload = codec.encode(user);
+        byte[] entry = ByteBuffer.allocate(8 + payload.length).putLong(System.currentTimeMillis()).put(payload).array();
+        int shard = shardOf(user.getMsrl());
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.eval(bytes(APPEND_SCRIPT), ReturnType.INTEGER, 2,
+                    bytes(logKey(shard)), bytes(latestKey(shard)), entry, bytes(String.valueOf(user.getMsrl())), payload);
+        }
+        // 다음 flush에서 실제 길이로 갱신된다.
+        backlog.incrementAndGet();
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    // 모든 shard를 로그가 빌 때까지 반영하고 backlog/lag 지표를 갱신한다.
+    void flushAll() {
+        long total = 0;
+        long oldest = 0;
+        for (int shard = 0; shard < shards; shard++) {
+            try {
+                long[] state = flushShard(shard);
+                total += state[0];
+                if (state[1] > 0)
+                    oldest = oldest == 0 ? state[1] : Math.min(oldest, state[1]);
+            } catch (Exception e) {
+                log.error("Could not flush user changelog shard {} - {}", shard, e.getMessage());
+            }
+        }
+        backlog.set(total);
+        oldestPendingAt.set(oldest);
+    }
+
+    // 반환 : [남은 로그 길이, 남은 로그의 가장 오래된 기록시각(없으면 0)]
+    private long[] flushShard(int shard) {
+        byte[] logKey = bytes(logKey(shard));
+        byte[] processingKey = bytes(logKey(shard) + ":processing");
+        byte[] lockKey = bytes(logKey(shard) + ":lock");
+        byte[] token = bytes(instanceId);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            // 다른 인스턴스가 반영중인 shard는 건너뛴다.
+            if (!Boolean.TRUE.equals(connection.set(lockKey, token, Expiration.seconds(30), RedisStringCommands.SetOption.SET_IF_ABSENT)))
+                return remaining(connection, logKey);
+            try {
+                while (true) {
+                    List<byte[]> entries = connection.eval(bytes(CLAIM_SCRIPT), ReturnType.MULTI, 2,
+                            logKey, processingKey, bytes(String.valueOf(batchSize)));
+                    if (entries == null || entries.isEmpty())
+                        break;
+                    Timer.Sample sample = Timer.start();
+                    List<byte[]> undecodable = new ArrayList<>();
+                    Map<Long, byte[]> written = write(entries, undecodable);
+                    if (!undecodable.isEmpty()) {
+                        connection.rPush(bytes(logKey(shard) + ":dead"), undecodable.toArray(new byte[0][]));
+                        deadLetters.increment(undecodable.size());
+                    }
+                    if (!written.isEmpty())
+                        releaseLatest(connection, shard, written);
+                    connection.del(processingKey);
+                    sample.stop(flushTimer);
+                    if (entries.size() < batchSize)
+                        break;
+                }
+            } finally {
+                connection.eval(bytes(RELEASE_SCRIPT), ReturnType.INTEGER, 1, lockKey, token);
+            }
+            return remaining(connection, logKey);
+        }
+    }
+
+    private void releaseLatest(RedisConnection connection, int shard, Map<Long, byte[]> written) {
+        byte[][] keysAndArgs = new byte[written.size() * 2 + 1][];
+        keysAndArgs[0] = bytes(latestKey(shard));
+        int i = 1;
+        for (Map.Entry<Long, byte[]> entry : written.entrySet()) {
+            keysAndArgs[i++] = bytes(String.valueOf(entry.getKey()));
+            keysAndArgs[i++] = entry.getValue();
+        }
+        connection.eval(bytes(RELEASE_LATEST_SCRIPT), ReturnType.INTEGER, 1, keysAndArgs);
+    }
+
+    private long[] remaining(RedisConnection connection, byte[] logKey) {
+        Long length = connection.lLen(logKey);
+        if (length == null || length == 0)
+            return new long[]{0, 0};
+        List<byte[]> head = connection.lRange(logKey, 0, 0);
+        long oldest = head == null || head.isEmpty() ? 0 : ByteBuffer.wrap(head.get(0)).getLong();
+        return new long[]{length, oldest};
+    }
+
+    // msrl별 마지막 변경만 JDBC batch로 반영. 제약조건 위반(uid 중복 등)이면 한건씩 반영하고 실패한 변경은 버린다.
+    // DB 장애 등 다른 오류는 그대로 던져서 처리중 list를 남기고 다음 flush에서 다시 시도한다.
+    // 읽을 수 없는 항목은 반영하지 않고 undecodable에 담는다.
+    // 반환 : 반영(또는 버린) msrl별 마지막 변경의 직렬화 값
+    private Map<Long, byte[]> write(List<byte[]> entries, List<byte[]> undecodable) {
+        Map<Long, User> latest = new LinkedHashMap<>();
+        Map<Long, byte[]> payloads = new HashMap<>();
+        for (byte[] entry : entries) {
+            byte[] payload = Arrays.copyOfRange(entry, 8, entry.length);
+            User user;
+            try {
+                user = codec.decode(payload);
+            } catch (SerializationException e) {
+                log.error("Moved undecodable user change to dead-letter list - {}", e.getMessage());
+                undecodable.add(entry);
+                continue;
+            }
+            if (latest.remove(user.getMsrl()) != null)
+                coalesced.increment();
+            latest.put(user.getMsrl(), user);
+            payloads.put(user.getMsrl(), payload);
+        }
+        List<User> users = new ArrayList<>(latest.values());
+        if (users.isEmpty())
+            return payloads;
+        try {
+            transactionTemplate.execute(status -> {
+                update(users);
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch flush of {} users failed, retrying one by one - {}", users.size(), e.getMessage());
+            for (User user : users) {
+                try {
+                    transactionTemplate.execute(status -> {
+                        update(Collections.singletonList(user));
+                        return null;
+                    });
+                } catch (DataIntegrityViolationException ex) {
+                    log.error("Dropped change of user {} - {}", user.getMsrl(), ex.getMessage());
+                    // DB에 반영되지 않은 값이 캐시에 남지 않도록 제거
+                    Cache cache = cacheManager.getCache(CacheKey.USER);
+                    if (cache != null)
+                        cache.evict(user.getMsrl());
+                }
+            }
+        }
+        return payloads;
+    }
+
+    private void update(List<User> users) {
+        jdbcTemplate.batchUpdate(UPDATE_USER, users, users.size(), (ps, user) -> {
+            ps.setString(1, user.getUid());
+            ps.setString(2, user.getPassword());
+            ps.setString(3, user.getName());
+            ps.setLong(4, user.getMsrl());
+        });
+        jdbcTemplate.batchUpdate(DELETE_ROLES, users, users.size(), (ps, user) -> ps.setLong(1, user.getMsrl()));
+        List<Object[]> roles = new ArrayList<>();
+        for (User user : users)
+            if (user.getRoles() != null)
+                for (String role : user.getRoles())
+                    roles.add(new Object[]{user.getMsrl(), role});
+        if (!roles.isEmpty())
+            jdbcTemplate.batchUpdate(INSERT_ROLE, roles);
+    }
+
+    private int shardOf(long msrl) {
+        return (int) Math.floorMod(msrl, (long) shards);
+    }
+
+    // shard 번호를 hash tag로 두어 로그/처리중 list/락이 같은 슬롯에 있도록 한다.
+    private String logKey(int shard) {
+        return LOG_PREFIX + "{" + shard + "}";
+    }
+
+    private String latestKey(int shard) {
+        return logKey(shard) + ":latest";
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
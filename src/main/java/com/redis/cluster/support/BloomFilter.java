@@ -0,0 +1,124 @@
+package com.redis.cluster.support;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * long 값(id)용 Bloom filter.
+ * 비트 배열은 Redis 비트맵(SETBIT/GET)과 같은 순서(바이트 단위 MSB 우선)로 직렬화되므로
+ * offsets()의 위치로 SETBIT한 Redis 문자열과 toByteArray()/merge()의 결과가 같다.
+ * 비트는 켜지기만 하므로 여러 스레드의 put/merge를 잠금 없이 처리한다.
+ */
+public class BloomFilter {
+
+    private final long bits;
+    private final int hashes;
+    private final AtomicLongArray words;
+
+    /**
+     * @param bits 64의 배수로 올림된다.
+     */
+    public BloomFilter(long bits, int hashes) {
+        this.bits = roundBits(bits);
+        this.hashes = hashes;
+        this.words = new AtomicLongArray((int) (this.bits / 64));
+    }
+
+    /**
+     * expectedInsertions 건을 넣었을 때 오탐율이 fpp가 되는 크기와 해시 수로 생성
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long bits = optimalBits(expectedInsertions, fpp);
+        return new BloomFilter(bits, optimalHashes(expectedInsertions, bits));
+    }
+
+    public static long optimalBits(long expectedInsertions, double fpp) {
+        return roundBits((long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+    }
+
+    public static int optimalHashes(long expectedInsertions, long bits) {
+        return Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    public static BloomFilter fromByteArray(long bits, int hashes, byte[] bitmap) {
+        BloomFilter filter = new BloomFilter(bits, hashes);
+        filter.merge(bitmap);
+        return filter;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    /**
+     * 값이 차지하는 비트 위치 (Redis SETBIT offset)
+     */
+    public long[] offsets(long value) {
+        return offsets(value, bits, hashes);
+    }
+
+    public static long[] offsets(long value, long bits, int hashes) {
+        long h1 = mix(value);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        long[] offsets = new long[hashes];
+        for (int i = 0; i < hashes; i++)
+            offsets[i] = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+        return offsets;
+    }
+
+    public void put(long value) {
+        for (long offset : offsets(value))
+            words.accumulateAndGet((int) (offset >>> 6), mask(offset), (word, mask) -> word | mask);
+    }
+
+    /**
+     * @return false이면 확실히 없는 값. true이면 있을 수 있다.
+     */
+    public boolean mightContain(long value) {
+        for (long offset : offsets(value))
+            if ((words.get((int) (offset >>> 6)) & mask(offset)) == 0)
+                return false;
+        return true;
+    }
+
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(words.length() * 8);
+        for (int i = 0; i < words.length(); i++)
+            buffer.putLong(words.get(i));
+        return buffer.array();
+    }
+
+    /**
+     * Redis 비트맵의 켜진 비트를 합친다. SETBIT로 만든 비트맵은 마지막으로 켜진 바이트까지만 있을 수 있다.
+     */
+    public void merge(byte[] bitmap) {
+        int length = Math.min(words.length(), (bitmap.length + 7) / 8);
+        for (int i = 0; i < length; i++) {
+            long word = 0;
+            for (int j = 0; j < 8; j++) {
+                int position = i * 8 + j;
+                word = (word << 8) | (position < bitmap.length ? bitmap[position] & 0xFF : 0);
+            }
+            if (word != 0)
+                words.accumulateAndGet(i, word, (current, merged) -> current | merged);
+        }
+    }
+
+    private static long roundBits(long bits) {
+        return (bits + 63) / 64 * 64;
+    }
+
+    private static long mask(long offset) {
+        return 1L << (63 - (offset & 63));
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,33 @@
+package com.redis.cluster.support;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 일괄 저장할 키/값/TTL. ttl이 null이면 만료시간 없이 저장
+ * ifAbsent이면 키가 없을 때만 저장한다. (SET NX)
+ */
+@Getter
+public class BulkEntry {
+
+    private final byte[] key;
+    private final byte[] value;
+    private final Duration ttl;
+    private final boolean ifAbsent;
+
+    private BulkEntry(byte[] key, byte[] value, Duration ttl, boolean ifAbsent) {
+        this.key = key;
+        this.value = value;
+        this.ttl = ttl;
+        this.ifAbsent = ifAbsent;
+    }
+
+    public static BulkEntry of(byte[] key, byte[] value, Duration ttl) {
+        return new BulkEntry(key, value, ttl, false);
+    }
+
+    public static BulkEntry ifAbsent(byte[] key, byte[] value, Duration ttl) {
+        return new BulkEntry(key, value, ttl, true);
+    }
+}
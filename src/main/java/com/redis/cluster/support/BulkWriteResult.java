@@ -0,0 +1,44 @@
+package com.redis.cluster.support;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 일괄 저장 결과. 실패한 키는 원인과 함께 반환한다.
+ */
+public class BulkWriteResult {
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong redirects = new AtomicLong();
+    private final Map<String, String> failures = new ConcurrentHashMap<>();
+
+    void success() {
+        written.incrementAndGet();
+    }
+
+    void redirected() {
+        redirects.incrementAndGet();
+    }
+
+    void failure(String key, String reason) {
+        failures.put(key, reason);
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getRedirects() {
+        return redirects.get();
+    }
+
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,248 @@
+package com.redis.cluster.support;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 키/값/TTL 묶음을 클러스터 노드별 파이프라인으로 저장하는 컴포넌트.
+ * <p>
+ * 1. 키를 슬롯 -> 소유 master 노드로 분류
+ * 2. 노드별 작업을 병렬로 실행. 각 노드에서는 batchSize 만큼의 SET을 응답을 기다리지 않고 연속으로 보낸 뒤(파이프라인) 한번에 대기
+ * 3. 토폴로지 변경으로 MOVED/ASK 응답을 받은 키는 응답이 가리킨 노드의 연결로 다시 보낸다. (spring.redis.cluster.max-redirects 횟수까지)
+ * <p>
+ * 전체 미응답 커맨드 수는 maxInFlight로 제한되며, 초과시 호출 스레드가 대기한다.
+ */
+@Slf4j
+@Component
+public class ClusterBulkWriter {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisSerializer<String> keySerializer;
+    private final RedisSerializer<Object> valueSerializer;
+    private final int maxRedirects;
+    private final long timeoutMillis;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final ExecutorService executor;
+    private final Counter movedRedirects;
+    private final Counter askRedirects;
+
+    @SuppressWarnings("unchecked")
+    public ClusterBulkWriter(RedisTemplate<String, Object> redisTemplateForObject, RedisProperties redisProperties, MeterRegistry meterRegistry,
+                             @Value("${redis.bulk-writer.batch-size:500}") int batchSize,
+                             @Value("${redis.bulk-writer.max-in-flight:10000}") int maxInFlight,
+                             @Value("${redis.bulk-writer.parallelism:6}") int parallelism) {
+        this.connectionFactory = redisTemplateForObject.getConnectionFactory();
+        this.keySerializer = (RedisSerializer<String>) redisTemplateForObject.getKeySerializer();
+        this.valueSerializer = (RedisSerializer<Object>) redisTemplateForObject.getValueSerializer();
+        this.maxRedirects = redisProperties.getCluster() != null && redisProperties.getCluster().getMaxRedirects() != null
+                ? redisProperties.getCluster().getMaxRedirects() : 3;
+        this.timeoutMillis = redisProperties.getTimeout() != null ? redisProperties.getTimeout().toMillis() : 5000;
+        this.batchSize = batchSize;
+        this.inFlight = new Semaphore(Math.max(maxInFlight, batchSize));
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "cluster-bulk-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.movedRedirects = redirectCounter(meterRegistry, "MOVED");
+        this.askRedirects = redirectCounter(meterRegistry, "ASK");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * redisTemplateForObject의 serializer로 키/값을 변환하여 저장
+     */
+    public BulkWriteResult write(Map<String, ?> values, Duration ttl) {
+        List<BulkEntry> entries = new ArrayList<>(values.size());
+        values.forEach((key, value) -> entries.add(BulkEntry.of(keySerializer.serialize(key), valueSerializer.serialize(value), ttl)));
+        return writeAll(entries);
+    }
+
+    public BulkWriteResult writeAll(Collection<BulkEntry> entries) {
+        BulkWriteResult result = new BulkWriteResult();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Map<NodeTarget, List<BulkEntry>> pending = partition(connection, new ArrayList<>(entries));
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                if (attempt > maxRedirects) {
+                    pending.values().forEach(redirected -> redirected.forEach(entry ->
+                            result.failure(keyOf(entry), "redirect limit exceeded (" + maxRedirects + ")")));
+                    break;
+                }
+                pending = writeByNode(connection, pending, result);
+            }
+        }
+        return result;
+    }
+
+    // 노드별로 병렬 실행하고 MOVED/ASK로 다시 보내야 하는 항목을 응답의 대상 노드별로 반환
+    private Map<NodeTarget, List<BulkEntry>> writeByNode(RedisConnection connection, Map<NodeTarget, List<BulkEntry>> shares, BulkWriteResult result) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+        Map<NodeTarget, List<BulkEntry>> redirected = new ConcurrentHashMap<>();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (Map.Entry<NodeTarget, List<BulkEntry>> share : shares.entrySet()) {
+            // 재시도도 응답이 가리킨 노드의 연결로 직접 보낸다. (Lettuce 라우팅의 자체 재시도를 거치지 않음)
+            NodeTarget target = share.getKey();
+            RedisClusterAsyncCommands<byte[], byte[]> nodeCommands = nodeCommands(commands, target);
+            tasks.add(executor.submit(() -> writeNode(nodeCommands, target != null && target.asking, share.getValue(), redirected, result)));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while writing", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Bulk write failed", e.getCause());
+            }
+        }
+        return redirected;
+    }
+
+    private RedisClusterAsyncCommands<byte[], byte[]> nodeCommands(RedisClusterAsyncCommands<byte[], byte[]> commands, NodeTarget target) {
+        if (target == null)
+            return commands;
+        try {
+            return ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) commands).getConnection(target.host, target.port);
+        } catch (RuntimeException e) {
+            // 아직 토폴로지에 없는 노드면 클러스터 라우팅 연결로 보낸다.
+            log.warn("No connection to {}:{} - {}", target.host, target.port, e.getMessage());
+            return commands;
+        }
+    }
+
+    private void writeNode(RedisClusterAsyncCommands<byte[], byte[]> commands, boolean asking, List<BulkEntry> entries,
+                           Map<NodeTarget, List<BulkEntry>> redirected, BulkWriteResult result) {
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<BulkEntry> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            inFlight.acquireUninterruptibly(batch.size());
+            try {
+                List<RedisFuture<String>> futures = new ArrayList<>(batch.size());
+                for (BulkEntry entry : batch) {
+                    // ASK 대상 노드는 바로 다음 커맨드에 대해서만 ASKING을 허용한다.
+                    if (asking)
+                        commands.asking();
+                    futures.add(commands.set(entry.getKey(), entry.getValue(), setArgs(entry)));
+                }
+                for (int i = 0; i < batch.size(); i++)
+                    await(batch.get(i), futures.get(i), redirected, result);
+            } finally {
+                inFlight.release(batch.size());
+            }
+        }
+    }
+
+    private SetArgs setArgs(BulkEntry entry) {
+        SetArgs args = new SetArgs();
+        if (entry.getTtl() != null)
+            args.px(entry.getTtl().toMillis());
+        if (entry.isIfAbsent())
+            args.nx();
+        return args;
+    }
+
+    private void await(BulkEntry entry, RedisFuture<String> future, Map<NodeTarget, List<BulkEntry>> redirected, BulkWriteResult result) {
+        try {
+            // NX로 쓰지 않은 키는 null 응답이며 성공으로 센다.
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            result.success();
+        } catch (ExecutionException e) {
+            String message = String.valueOf(e.getCause().getMessage());
+            NodeTarget target = NodeTarget.fromRedirect(message);
+            if (target != null) {
+                (target.asking ? askRedirects : movedRedirects).increment();
+                result.redirected();
+                redirected.computeIfAbsent(target, t -> Collections.synchronizedList(new ArrayList<>())).add(entry);
+            } else {
+                result.failure(keyOf(entry), message);
+            }
+        } catch (TimeoutException e) {
+            result.failure(keyOf(entry), "timeout");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.failure(keyOf(entry), "interrupted");
+        }
+    }
+
+    // 슬롯 -> master 노드 분류. 단일 노드 구성이면 하나의 그룹(null)
+    private Map<NodeTarget, List<BulkEntry>> partition(RedisConnection connection, List<BulkEntry> entries) {
+        Map<NodeTarget, List<BulkEntry>> shares = new HashMap<>();
+        if (!(connection instanceof RedisClusterConnection)) {
+            shares.put(null, entries);
+            return shares;
+        }
+        RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+        Map<Integer, NodeTarget> nodeBySlot = new HashMap<>();
+        for (BulkEntry entry : entries) {
+            NodeTarget target = nodeBySlot.computeIfAbsent(ClusterSlots.slot(entry.getKey()), slot -> {
+                RedisClusterNode node = clusterConnection.clusterGetNodeForSlot(slot);
+                return new NodeTarget(node.getHost(), node.getPort(), false);
+            });
+            shares.computeIfAbsent(target, n -> new ArrayList<>()).add(entry);
+        }
+        return shares;
+    }
+
+    private Counter redirectCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("redis.cluster.redirects")
+                .description("MOVED/ASK redirects received while writing to cluster nodes")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    private String keyOf(BulkEntry entry) {
+        return new String(entry.getKey(), StandardCharsets.UTF_8);
+    }
+
+    // 키를 보낼 노드. asking이면 커맨드 앞에 ASKING을 보낸다.
+    @EqualsAndHashCode
+    static class NodeTarget {
+        private final String host;
+        private final int port;
+        private final boolean asking;
+
+        NodeTarget(String host, int port, boolean asking) {
+            this.host = host;
+            this.port = port;
+            this.asking = asking;
+        }
+
+        // "MOVED 3999 127.0.0.1:6381", "ASK 3999 127.0.0.1:6381". 리다이렉트가 아니면 null
+        static NodeTarget fromRedirect(String message) {
+            String[] parts = message.split(" ");
+            if (parts.length < 3 || !("MOVED".equals(parts[0]) || "ASK".equals(parts[0])))
+                return null;
+            int separator = parts[2].lastIndexOf(':');
+            if (separator < 0)
+                return null;
+            return new NodeTarget(parts[2].substring(0, separator), Integer.parseInt(parts[2].substring(separator + 1).trim()), "ASK".equals(parts[0]));
+        }
+    }
+}
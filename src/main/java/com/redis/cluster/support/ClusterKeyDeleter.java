@@ -0,0 +1,216 @@
+package com.redis.cluster.support;
+
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 패턴에 맞는 키를 KEYS 없이 삭제하는 컴포넌트.
+ * <p>
+ * 1. 모든 master 노드에서 병렬로 SCAN MATCH pattern COUNT batchSize 커서를 끝까지 진행
+ * 2. 한 페이지의 키는 슬롯별로 묶어 UNLINK로 보낸다. (응답을 기다리지 않고 파이프라인, 실제 해제는 Redis 백그라운드 스레드)
+ * 3. 노드별로 응답을 기다리지 않은 UNLINK 묶음은 maxInFlightBatches 개까지만 허용하고, 초과하면 가장 오래된 묶음을 기다린다.
+ * <p>
+ * 작업은 KeyDeleteJob으로 진행상황을 조회하고 취소할 수 있으며, 최근 MAX_JOBS 개까지 보관한다.
+ */
+@Slf4j
+@Component
+public class ClusterKeyDeleter {
+
+    private static final int MAX_JOBS = 20;
+    private static final String STANDALONE = "standalone";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final long timeoutMillis;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final ExecutorService executor;
+    private final Map<String, KeyDeleteJob> jobs = Collections.synchronizedMap(new LinkedHashMap<String, KeyDeleteJob>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KeyDeleteJob> eldest) {
+            return size() > MAX_JOBS && eldest.getValue().getState() != KeyDeleteJob.State.RUNNING;
+        }
+    });
+    private final Counter deletedKeys;
+
+    public ClusterKeyDeleter(RedisConnectionFactory connectionFactory, RedisProperties redisProperties, MeterRegistry meterRegistry,
+                             @Value("${redis.key-deleter.batch-size:500}") int batchSize,
+                             @Value("${redis.key-deleter.max-in-flight-batches:2}") int maxInFlightBatches,
+                             @Value("${redis.key-deleter.parallelism:6}") int parallelism) {
+        this.connectionFactory = connectionFactory;
+        this.timeoutMillis = redisProperties.getTimeout() != null ? redisProperties.getTimeout().toMillis() : 5000;
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = Math.max(1, maxInFlightBatches);
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "cluster-key-deleter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deletedKeys = Counter.builder("redis.key-deleter.deleted")
+                .description("Keys unlinked by pattern delete jobs")
+                .register(meterRegistry);
+        Gauge.builder("redis.key-deleter.running", this, ClusterKeyDeleter::getRunningJobs).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        synchronized (jobs) {
+            jobs.values().forEach(KeyDeleteJob::cancel);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 패턴 삭제 작업을 시작하고 바로 반환한다. 완료는 KeyDeleteJob.future()로 기다린다.
+     */
+    public KeyDeleteJob delete(String pattern) {
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            Map<String, RedisClusterAsyncCommands<byte[], byte[]>> nodes = masters(connection);
+            KeyDeleteJob job = new KeyDeleteJob(UUID.randomUUID().toString(), pattern, nodes.keySet());
+            jobs.put(job.getId(), job);
+            List<CompletableFuture<Void>> tasks = new ArrayList<>(nodes.size());
+            nodes.forEach((nodeName, commands) ->
+                    tasks.add(CompletableFuture.runAsync(() -> deleteNode(commands, job, job.node(nodeName)), executor)));
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).whenComplete((result, e) -> {
+                connection.close();
+                Throwable failure = e instanceof CompletionException ? e.getCause() : e;
+                if (failure != null)
+                    log.error("Delete job {} ({}) failed: {}", job.getId(), pattern, failure.getMessage());
+                else
+                    log.info("Delete job {} ({}) {} - {} keys", job.getId(), pattern, job.isCancelled() ? "cancelled" : "completed", job.getDeleted());
+                job.finish(failure);
+            });
+            return job;
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 문자열을 그대로 일치시키는 SCAN MATCH 패턴으로 변환 (glob 특수문자 *, ?, [, ], 역슬래시를 escape)
+     */
+    public static String escape(String literal) {
+        StringBuilder escaped = new StringBuilder(literal.length());
+        for (char c : literal.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\')
+                escaped.append('\\');
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    public KeyDeleteJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public List<KeyDeleteJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * @return 취소한 작업. 없으면 null
+     */
+    public KeyDeleteJob cancel(String id) {
+        KeyDeleteJob job = jobs.get(id);
+        if (job != null)
+            job.cancel();
+        return job;
+    }
+
+    public int getRunningJobs() {
+        synchronized (jobs) {
+            return (int) jobs.values().stream().filter(job -> job.getState() == KeyDeleteJob.State.RUNNING).count();
+        }
+    }
+
+    private void deleteNode(RedisClusterAsyncCommands<byte[], byte[]> commands, KeyDeleteJob job, KeyDeleteJob.NodeProgress progress) {
+        ScanArgs scanArgs = ScanArgs.Builder.matches(job.getPattern()).limit(batchSize);
+        Deque<List<RedisFuture<Long>>> inFlight = new ArrayDeque<>();
+        ScanCursor cursor = ScanCursor.INITIAL;
+        try {
+            while (!job.isCancelled()) {
+                KeyScanCursor<byte[]> page = await(commands.scan(cursor, scanArgs));
+                progress.scanned(page.getKeys().size());
+                if (!page.getKeys().isEmpty()) {
+                    // cluster 모드에서는 같은 노드라도 슬롯이 다른 키를 한 커맨드로 삭제할 수 없다.
+                    List<RedisFuture<Long>> batch = new ArrayList<>();
+                    for (List<byte[]> slotKeys : ClusterSlots.groupBySlot(page.getKeys()).values())
+                        batch.add(commands.unlink(slotKeys.toArray(new byte[0][])));
+                    inFlight.add(batch);
+                    if (inFlight.size() >= maxInFlightBatches)
+                        awaitBatch(inFlight.poll(), progress);
+                }
+                if (page.isFinished())
+                    break;
+                cursor = page;
+            }
+            while (!inFlight.isEmpty())
+                awaitBatch(inFlight.poll(), progress);
+        } catch (RuntimeException e) {
+            // 한 노드가 실패하면 다른 노드도 멈춘다.
+            job.cancel();
+            throw e;
+        } finally {
+            progress.done();
+        }
+    }
+
+    private void awaitBatch(List<RedisFuture<Long>> batch, KeyDeleteJob.NodeProgress progress) {
+        for (RedisFuture<Long> future : batch) {
+            long deleted = await(future);
+            progress.deleted(deleted);
+            deletedKeys.increment(deleted);
+        }
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while deleting", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Delete failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Delete timed out", e);
+        }
+    }
+
+    // master 노드별 커맨드. 단일 노드 구성이면 하나(standalone)
+    private Map<String, RedisClusterAsyncCommands<byte[], byte[]>> masters(RedisConnection connection) {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = ClusterSlots.async(connection);
+        Map<String, RedisClusterAsyncCommands<byte[], byte[]>> nodes = new TreeMap<>();
+        if (!(connection instanceof RedisClusterConnection)) {
+            nodes.put(STANDALONE, commands);
+            return nodes;
+        }
+        for (RedisClusterNode node : ((RedisClusterConnection) connection).clusterGetNodes()) {
+            if (node.isMaster())
+                nodes.put(node.getHost() + ":" + node.getPort(),
+                        ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) commands).getConnection(node.getHost(), node.getPort()));
+        }
+        return nodes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.redis.cluster.support;
+
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Redis Cluster 슬롯 계산 및 Lettuce 비동기 커맨드 접근을 위한 유틸
+ */
+public class ClusterSlots {
+
+    private ClusterSlots() {
+    }
+
+    public static int slot(byte[] key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+
+    /**
+     * 키를 슬롯별로 묶는다. 같은 슬롯의 키는 한번의 multi-key 커맨드로 처리할 수 있다.
+     */
+    public static Map<Integer, List<byte[]>> groupBySlot(Collection<byte[]> keys) {
+        Map<Integer, List<byte[]>> slots = new HashMap<>();
+        for (byte[] key : keys)
+            slots.computeIfAbsent(slot(key), s -> new ArrayList<>()).add(key);
+        return slots;
+    }
+
+    /**
+     * Lettuce 비동기 커맨드. 클러스터 연결이면 슬롯 소유 노드로 라우팅되며,
+     * 응답을 기다리지 않고 연속으로 보낸 커맨드는 노드별 연결에서 파이프라인으로 전송된다.
+     */
+    @SuppressWarnings("unchecked")
+    public static RedisClusterAsyncCommands<byte[], byte[]> async(RedisConnection connection) {
+        return (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    public static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
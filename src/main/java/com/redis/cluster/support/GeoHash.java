@@ -0,0 +1,90 @@
+package com.redis.cluster.support;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * base32 geohash 계산. 좌표를 precision 글자 셀로 나누고 영역을 덮는 셀 목록을 구한다.
+ * Redis GEO와 같이 위도는 ±85.05112878 범위로 제한한다. 경도 ±180 경계를 넘는 영역은 경계에서 자른다.
+ */
+public class GeoHash {
+
+    public static final double MAX_LATITUDE = 85.05112878;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        char[] hash = new char[precision];
+        boolean lngBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                if (lngBit) {
+                    double mid = (minLng + maxLng) / 2;
+                    index = index << 1 | (lng >= mid ? 1 : 0);
+                    if (lng >= mid) minLng = mid; else maxLng = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    index = index << 1 | (lat >= mid ? 1 : 0);
+                    if (lat >= mid) minLat = mid; else maxLat = mid;
+                }
+                lngBit = !lngBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    // 셀의 경도 폭 (도)
+    public static double cellWidth(int precision) {
+        return 360.0 / (1L << (precision * 5 + 1) / 2);
+    }
+
+    // 셀의 위도 높이 (도)
+    public static double cellHeight(int precision) {
+        return 180.0 / (1L << precision * 5 / 2);
+    }
+
+    /**
+     * 좌표가 속한 셀의 중심 [lat, lng]
+     */
+    public static double[] cellCenter(double lat, double lng, int precision) {
+        double width = cellWidth(precision);
+        double height = cellHeight(precision);
+        return new double[]{
+                Math.min(Math.floor((lat + 90) / height), (180 / height) - 1) * height - 90 + height / 2,
+                Math.min(Math.floor((lng + 180) / width), (360 / width) - 1) * width - 180 + width / 2};
+    }
+
+    /**
+     * 영역과 겹치는 모든 셀. 셀 수가 maxCells를 넘으면 IllegalArgumentException
+     */
+    public static Set<String> covering(double minLat, double minLng, double maxLat, double maxLng, int precision, int maxCells) {
+        minLat = clamp(minLat, -MAX_LATITUDE, MAX_LATITUDE);
+        maxLat = clamp(maxLat, -MAX_LATITUDE, MAX_LATITUDE);
+        minLng = clamp(minLng, -180, 180);
+        maxLng = clamp(maxLng, -180, 180);
+        double width = cellWidth(precision);
+        double height = cellHeight(precision);
+        long fromRow = (long) Math.floor((minLat + 90) / height), toRow = (long) Math.floor((maxLat + 90) / height);
+        long fromColumn = (long) Math.floor((minLng + 180) / width), toColumn = (long) Math.floor((maxLng + 180) / width);
+        // 최대값(90, 180)은 마지막 셀에 포함
+        toRow = Math.min(toRow, (long) (180 / height) - 1);
+        toColumn = Math.min(toColumn, (long) (360 / width) - 1);
+        if ((toRow - fromRow + 1) * (toColumn - fromColumn + 1) > maxCells)
+            throw new IllegalArgumentException("Area covers more than " + maxCells + " cells");
+        Set<String> cells = new LinkedHashSet<>();
+        for (long row = fromRow; row <= toRow; row++) {
+            for (long column = fromColumn; column <= toColumn; column++)
+                cells.add(encode(row * height - 90 + height / 2, column * width - 180 + width / 2, precision));
+        }
+        return cells;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
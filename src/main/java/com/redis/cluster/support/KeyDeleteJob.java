@@ -0,0 +1,108 @@
+package com.redis.cluster.support;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ClusterKeyDeleter의 패턴 삭제 작업. 노드별 진행상황을 보관하며 취소할 수 있다.
+ * 취소하면 이미 보낸 UNLINK의 응답만 기다리고 다음 SCAN은 하지 않는다.
+ */
+@Getter
+public class KeyDeleteJob {
+
+    public enum State {RUNNING, COMPLETED, CANCELLED, FAILED}
+
+    private final String id;
+    private final String pattern;
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private volatile State state = State.RUNNING;
+    private volatile boolean cancelled;
+    private volatile String error;
+    // 노드(host:port) -> 진행상황
+    private final Map<String, NodeProgress> nodes;
+    @Getter(AccessLevel.NONE)
+    private final CompletableFuture<Long> completion = new CompletableFuture<>();
+
+    KeyDeleteJob(String id, String pattern, Collection<String> nodeNames) {
+        this.id = id;
+        this.pattern = pattern;
+        Map<String, NodeProgress> nodes = new LinkedHashMap<>();
+        for (String nodeName : nodeNames)
+            nodes.put(nodeName, new NodeProgress());
+        this.nodes = Collections.unmodifiableMap(nodes);
+    }
+
+    public long getScanned() {
+        return nodes.values().stream().mapToLong(NodeProgress::getScanned).sum();
+    }
+
+    public long getDeleted() {
+        return nodes.values().stream().mapToLong(NodeProgress::getDeleted).sum();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 작업이 끝나면 삭제된 키 수로 완료된다. (취소된 경우 취소 시점까지의 수)
+     */
+    public CompletableFuture<Long> future() {
+        return completion;
+    }
+
+    NodeProgress node(String nodeName) {
+        return nodes.get(nodeName);
+    }
+
+    void finish(Throwable failure) {
+        finishedAt = System.currentTimeMillis();
+        if (failure != null) {
+            error = String.valueOf(failure.getMessage());
+            state = State.FAILED;
+            completion.completeExceptionally(failure);
+            return;
+        }
+        state = cancelled ? State.CANCELLED : State.COMPLETED;
+        completion.complete(getDeleted());
+    }
+
+    public static class NodeProgress {
+
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong deleted = new AtomicLong();
+        private volatile boolean done;
+
+        void scanned(int count) {
+            scanned.addAndGet(count);
+        }
+
+        void deleted(long count) {
+            deleted.addAndGet(count);
+        }
+
+        void done() {
+            done = true;
+        }
+
+        public long getScanned() {
+            return scanned.get();
+        }
+
+        public long getDeleted() {
+            return deleted.get();
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.redis.cluster.support;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.models.role.RedisInstance;
+import io.lettuce.core.models.role.RedisNodeDescription;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 응답시간이 짧은 replica부터 읽고, replica가 없거나 모두 끊긴 경우 master에서 읽는다.
+ * Lettuce는 선택 결과를 slot별로 보관하다가 토폴로지 갱신시 다시 계산하므로 순서는 토폴로지 갱신 주기마다 반영된다.
+ */
+public class LatencyAwareReadFrom extends ReadFrom {
+
+    private final NodeLatencyTracker latencyTracker;
+
+    public LatencyAwareReadFrom(NodeLatencyTracker latencyTracker) {
+        this.latencyTracker = latencyTracker;
+    }
+
+    @Override
+    public List<RedisNodeDescription> select(Nodes nodes) {
+        List<RedisNodeDescription> replicas = new ArrayList<>();
+        List<RedisNodeDescription> masters = new ArrayList<>();
+        for (RedisNodeDescription node : nodes) {
+            if (node.getRole() == RedisInstance.Role.MASTER)
+                masters.add(node);
+            else
+                replicas.add(node);
+        }
+        replicas.sort(Comparator.comparingDouble(node -> latencyTracker.getLatency(node.getUri().getHost(), node.getUri().getPort())));
+        replicas.addAll(masters);
+        return replicas;
+    }
+}
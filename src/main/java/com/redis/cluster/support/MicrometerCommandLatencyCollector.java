@@ -0,0 +1,79 @@
+package com.redis.cluster.support;
+
+import io.lettuce.core.metrics.CommandLatencyCollector;
+import io.lettuce.core.metrics.CommandLatencyId;
+import io.lettuce.core.metrics.CommandMetrics;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lettuce 커맨드 응답시간을 커맨드/클러스터 노드별 Micrometer 히스토그램(redis.command)으로 기록한다.
+ * 노드, 커맨드별 Timer를 한번만 생성하고 이후에는 조회만 하므로 커맨드당 할당이 없다.
+ */
+public class MicrometerCommandLatencyCollector implements CommandLatencyCollector {
+
+    private final MeterRegistry meterRegistry;
+    private final NodeLatencyTracker latencyTracker;
+    private final ConcurrentMap<SocketAddress, ConcurrentMap<ProtocolKeyword, Timer>> timers = new ConcurrentHashMap<>();
+
+    public MicrometerCommandLatencyCollector(MeterRegistry meterRegistry) {
+        this(meterRegistry, null);
+    }
+
+    /**
+     * @param latencyTracker 노드별 평균 응답시간도 함께 기록 (replica 읽기 노드 선택용). null이면 기록 안함
+     */
+    public MicrometerCommandLatencyCollector(MeterRegistry meterRegistry, NodeLatencyTracker latencyTracker) {
+        this.meterRegistry = meterRegistry;
+        this.latencyTracker = latencyTracker;
+    }
+
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        ConcurrentMap<ProtocolKeyword, Timer> nodeTimers = timers.get(remote);
+        if (nodeTimers == null)
+            nodeTimers = timers.computeIfAbsent(remote, r -> new ConcurrentHashMap<>());
+        Timer timer = nodeTimers.get(commandType);
+        if (timer == null)
+            timer = nodeTimers.computeIfAbsent(commandType, type -> Timer.builder("redis.command")
+                    .description("Redis command completion latency")
+                    .tag("command", type.name())
+                    .tag("node", node(remote))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        timer.record(completionLatency, TimeUnit.NANOSECONDS);
+        if (latencyTracker != null)
+            latencyTracker.record(remote, completionLatency);
+    }
+
+    @Override
+    public Map<CommandLatencyId, CommandMetrics> retrieveMetrics() {
+        // Micrometer 레지스트리에서 조회한다.
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    private String node(SocketAddress address) {
+        if (address instanceof InetSocketAddress)
+            return ((InetSocketAddress) address).getHostString() + ":" + ((InetSocketAddress) address).getPort();
+        return String.valueOf(address);
+    }
+}
@@ -0,0 +1,46 @@
+package com.redis.cluster.support;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 노드별 커맨드 응답시간의 지수이동평균(EWMA). LatencyAwareReadFrom이 읽기 노드를 고를 때 사용한다.
+ * 값은 double 비트를 AtomicLong에 CAS로 갱신하므로 커맨드당 할당이 없다.
+ */
+public class NodeLatencyTracker {
+
+    private static final double ALPHA = 0.2;
+
+    private final ConcurrentMap<SocketAddress, AtomicLong> latencies = new ConcurrentHashMap<>();
+
+    public void record(SocketAddress node, long latencyNanos) {
+        AtomicLong latency = latencies.get(node);
+        if (latency == null)
+            latency = latencies.computeIfAbsent(node, n -> new AtomicLong(Double.doubleToRawLongBits(latencyNanos)));
+        long current;
+        long updated;
+        do {
+            current = latency.get();
+            double average = Double.longBitsToDouble(current);
+            updated = Double.doubleToRawLongBits(average + ALPHA * (latencyNanos - average));
+        } while (!latency.compareAndSet(current, updated));
+    }
+
+    /**
+     * @return 평균 응답시간(ns). 기록이 없는 노드는 0
+     */
+    public double getLatency(String host, int port) {
+        for (Map.Entry<SocketAddress, AtomicLong> entry : latencies.entrySet()) {
+            if (!(entry.getKey() instanceof InetSocketAddress))
+                continue;
+            InetSocketAddress address = (InetSocketAddress) entry.getKey();
+            if (address.getPort() == port && address.getHostString().equals(host))
+                return Double.longBitsToDouble(entry.getValue().get());
+        }
+        return 0;
+    }
+}
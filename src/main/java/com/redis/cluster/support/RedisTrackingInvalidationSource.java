@@ -0,0 +1,259 @@
+package com.redis.cluster.support;
+
+import com.redis.cluster.cache.InvalidationListener;
+import com.redis.cluster.cache.InvalidationSource;
+import io.lettuce.core.*;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.core.resource.ClientResources;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Redis 6 client-side caching(CLIENT TRACKING) 통지 소스.
+ * <p>
+ * 클러스터의 master 노드마다
+ * 1. 통지 채널(__redis__:invalidate)을 구독하는 pub/sub 연결
+ * 2. CLIENT TRACKING on REDIRECT {pub/sub 연결 id} BCAST PREFIX {캐시 prefix} 를 설정한 연결
+ * 을 맺는다. BCAST 모드는 어느 연결에서 조회했는지와 무관하게 prefix에 해당하는 키가 변경되면 통지하므로
+ * 조회는 기존 클러스터 연결(RedisConnectionFactory)을 그대로 사용한다.
+ * <p>
+ * tracking은 연결 단위로 유지되므로 자동 재접속을 사용하지 않는다. 연결이 끊기면 즉시 비활성화하고 로컬 사본을 모두 비운 뒤
+ * 새 연결로 다시 설정한다. master 목록은 topologyCheck 주기로 확인해서 failover/노드 추가를 반영한다.
+ * <p>
+ * Lettuce 5.1은 RESP3를 지원하지 않고 RESP2 통지 메시지의 키 배열을 하나의 값으로 처리하므로
+ * 코덱(InvalidationCodec)에서 디코딩되는 키를 모아서 전달한다.
+ */
+@Slf4j
+public class RedisTrackingInvalidationSource implements InvalidationSource {
+
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final ClientResources clientResources;
+    private final String password;
+    private final Collection<String> prefixes;
+    private final long topologyCheckSec;
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, NodeTracker> trackers = new ConcurrentHashMap<>();
+    private volatile boolean active;
+    private volatile boolean stopped;
+    private RedisClient client;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param prefixes 통지받을 키 prefix (캐시 prefix. 예: user::). 비어 있으면 시작하지 않는다.
+     */
+    public RedisTrackingInvalidationSource(RedisConnectionFactory connectionFactory, ClientResources clientResources,
+                                           String password, Collection<String> prefixes, long topologyCheckSec) {
+        this.connectionFactory = connectionFactory;
+        this.clientResources = clientResources;
+        this.password = password;
+        this.prefixes = new ArrayList<>(prefixes);
+        this.topologyCheckSec = topologyCheckSec;
+    }
+
+    public void start() {
+        if (prefixes.isEmpty())
+            return;
+        client = RedisClient.create(clientResources);
+        client.setOptions(ClientOptions.builder().autoReconnect(false).build());
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                disconnected();
+            }
+
+            @Override
+            public void onRedisExceptionCaught(RedisChannelHandler<?, ?> connection, Throwable cause) {
+            }
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-tracking");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::syncNodes, 0, topologyCheckSec, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        if (client == null || stopped)
+            return;
+        stopped = true;
+        active = false;
+        scheduler.shutdownNow();
+        trackers.values().forEach(NodeTracker::close);
+        trackers.clear();
+        client.shutdown();
+    }
+
+    @Override
+    public void addListener(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    // master 목록과 tracking 연결을 맞춘다. 새로 설정한 노드가 있으면 그 사이 변경을 놓쳤을 수 있으므로 로컬 사본을 비운다.
+    private void syncNodes() {
+        try {
+            Set<String> masters = new HashSet<>();
+            try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+                for (RedisClusterNode node : connection.clusterGetNodes())
+                    if (node.isMaster())
+                        masters.add(node.getHost() + ":" + node.getPort());
+            }
+            boolean changed = false;
+            for (Iterator<Map.Entry<String, NodeTracker>> it = trackers.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, NodeTracker> tracker = it.next();
+                if (!masters.contains(tracker.getKey()) || !tracker.getValue().isOpen()) {
+                    tracker.getValue().close();
+                    it.remove();
+                }
+            }
+            for (String master : masters) {
+                if (!trackers.containsKey(master)) {
+                    trackers.put(master, track(master));
+                    changed = true;
+                }
+            }
+            if (changed)
+                notifyInvalidateAll();
+            active = true;
+        } catch (Exception e) {
+            log.warn("Client tracking unavailable - {}", e.getMessage());
+            active = false;
+            notifyInvalidateAll();
+        }
+    }
+
+    private void disconnected() {
+        if (stopped)
+            return;
+        active = false;
+        notifyInvalidateAll();
+        scheduler.execute(this::syncNodes);
+    }
+
+    private NodeTracker track(String node) {
+        String host = node.substring(0, node.lastIndexOf(':'));
+        int port = Integer.parseInt(node.substring(node.lastIndexOf(':') + 1));
+        RedisURI uri = RedisURI.create(host, port);
+        if (password != null)
+            uri.setPassword(password);
+
+        InvalidationCodec codec = new InvalidationCodec();
+        StatefulRedisPubSubConnection<String, String> pubSub = client.connectPubSub(codec, uri);
+        StatefulRedisConnection<String, String> tracking = null;
+        try {
+            Long clientId = pubSub.sync().dispatch(CommandType.CLIENT, new IntegerOutput<>(codec), new CommandArgs<>(codec).add("ID"));
+            pubSub.addListener(new RedisPubSubAdapter<String, String>() {
+                @Override
+                public void message(String channel, String message) {
+                    List<String> keys = codec.drain();
+                    if (keys.isEmpty())
+                        notifyInvalidateAll();
+                    else
+                        for (String key : keys)
+                            listeners.forEach(listener -> listener.invalidate(key));
+                }
+            });
+            pubSub.sync().subscribe(INVALIDATE_CHANNEL);
+
+            tracking = client.connect(StringCodec.UTF8, uri);
+            CommandArgs<String, String> args = new CommandArgs<>(StringCodec.UTF8)
+                    .add("TRACKING").add("on").add("REDIRECT").add(clientId).add("BCAST");
+            for (String prefix : prefixes)
+                args.add("PREFIX").add(prefix);
+            tracking.sync().dispatch(CommandType.CLIENT, new StatusOutput<>(StringCodec.UTF8), args);
+            log.info("Client tracking enabled on {} for {}", node, prefixes);
+            return new NodeTracker(pubSub, tracking);
+        } catch (RuntimeException e) {
+            pubSub.close();
+            if (tracking != null)
+                tracking.close();
+            throw e;
+        }
+    }
+
+    private void notifyInvalidateAll() {
+        listeners.forEach(InvalidationListener::invalidateAll);
+    }
+
+    private static class NodeTracker {
+        private final StatefulRedisPubSubConnection<String, String> pubSub;
+        private final StatefulRedisConnection<String, String> tracking;
+
+        NodeTracker(StatefulRedisPubSubConnection<String, String> pubSub, StatefulRedisConnection<String, String> tracking) {
+            this.pubSub = pubSub;
+            this.tracking = tracking;
+        }
+
+        boolean isOpen() {
+            return pubSub.isOpen() && tracking.isOpen();
+        }
+
+        void close() {
+            pubSub.close();
+            tracking.close();
+        }
+    }
+
+    /**
+     * 통지 메시지의 키 배열은 Lettuce 5.1 PubSubOutput에서 원소마다 decodeValue가 호출된 뒤 마지막 값만 남는다.
+     * 연결의 이벤트 루프에서 디코딩과 리스너 호출이 순서대로 일어나므로 디코딩된 값을 모아두었다가 리스너에서 꺼낸다.
+     * 키가 nil(FLUSHALL)이면 모인 값이 없다.
+     */
+    private static class InvalidationCodec implements RedisCodec<String, String> {
+        private final List<String> keys = new ArrayList<>();
+
+        List<String> drain() {
+            List<String> drained = new ArrayList<>(keys);
+            keys.clear();
+            return drained;
+        }
+
+        @Override
+        public String decodeKey(ByteBuffer bytes) {
+            return StringCodec.UTF8.decodeKey(bytes);
+        }
+
+        @Override
+        public String decodeValue(ByteBuffer bytes) {
+            String key = StringCodec.UTF8.decodeValue(bytes);
+            keys.add(key);
+            return key;
+        }
+
+        @Override
+        public ByteBuffer encodeKey(String key) {
+            return StringCodec.UTF8.encodeKey(key);
+        }
+
+        @Override
+        public ByteBuffer encodeValue(String value) {
+            return StringCodec.UTF8.encodeValue(value);
+        }
+    }
+}
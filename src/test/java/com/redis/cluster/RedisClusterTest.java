@@ -2,6 +2,8 @@ package com.redis.cluster;
 
 import com.redis.cluster.entity.redis.Student;
 import com.redis.cluster.repo.redis.StudentRedisRepo;
+import com.redis.cluster.support.BulkWriteResult;
+import com.redis.cluster.support.ClusterBulkWriter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.Logger;
@@ -14,10 +16,12 @@ import org.springframework.data.redis.connection.DataType;
 import org.springframework.data.redis.core.*;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.*;
@@ -34,6 +38,9 @@ public class RedisClusterTest {
     @Autowired
     private StudentRedisRepo redisRepo;
 
+    @Autowired
+    private ClusterBulkWriter clusterBulkWriter;
+
     /**
      * 문자 데이터 구조 처리
      */
@@ -53,6 +60,22 @@ public class RedisClusterTest {
         log.info("{}", values);
     }
 
+    /**
+     * 슬롯/노드별 파이프라인 일괄 저장
+     */
+    @Test
+    public void bulkWrite() {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < 5000; i++)
+            values.put("bulk_" + i, String.valueOf(i));
+        BulkWriteResult result = clusterBulkWriter.write(values, Duration.ofSeconds(60));
+        log.info("##### bulkWrite #####");
+        log.info("written : {}, redirects : {}, failures : {}", result.getWritten(), result.getRedirects(), result.getFailures());
+        assertTrue(result.isSuccess());
+        assertEquals(5000, result.getWritten());
+        assertThat(redisTemplate.getExpire("bulk_0"), greaterThan(0L));
+    }
+
     /**
      * List 데이터 구조 처리 - 순서 있음. value 중복 허용
      */
@@ -232,4 +255,59 @@ public class RedisClusterTest {
         assertEquals(1L, cachedStudent.getStudentId());
         assertEquals("정직하라", cachedStudent.getName());
     }
+
+    @Test
+    public void redisHash_PipelinedBulk() {
+        List<Student> students = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (long studentId = 1000; studentId < 2000; studentId++) {
+            students.add(Student.builder().studentId(studentId).name("student_" + studentId).build());
+            ids.add(studentId);
+        }
+        redisRepo.saveAllPipelined(students);
+
+        List<Student> found = redisRepo.findAllByIdPipelined(ids);
+        assertEquals(1000, found.size());
+        assertEquals(1000L, found.get(0).getStudentId());
+        assertEquals("student_1999", found.get(999).getName());
+        // CrudRepository와 같은 형식으로 저장된다.
+        assertEquals("student_1500", redisRepo.findById(1500L).map(Student::getName).orElse(null));
+
+        try (Stream<Student> stream = redisRepo.streamAll()) {
+            assertEquals(1000, stream.filter(student -> student.getStudentId() >= 1000 && student.getStudentId() < 2000).count());
+        }
+
+        redisRepo.deleteAllByIdPipelined(ids);
+        assertTrue(redisRepo.findAllByIdPipelined(ids).isEmpty());
+    }
+
+    /**
+     * findAll, count, delete는 일괄 저장한 엔티티(샤드 set)도 대상으로 하고, 만료된 id는 세지 않고 지운다.
+     */
+    @Test
+    public void redisHash_PipelinedCrud() {
+        List<Student> students = new ArrayList<>();
+        for (long studentId = 3000; studentId < 3100; studentId++)
+            students.add(Student.builder().studentId(studentId).name("student_" + studentId).build());
+        redisRepo.saveAllPipelined(students);
+        redisRepo.save(Student.builder().studentId(3100L).name("student_3100").build());
+        // 만료된 엔티티의 id (77777 -> 샤드 1)
+        redisTemplate.opsForZSet().add("student:ids:{1}", "77777", 1);
+
+        Set<Long> found = new HashSet<>();
+        redisRepo.findAll().forEach(student -> found.add(student.getStudentId()));
+        for (long studentId = 3000; studentId <= 3100; studentId++)
+            assertTrue(found.contains(studentId));
+        assertEquals(found.size(), redisRepo.count());
+        assertNull(redisTemplate.opsForZSet().score("student:ids:{1}", "77777"));
+
+        // 다른 테스트의 엔티티는 남기고 이 테스트의 엔티티만 CrudRepository의 delete 메서드로 삭제
+        long count = redisRepo.count();
+        redisRepo.deleteById(3100L);
+        redisRepo.delete(students.get(0));
+        redisRepo.deleteAll(students.subList(1, students.size()));
+        assertEquals(count - 101, redisRepo.count());
+        assertFalse(redisRepo.findById(3000L).isPresent());
+        assertFalse(redisRepo.findById(3100L).isPresent());
+    }
 }
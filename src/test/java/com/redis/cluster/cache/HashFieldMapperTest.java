@@ -0,0 +1,50 @@
+package com.redis.cluster.cache;
+
+import com.redis.cluster.entity.User;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HashFieldMapperTest {
+
+    private final HashFieldMapper<User> mapper = new HashFieldMapper<>(User.class);
+
+    /**
+     * 필드별로 저장하고 password(WRITE_ONLY)를 포함하여 복원
+     */
+    @Test
+    public void roundTrip() {
+        User user = User.builder()
+                .msrl(1L)
+                .uid("happydaddy@naver.com")
+                .name("happydaddy")
+                .password("password")
+                .roles(Collections.singletonList("ROLE_USER"))
+                .build();
+        Map<String, byte[]> hash = mapper.toHash(user);
+        assertEquals("\"happydaddy\"", new String(hash.get("name"), StandardCharsets.UTF_8));
+
+        User cached = mapper.fromHash(hash);
+        assertEquals(1L, cached.getMsrl());
+        assertEquals("password", cached.getPassword());
+        assertEquals("ROLE_USER", cached.getRoles().get(0));
+    }
+
+    /**
+     * null 필드는 값이 null인 항목으로 표시되고, 필드 하나만 따로 읽을 수 있다.
+     */
+    @Test
+    public void fields() {
+        Map<String, byte[]> hash = mapper.toHash(User.builder().msrl(2L).uid("uid").name("name").build());
+        assertTrue(hash.containsKey("password"));
+        assertNull(hash.get("password"));
+        assertEquals(Collections.singletonList("ROLE_USER"),
+                (List<?>) mapper.readField(mapper.writeField(Collections.singletonList("ROLE_USER"))));
+        assertEquals("name", mapper.readField(hash.get("name")));
+    }
+}
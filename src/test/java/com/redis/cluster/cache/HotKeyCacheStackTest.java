@@ -0,0 +1,57 @@
+package com.redis.cluster.cache;
+
+import com.redis.cluster.common.CacheKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+/**
+ * 기본 캐시 구성(cache.hot-key.names=user)에서 HotKeyCache가 user 조회를 집계하는지 확인
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class HotKeyCacheStackTest {
+
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    private Cache cache;
+    private long msrl;
+
+    @Before
+    public void setUp() {
+        cache = cacheManager.getCache(CacheKey.USER);
+        msrl = -System.nanoTime();
+    }
+
+    @After
+    public void tearDown() {
+        cache.evict(msrl);
+    }
+
+    /**
+     * hot key 캐시는 L1 없이 구성되어 몰리는 조회가 hot key로 집계되고 로컬 사본으로 응답
+     */
+    @Test
+    public void pinHotKeyInsteadOfL1() {
+        assertFalse(cache instanceof TwoLevelCache);
+        HotKeyCache hotKeyCache = Caches.unwrap(cache, HotKeyCache.class);
+        assertNotNull(hotKeyCache);
+
+        cache.put(msrl, "happydaddy");
+        for (int i = 0; i < 1000; i++)
+            assertEquals("happydaddy", cache.get(msrl, String.class));
+        assertTrue(hotKeyCache.getPinnedHitCount() > 0);
+        assertTrue(hotKeyCache.getDetector().getHotKeys().stream().anyMatch(hotKey -> hotKey.getKey().equals(String.valueOf(msrl))));
+
+        cache.put(msrl, "happydaddy_re");
+        assertEquals("happydaddy_re", cache.get(msrl, String.class));
+    }
+}
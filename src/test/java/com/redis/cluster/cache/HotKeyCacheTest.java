@@ -0,0 +1,73 @@
+package com.redis.cluster.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class HotKeyCacheTest {
+
+    private AtomicLong now;
+    private ConcurrentMapCache remoteCache;
+    private HotKeyCache cache;
+
+    @Before
+    public void setUp() {
+        now = new AtomicLong();
+        remoteCache = new ConcurrentMapCache("user", false);
+        // 1초 구간에 100회 이상 조회되면 hot key
+        HotKeyDetector detector = new HotKeyDetector(100, 8, 1000, now::get);
+        cache = new HotKeyCache(remoteCache, detector, 8, Duration.ofMinutes(1));
+        for (long msrl = 0; msrl < 1000; msrl++)
+            remoteCache.put(msrl, "user" + msrl);
+    }
+
+    /**
+     * 몰리는 키만 hot key로 집계되고 조회수 순으로 반환
+     */
+    @Test
+    public void detectSkewedKeys() {
+        for (int i = 0; i < 10000; i++) {
+            cache.get(1L);
+            if (i % 2 == 0)
+                cache.get(2L);
+            cache.get((long) (i % 1000));
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+
+        List<HotKeyDetector.HotKey> hotKeys = cache.getDetector().getHotKeys();
+        assertEquals(2, hotKeys.size());
+        assertEquals("1", hotKeys.get(0).getKey());
+        assertEquals("2", hotKeys.get(1).getKey());
+        assertTrue(hotKeys.get(0).getRate() >= 10000);
+    }
+
+    /**
+     * hot key는 로컬 사본으로 응답하고 변경/무효화시 제거
+     */
+    @Test
+    public void pinHotKey() {
+        for (int i = 0; i < 200; i++)
+            assertEquals("user1", cache.get(1L, String.class));
+        assertTrue(cache.getPinnedHitCount() > 0);
+        assertEquals(1, cache.getPinnedSize());
+
+        // Redis 값이 바뀌어도 보관기간 동안은 로컬 사본
+        remoteCache.put(1L, "changed");
+        assertEquals("user1", cache.get(1L, String.class));
+        cache.evictLocal("1");
+        assertEquals("changed", cache.get(1L, String.class));
+
+        cache.put(1L, "updated");
+        assertEquals("updated", cache.get(1L, () -> "loaded"));
+        // 조회가 적은 키는 보관하지 않음
+        cache.get(2L);
+        assertEquals(1, cache.getPinnedSize());
+    }
+}
@@ -0,0 +1,120 @@
+package com.redis.cluster.cache;
+
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class LoadCoalescingCacheTest {
+
+    /**
+     * 동일 키에 대한 동시 미스는 로더를 한번만 호출
+     */
+    @Test
+    public void coalesceConcurrentMisses() throws Exception {
+        ConcurrentMapCache remoteCache = new ConcurrentMapCache("user", false);
+        LoadCoalescingCache cache = new LoadCoalescingCache(remoteCache, null, null, 0, Duration.ZERO, null);
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get(1L, () -> {
+                    loaderCalls.incrementAndGet();
+                    Thread.sleep(200);
+                    return "happydaddy";
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results)
+            assertEquals("happydaddy", result.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, loaderCalls.get());
+        assertEquals("happydaddy", remoteCache.get(1L, String.class));
+    }
+
+    /**
+     * 없는 값은 캐시하지 않음
+     */
+    @Test
+    public void nullNotCached() {
+        ConcurrentMapCache remoteCache = new ConcurrentMapCache("user", false);
+        LoadCoalescingCache cache = new LoadCoalescingCache(remoteCache, null, null, 0, Duration.ZERO, null);
+        assertNull(cache.get(2L, () -> null));
+        assertNull(remoteCache.get(2L));
+    }
+
+    /**
+     * 진행중인 로딩이 끝나지 않으면 대기 시간(lockTimeout) 이후 직접 로딩
+     */
+    @Test
+    public void awaitInFlightWithTimeout() throws Exception {
+        ConcurrentMapCache remoteCache = new ConcurrentMapCache("user", false);
+        LoadCoalescingCache cache = new LoadCoalescingCache(remoteCache, null, Duration.ofMillis(200), 0, Duration.ZERO, null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> stuck = executor.submit(() -> cache.get(1L, () -> {
+            loading.countDown();
+            release.await();
+            return "stuck";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertEquals("happydaddy", cache.get(1L, () -> "happydaddy"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+
+        release.countDown();
+        assertEquals("stuck", stuck.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    /**
+     * 로딩시간이 짧아도 만료 전 refreshAheadWindow(L1 만료시간) 구간의 조회에서 미리 갱신한다.
+     */
+    @Test
+    public void refreshAheadWithinWindow() {
+        ConcurrentMapCache remoteCache = new ConcurrentMapCache("user", false);
+        AtomicLong now = new AtomicLong();
+        // -ln(0.5) = 0.69 -> 갱신 구간 약 6.9초
+        LoadCoalescingCache cache = new LoadCoalescingCache(remoteCache, null, null, Duration.ofSeconds(180),
+                1.0, Duration.ofSeconds(10), Runnable::run, now::get, () -> 0.5);
+        assertEquals("happydaddy", cache.get(1L, () -> "happydaddy"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(170));
+        assertEquals("happydaddy", cache.get(1L, () -> "happydaddy_re"));
+        assertEquals("happydaddy", remoteCache.get(1L, String.class));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals("happydaddy", cache.get(1L, () -> "happydaddy_re"));
+        assertEquals("happydaddy_re", remoteCache.get(1L, String.class));
+        assertEquals("happydaddy_re", cache.get(1L, () -> "happydaddy_re2"));
+    }
+
+    /**
+     * 최소 구간이 없으면 로딩시간(delta)만큼의 구간에서만 갱신하므로 같은 시점에 갱신되지 않는다.
+     */
+    @Test
+    public void noRefreshAheadWithoutWindow() {
+        ConcurrentMapCache remoteCache = new ConcurrentMapCache("user", false);
+        AtomicLong now = new AtomicLong();
+        LoadCoalescingCache cache = new LoadCoalescingCache(remoteCache, null, null, Duration.ofSeconds(180),
+                1.0, Duration.ZERO, Runnable::run, now::get, () -> 0.5);
+        cache.get(1L, () -> "happydaddy");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(175));
+        assertEquals("happydaddy", cache.get(1L, () -> "happydaddy_re"));
+        assertEquals("happydaddy", remoteCache.get(1L, String.class));
+    }
+}
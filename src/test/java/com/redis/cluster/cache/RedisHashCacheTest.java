@@ -0,0 +1,90 @@
+package com.redis.cluster.cache;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisHashCacheTest {
+
+    @Autowired
+    private RedisCacheManager redisCacheManager;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RedisHashCache cache;
+    private long msrl;
+
+    @Before
+    public void setUp() {
+        cache = new RedisHashCache((RedisCache) redisCacheManager.getCache(CacheKey.USER), connectionFactory, new HashFieldMapper<>(User.class));
+        msrl = -System.nanoTime();
+    }
+
+    @After
+    public void tearDown() {
+        cache.evict(msrl);
+    }
+
+    /**
+     * 수정은 바뀐 필드만 쓰고 null이 된 필드는 지우며 TTL을 갱신한다.
+     */
+    @Test
+    public void putChangedFields() {
+        cache.put(msrl, user("happydaddy", "password"));
+        String key = cache.keyOf(msrl);
+        stringRedisTemplate.expire(key, 10, TimeUnit.SECONDS);
+
+        cache.put(msrl, user("happydaddy_re", null));
+        User cached = (User) cache.get(msrl).get();
+        assertEquals("happydaddy_re", cached.getName());
+        assertNull(cached.getPassword());
+        assertFalse(stringRedisTemplate.opsForHash().hasKey(key, "password"));
+        assertTrue(stringRedisTemplate.getExpire(key) > 10);
+    }
+
+    /**
+     * putFields는 캐시된 항목의 지정한 필드만 바꾸고, 항목이 없으면 쓰지 않는다.
+     */
+    @Test
+    public void putFields() {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "happydaddy_re");
+        assertFalse(cache.putFields(msrl, fields));
+        assertNull(cache.get(msrl));
+
+        cache.put(msrl, user("happydaddy", "password"));
+        assertTrue(cache.putFields(msrl, fields));
+        Map<String, Object> values = cache.getFields(msrl, Arrays.asList("name", "uid"));
+        assertEquals("happydaddy_re", values.get("name"));
+        assertEquals("happydaddy@naver.com", values.get("uid"));
+    }
+
+    private User user(String name, String password) {
+        return User.builder().msrl(msrl).uid("happydaddy@naver.com").name(name).password(password)
+                .roles(Collections.singletonList("ROLE_USER")).build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.redis.cluster.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redis.cluster.common.CacheKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+
+public class ReplicaReadCacheWriterTest {
+
+    private static final byte[] KEY = "user::1".getBytes();
+
+    private RedisCacheWriter masterWriter;
+    private RedisCacheWriter replicaWriter;
+    private RecentWrites recentWrites;
+    private ReplicaReadCacheWriter cacheWriter;
+
+    @Before
+    public void setUp() {
+        masterWriter = mock(RedisCacheWriter.class);
+        replicaWriter = mock(RedisCacheWriter.class);
+        recentWrites = new RecentWrites(Duration.ofMinutes(1), 100);
+        cacheWriter = new ReplicaReadCacheWriter(masterWriter, replicaWriter, Collections.singleton("user"), recentWrites);
+    }
+
+    /**
+     * 지정된 캐시만 replica에서 조회, 쓰기는 항상 master
+     */
+    @Test
+    public void routeReads() {
+        cacheWriter.get("user", KEY);
+        cacheWriter.get("room", KEY);
+        verify(replicaWriter).get("user", KEY);
+        verify(masterWriter).get("room", KEY);
+
+        cacheWriter.put("user", KEY, new byte[]{1}, Duration.ZERO);
+        verify(masterWriter).put("user", KEY, new byte[]{1}, Duration.ZERO);
+        verify(replicaWriter, never()).put(anyString(), any(), any(), any());
+    }
+
+    /**
+     * 방금 변경한 키와 전체 삭제된 캐시는 master에서 조회
+     */
+    @Test
+    public void readYourWrites() {
+        cacheWriter.remove("user", "user::1".getBytes());
+        cacheWriter.get("user", KEY);
+        verify(masterWriter).get("user", KEY);
+
+        cacheWriter.get("user", "user::2".getBytes());
+        verify(replicaWriter).get("user", "user::2".getBytes());
+
+        cacheWriter.clean("user", "user::*".getBytes());
+        cacheWriter.get("user", "user::3".getBytes());
+        verify(masterWriter).get("user", "user::3".getBytes());
+        verifyNoMoreInteractions(replicaWriter);
+    }
+
+    /**
+     * master에 쓰는 중인 키도 master에서 조회 (쓰기 전에 기록)
+     */
+    @Test
+    public void readMasterWhileWriting() {
+        doAnswer(invocation -> cacheWriter.get("user", KEY)).when(masterWriter).put("user", KEY, new byte[]{1}, Duration.ZERO);
+        doAnswer(invocation -> cacheWriter.get("user", "user::2".getBytes())).when(masterWriter).remove("user", "user::2".getBytes());
+
+        cacheWriter.put("user", KEY, new byte[]{1}, Duration.ZERO);
+        cacheWriter.remove("user", "user::2".getBytes());
+        verify(masterWriter).get("user", KEY);
+        verify(masterWriter).get("user", "user::2".getBytes());
+        verifyNoMoreInteractions(replicaWriter);
+    }
+
+    /**
+     * 다른 인스턴스가 변경한 키(무효화 메시지)도 master에서 조회. L1을 비운 뒤 복제 전 replica 값을 다시 보관하지 않는다.
+     */
+    @Test
+    public void readMasterAfterRemoteInvalidation() throws Exception {
+        CacheInvalidationPublisher publisher = mock(CacheInvalidationPublisher.class);
+        when(publisher.getInstanceId()).thenReturn("self");
+        ObjectMapper objectMapper = new ObjectMapper();
+        CacheInvalidationSubscriber subscriber = new CacheInvalidationSubscriber(mock(RedisMessageListenerContainer.class), publisher,
+                RedisCacheManager.builder(cacheWriter).build(), objectMapper, recentWrites);
+
+        subscriber.onMessage(message(objectMapper, CacheInvalidationMessage.builder().instanceId("other").cacheName("user").key("1").build()), null);
+        cacheWriter.get("user", KEY);
+        verify(masterWriter).get("user", KEY);
+
+        subscriber.onMessage(message(objectMapper, CacheInvalidationMessage.builder().instanceId("other").cacheName("room").build()), null);
+        cacheWriter.get("user", "user::2".getBytes());
+        verify(replicaWriter).get("user", "user::2".getBytes());
+        verifyNoMoreInteractions(replicaWriter);
+    }
+
+    private DefaultMessage message(ObjectMapper objectMapper, CacheInvalidationMessage invalidation) throws Exception {
+        return new DefaultMessage(CacheKey.CACHE_INVALIDATION_CHANNEL.getBytes(), objectMapper.writeValueAsBytes(invalidation));
+    }
+}
@@ -0,0 +1,102 @@
+package com.redis.cluster.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Redis 서버 대신 통지를 직접 발생시키는 FakeInvalidationSource로 검증
+ */
+public class TrackingCacheTest {
+
+    private FakeInvalidationSource source;
+    private ConcurrentMapCache remoteCache;
+    private TrackingCache cache;
+
+    @Before
+    public void setUp() {
+        source = new FakeInvalidationSource();
+        remoteCache = new ConcurrentMapCache("user", false);
+        cache = new TrackingCache(remoteCache, key -> "user::" + key, source, 100, Duration.ofMinutes(10));
+        remoteCache.put(1L, "happydaddy");
+    }
+
+    /**
+     * 통지가 올 때까지 로컬 사본으로 응답하고, 통지된 키만 제거
+     */
+    @Test
+    public void invalidateTrackedKey() {
+        assertEquals("happydaddy", cache.get(1L, String.class));
+        remoteCache.put(1L, "changed");
+        remoteCache.put(2L, "other");
+        assertEquals("other", cache.get(2L, String.class));
+        assertEquals("happydaddy", cache.get(1L, String.class));
+
+        source.invalidate("user::1");
+        assertEquals("changed", cache.get(1L, String.class));
+        assertEquals(2, cache.getLocalSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    /**
+     * 재접속 등으로 비활성화되면 로컬 사본을 비우고 원격 캐시에서 조회
+     */
+    @Test
+    public void flushOnReconnect() {
+        cache.get(1L);
+        source.disconnect();
+        remoteCache.put(1L, "changed");
+        assertEquals("changed", cache.get(1L, String.class));
+        assertEquals(0, cache.getLocalSize());
+
+        source.active = true;
+        assertEquals("changed", cache.get(1L, String.class));
+        assertEquals(1, cache.getLocalSize());
+        assertEquals(1, cache.getFlushCount());
+    }
+
+    /**
+     * 조회 중 무효화가 발생하면 조회 결과를 보관하지 않는다.
+     */
+    @Test
+    public void skipValueInvalidatedDuringLoad() {
+        assertEquals("loaded", cache.get(3L, () -> {
+            source.invalidate("user::3");
+            return "loaded";
+        }));
+        assertEquals(0, cache.getLocalSize());
+        assertEquals("loaded", cache.get(3L, () -> "reloaded"));
+        assertEquals(1, cache.getLocalSize());
+    }
+
+    private static class FakeInvalidationSource implements InvalidationSource {
+        private final List<InvalidationListener> listeners = new ArrayList<>();
+        private boolean active = true;
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+
+        void invalidate(String key) {
+            listeners.forEach(listener -> listener.invalidate(key));
+        }
+
+        void disconnect() {
+            active = false;
+            listeners.forEach(InvalidationListener::invalidateAll);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.redis.cluster.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remoteCache;
+    private CacheInvalidationPublisher publisher;
+    private TwoLevelCache cache;
+
+    @Before
+    public void setUp() {
+        remoteCache = new ConcurrentMapCache("user", false);
+        publisher = mock(CacheInvalidationPublisher.class);
+        cache = new TwoLevelCache("user", Caffeine.newBuilder().maximumSize(100).build(), remoteCache, publisher);
+    }
+
+    /**
+     * L2 적중 후에는 L1에서 응답
+     */
+    @Test
+    public void readThroughLocal() {
+        remoteCache.put(1L, "happydaddy");
+        assertEquals("happydaddy", cache.get(1L, String.class));
+        assertEquals("happydaddy", cache.get(1L, String.class));
+        assertEquals(1L, cache.getStatistics().getL2HitCount());
+        assertEquals(1L, cache.getStatistics().getL1HitCount());
+    }
+
+    /**
+     * 로더 호출은 L2 실패로 집계되고 null은 로컬에 저장하지 않는다.
+     */
+    @Test
+    public void loaderMiss() {
+        assertEquals("loaded", cache.get(2L, () -> "loaded"));
+        assertNull(cache.get(3L, () -> null));
+        assertEquals(2L, cache.getStatistics().getL2MissCount());
+        assertEquals(1L, cache.getLocalSize());
+    }
+
+    /**
+     * 변경시 무효화 메시지 발행, 원격 무효화는 로컬만 제거
+     */
+    @Test
+    public void invalidation() {
+        cache.put(1L, "happydaddy");
+        verify(publisher).publish("user", 1L);
+        cache.evictLocal("1");
+        assertEquals(0L, cache.getLocalSize());
+        assertEquals("happydaddy", cache.get(1L, String.class));
+        cache.clear();
+        verify(publisher).publishClear("user");
+        assertNull(cache.get(1L));
+    }
+}
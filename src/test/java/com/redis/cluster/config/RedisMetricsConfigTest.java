@@ -0,0 +1,52 @@
+package com.redis.cluster.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redis.cluster.cache.*;
+import io.micrometer.core.instrument.Tag;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class RedisMetricsConfigTest {
+
+    private final CacheMeterBinderProvider<Cache> provider = new RedisMetricsConfig().cacheMeterBinderProvider();
+    private final Iterable<Tag> tags = Collections.emptyList();
+
+    /**
+     * 최상위 캐시가 TwoLevelCache이면 L1/L2 지표, L1 없이 TrackingCache이면 tracking 지표
+     */
+    @Test
+    public void bindDecoratedCaches() {
+        Cache remoteCache = new ConcurrentMapCache("user");
+        TwoLevelCache twoLevelCache = new TwoLevelCache("user", Caffeine.newBuilder().build(), remoteCache, null);
+        assertTrue(provider.getMeterBinder(twoLevelCache, tags) instanceof TwoLevelCacheMeterBinder);
+
+        TrackingCache trackingCache = new TrackingCache(remoteCache, String::valueOf, mock(InvalidationSource.class), 100, Duration.ofMinutes(1));
+        assertTrue(provider.getMeterBinder(trackingCache, tags) instanceof TrackingCacheMeterBinder);
+        assertTrue(provider.getMeterBinder(new WrappingCache(trackingCache), tags) instanceof TrackingCacheMeterBinder);
+
+        assertNull(provider.getMeterBinder(remoteCache, tags));
+    }
+
+    /**
+     * tracking 캐시는 replica에서 읽을 수 없다.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void rejectReplicaReadTrackingCache() {
+        new RedisCacheConfig().redisCacheWriter(null, null, null, null,
+                Collections.singleton("user"), Collections.singleton("user"));
+    }
+
+    private static class WrappingCache extends CacheDecorator {
+        WrappingCache(Cache delegate) {
+            super(delegate);
+        }
+    }
+}
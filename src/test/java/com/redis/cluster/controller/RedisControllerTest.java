@@ -18,6 +18,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.hamcrest.Matchers.greaterThan;
@@ -97,6 +98,45 @@ public class RedisControllerTest {
                 .andExpect(jsonPath("$.roles[0]").value("ROLE_ADMIN"));
     }
 
+    @Test
+    public void C_findAll() throws Exception {
+        // 두번째 요청은 캐시에서 응답
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/redis/users/batch")
+                    .header("Accept", "application/json;charset=UTF-8")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(Arrays.asList(msrl, -1L, msrl))))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].msrl").value(msrl))
+                    .andExpect(jsonPath("$[0].name").value("happydaddy"));
+        }
+    }
+
+    @Test
+    public void D_findByUid() throws Exception {
+        // 첫 요청은 DB에서 조회하여 인덱스를 만들고, 두번째 요청은 인덱스와 user 캐시에서 응답
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/redis/user/uid/happydaddy@naver.com"))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.msrl").value(msrl))
+                    .andExpect(jsonPath("$.name").value("happydaddy"));
+        }
+    }
+
+    @Test
+    public void E_findAllOversize() throws Exception {
+        Long[] msrls = new Long[1001];
+        Arrays.fill(msrls, msrl);
+        mockMvc.perform(post("/redis/users/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(msrls)))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
     @After
     public void delUser() throws Exception {
         mockMvc.perform(delete("/redis/user/" + msrl))
@@ -0,0 +1,126 @@
+package com.redis.cluster.pubsub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisPublisherTest {
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RoomHistoryStore historyStore;
+    private RedisPublisher publisher;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        historyStore = new RoomHistoryStore(connectionFactory, false, 0);
+    }
+
+    @After
+    public void tearDown() {
+        if (publisher != null)
+            publisher.stop();
+    }
+
+    /**
+     * 모아서 발행한 메시지의 future는 PUBLISH 응답(수신자 수)으로 완료
+     */
+    @Test
+    public void publish() throws Exception {
+        publisher = publisher(2, 1024, false);
+        publisher.start();
+        List<CompletableFuture<Long>> futures = publishAll(100);
+        for (CompletableFuture<Long> future : futures)
+            assertTrue(future.get(5, TimeUnit.SECONDS) >= 0);
+    }
+
+    /**
+     * packed 모드에서도 메시지별 future가 모두 완료
+     */
+    @Test
+    public void publishPacked() throws Exception {
+        publisher = publisher(50, 1024, true);
+        publisher.start();
+        List<CompletableFuture<Long>> futures = publishAll(100);
+        for (CompletableFuture<Long> future : futures)
+            assertTrue(future.get(5, TimeUnit.SECONDS) >= 0);
+    }
+
+    /**
+     * 종료시 발행 스레드가 모으던 묶음과 큐에 남은 메시지를 모두 발행
+     */
+    @Test
+    public void stopFlushesPending() throws Exception {
+        // window 동안 발행 스레드가 묶음을 들고 있는 상태에서 종료
+        publisher = publisher(500, 1024, false);
+        publisher.start();
+        List<CompletableFuture<Long>> futures = publishAll(100);
+        Thread.sleep(50);
+        publisher.stop();
+        publisher = null;
+        for (CompletableFuture<Long> future : futures)
+            assertTrue(future.get(5, TimeUnit.SECONDS) >= 0);
+    }
+
+    /**
+     * 큐가 가득 차면 future를 실패로 완료하고 rejected 지표를 올린다.
+     */
+    @Test
+    public void rejectWhenFull() throws Exception {
+        publisher = publisher(2, 1, false);
+        CompletableFuture<Long> accepted = publisher.publish(message(0));
+        CompletableFuture<Long> rejected = publisher.publish(message(1));
+        assertFalse(accepted.isDone());
+        try {
+            rejected.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, meterRegistry.get("pubsub.publish.rejected").counter().count(), 0);
+        // 시작하지 않은 상태에서 종료해도 남은 메시지를 발행
+        publisher.stop();
+        publisher = null;
+        assertTrue(accepted.get(5, TimeUnit.SECONDS) >= 0);
+    }
+
+    private RedisPublisher publisher(long windowMillis, int capacity, boolean packed) {
+        return new RedisPublisher(connectionFactory, new RoomShards(16), historyStore, new RoomMessageCodec(objectMapper),
+                meterRegistry, windowMillis, 256, capacity, packed);
+    }
+
+    private List<CompletableFuture<Long>> publishAll(int count) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            futures.add(publisher.publish(message(i)));
+        return futures;
+    }
+
+    private static RoomMessage message(int seq) {
+        return RoomMessage.builder().roomId("room_" + (seq % 4)).name("happydaddy").message("hello " + seq).build();
+    }
+}
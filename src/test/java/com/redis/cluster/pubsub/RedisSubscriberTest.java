@@ -0,0 +1,91 @@
+package com.redis.cluster.pubsub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 실제 리스너 컨테이너를 거쳐 받은 메시지의 방별 순서
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RedisSubscriberTest {
+
+    private static final int COUNT = 1000;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private RoomRouter roomRouter;
+
+    @Autowired
+    private RoomShards roomShards;
+
+    @Autowired
+    private RoomMessageCodec roomMessageCodec;
+
+    private final List<RoomMessage> received = Collections.synchronizedList(new ArrayList<>());
+    private String[] roomIds;
+
+    @Before
+    public void setUp() {
+        long id = System.nanoTime();
+        roomIds = new String[]{"order_" + id + "_1", "order_" + id + "_2", "order_" + id + "_3"};
+        for (String roomId : roomIds)
+            roomRouter.join(roomId, received::add);
+    }
+
+    @After
+    public void tearDown() {
+        for (String roomId : roomIds)
+            roomRouter.close(roomId);
+    }
+
+    /**
+     * 한 연결에서 차례로 발행한 메시지는 방별로 발행 순서대로 핸들러에 전달된다.
+     */
+    @Test
+    public void keepOrderPerRoom() throws Exception {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            for (int i = 0; i < COUNT; i++) {
+                RoomMessage message = RoomMessage.builder().roomId(roomIds[i % roomIds.length]).name("happydaddy").message(String.valueOf(i)).build();
+                connection.publish(roomShards.topicOf(message.getRoomId()).getTopic().getBytes(StandardCharsets.UTF_8),
+                        roomMessageCodec.encode(message));
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received.size() < COUNT && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(COUNT, received.size());
+        for (int room = 0; room < roomIds.length; room++)
+            assertEquals(seq(room), sequence(roomIds[room]));
+    }
+
+    private List<Integer> sequence(String roomId) {
+        synchronized (received) {
+            return received.stream().filter(message -> message.getRoomId().equals(roomId))
+                    .map(message -> Integer.valueOf(message.getMessage())).collect(Collectors.toList());
+        }
+    }
+
+    private List<Integer> seq(int room) {
+        return IntStream.range(0, COUNT).filter(i -> i % roomIds.length == room).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,83 @@
+package com.redis.cluster.pubsub;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class RoomHistoryStoreTest {
+
+    private static final String GROUP = "history-test";
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RoomHistoryStore roomHistoryStore;
+    private String room1;
+    private String room2;
+
+    @Before
+    public void setUp() {
+        roomHistoryStore = new RoomHistoryStore(connectionFactory, true, 1000);
+        room1 = "history_" + System.nanoTime();
+        room2 = room1 + "_2";
+    }
+
+    @After
+    public void tearDown() {
+        stringRedisTemplate.delete("room:history:{" + room1 + "}");
+        stringRedisTemplate.delete("room:history:{" + room2 + "}");
+    }
+
+    /**
+     * 그룹 생성 이후 메시지만 방별로 읽고, XACK 한 메시지는 다시 전달되지 않는다.
+     */
+    @Test
+    public void readGroupAndAcknowledge() {
+        // Redis 5는 stream이 있어야 그룹을 만들 수 있다.
+        append(room1, "before");
+        append(room2, "before");
+        roomHistoryStore.createGroup(room1, GROUP);
+        roomHistoryStore.createGroup(room2, GROUP);
+        // 이미 있는 그룹은 무시
+        roomHistoryStore.createGroup(room1, GROUP);
+        append(room1, "hello");
+        append(room1, "world");
+        append(room2, "bye");
+
+        Map<String, List<RoomHistory>> read = roomHistoryStore.readGroup(Arrays.asList(room1, room2), GROUP, "consumer-1", 10);
+        assertEquals(Arrays.asList("hello", "world"), messages(read.get(room1)));
+        assertEquals(Arrays.asList("bye"), messages(read.get(room2)));
+        assertTrue(roomHistoryStore.readGroup(Arrays.asList(room1, room2), GROUP, "consumer-1", 10).values().stream().allMatch(List::isEmpty));
+
+        List<String> ids = read.get(room1).stream().map(RoomHistory::getId).collect(Collectors.toList());
+        assertEquals(2, roomHistoryStore.acknowledge(room1, GROUP, ids));
+        assertEquals(0, roomHistoryStore.acknowledge(room1, GROUP, ids));
+    }
+
+    private void append(String roomId, String message) {
+        roomHistoryStore.append(RoomMessage.builder().roomId(roomId).name("happydaddy").message(message).build())
+                .toCompletableFuture().join();
+    }
+
+    private static List<String> messages(List<RoomHistory> histories) {
+        return histories.stream().map(RoomHistory::getMessage).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,26 @@
+package com.redis.cluster.pubsub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RoomMessageCodecTest {
+
+    /**
+     * 단건 메시지와 packed 프레임 모두 디코딩
+     */
+    @Test
+    public void decodePacked() throws Exception {
+        RoomMessageCodec codec = new RoomMessageCodec(new ObjectMapper());
+        RoomMessage first = RoomMessage.builder().roomId("room_1").name("happydaddy").message("hello").build();
+        RoomMessage second = RoomMessage.builder().roomId("room_1").name("happydaddy").message("world").build();
+        assertEquals(1, codec.decodeAll(codec.encode(first)).size());
+        List<RoomMessage> messages = codec.decodeAll(codec.encodeAll(Arrays.asList(first, second)));
+        assertEquals(2, messages.size());
+        assertEquals("world", messages.get(1).getMessage());
+    }
+}
@@ -0,0 +1,156 @@
+package com.redis.cluster.pubsub;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+public class RoomMessageDispatcherTest {
+
+    private RoomRouter roomRouter;
+    private SimpleMeterRegistry meterRegistry;
+    private RoomMessageDispatcher dispatcher;
+    private final List<List<RoomMessage>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Before
+    public void setUp() {
+        roomRouter = new RoomRouter();
+        meterRegistry = new SimpleMeterRegistry();
+        for (String roomId : new String[]{"room_1", "room_2"}) {
+            roomRouter.join(roomId, new RoomMessageHandler() {
+                @Override
+                public void handle(RoomMessage message) {
+                    batches.add(Collections.singletonList(message));
+                }
+
+                @Override
+                public void handleBatch(List<RoomMessage> messages) {
+                    batches.add(new ArrayList<>(messages));
+                }
+            });
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null)
+            dispatcher.stop();
+    }
+
+    /**
+     * 쌓여있던 메시지는 batchSize 단위로 꺼내 방별 묶음으로 전달하고 방별 순서를 유지
+     */
+    @Test
+    public void batchDispatch() throws Exception {
+        dispatcher = dispatcher(1024, 256, BackpressurePolicy.DROP_OLDEST, 0);
+        for (int i = 0; i < 300; i++)
+            dispatcher.dispatch(message(i % 2 == 0 ? "room_1" : "room_2", i));
+        dispatcher.start();
+
+        List<RoomMessage> received = awaitReceived(300);
+        assertTrue(batches.size() < 300);
+        assertEquals(128, batches.get(0).size());
+        for (List<RoomMessage> batch : batches)
+            assertEquals(1, batch.stream().map(RoomMessage::getRoomId).distinct().count());
+        assertEquals(seq(0, 300, 2), sequence(received, "room_1"));
+        assertEquals(seq(1, 300, 2), sequence(received, "room_2"));
+        assertEquals(300, meterRegistry.get("pubsub.dispatch.processed").counter().count(), 0);
+    }
+
+    /**
+     * DROP_OLDEST - 큐가 가득 차면 가장 오래된 메시지를 버린다.
+     */
+    @Test
+    public void dropOldest() throws Exception {
+        dispatcher = dispatcher(4, 256, BackpressurePolicy.DROP_OLDEST, 0);
+        for (int i = 0; i < 10; i++)
+            dispatcher.dispatch(message("room_1", i));
+        assertEquals(6, dropped(), 0);
+        dispatcher.start();
+
+        assertEquals(seq(6, 10, 1), sequence(awaitReceived(4), "room_1"));
+    }
+
+    /**
+     * BLOCK - 자리가 날 때까지 수신 스레드가 기다리고 메시지를 버리지 않는다.
+     */
+    @Test
+    public void block() throws Exception {
+        dispatcher = dispatcher(2, 256, BackpressurePolicy.BLOCK, 0);
+        dispatcher.dispatch(message("room_1", 0));
+        dispatcher.dispatch(message("room_1", 1));
+        Thread sender = new Thread(() -> dispatcher.dispatch(message("room_1", 2)));
+        sender.start();
+        sender.join(200);
+        assertTrue(sender.isAlive());
+
+        dispatcher.start();
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+        assertFalse(sender.isAlive());
+        assertEquals(seq(0, 3, 1), sequence(awaitReceived(3), "room_1"));
+        assertEquals(0, dropped(), 0);
+    }
+
+    /**
+     * SPILL - 큐가 가득 차면 보조 큐에 쌓고, 보조 큐도 가득 차면 버린다. 보조 큐를 거쳐도 순서는 유지
+     */
+    @Test
+    public void spill() throws Exception {
+        dispatcher = dispatcher(2, 256, BackpressurePolicy.SPILL, 3);
+        for (int i = 0; i < 7; i++)
+            dispatcher.dispatch(message("room_1", i));
+        assertEquals(3, meterRegistry.get("pubsub.dispatch.spill.depth").gauge().value(), 0);
+        assertEquals(2, dropped(), 0);
+        dispatcher.start();
+
+        assertEquals(seq(0, 5, 1), sequence(awaitReceived(5), "room_1"));
+        assertEquals(0, meterRegistry.get("pubsub.dispatch.spill.depth").gauge().value(), 0);
+    }
+
+    private RoomMessageDispatcher dispatcher(int capacity, int batchSize, BackpressurePolicy policy, int spillCapacity) {
+        return new RoomMessageDispatcher(roomRouter, meterRegistry, 1, capacity, batchSize, policy, spillCapacity);
+    }
+
+    private double dropped() {
+        return meterRegistry.get("pubsub.dispatch.dropped").counter().count();
+    }
+
+    private List<RoomMessage> awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received().size() < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        // 더 전달되는 메시지가 없는지 확인
+        Thread.sleep(100);
+        List<RoomMessage> received = received();
+        assertEquals(count, received.size());
+        return received;
+    }
+
+    private List<RoomMessage> received() {
+        synchronized (batches) {
+            return batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+    }
+
+    private static RoomMessage message(String roomId, int seq) {
+        return RoomMessage.builder().roomId(roomId).name("happydaddy").message(String.valueOf(seq)).build();
+    }
+
+    private static List<Integer> sequence(List<RoomMessage> messages, String roomId) {
+        return messages.stream().filter(message -> message.getRoomId().equals(roomId))
+                .map(message -> Integer.valueOf(message.getMessage())).collect(Collectors.toList());
+    }
+
+    private static List<Integer> seq(int from, int to, int step) {
+        return IntStream.iterate(from, i -> i + step).limit((to - from + step - 1) / step).boxed().collect(Collectors.toList());
+    }
+}
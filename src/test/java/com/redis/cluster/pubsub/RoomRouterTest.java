@@ -0,0 +1,41 @@
+package com.redis.cluster.pubsub;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RoomRouterTest {
+
+    /**
+     * 방 개수와 관계없이 shard 채널 수는 고정
+     */
+    @Test
+    public void shardChannels() {
+        RoomShards roomShards = new RoomShards(16);
+        Set<String> channels = new HashSet<>();
+        for (int i = 0; i < 10000; i++)
+            channels.add(roomShards.topicOf("room_" + i).getTopic());
+        assertEquals(16, channels.size());
+        assertEquals(roomShards.topicOf("room_1"), new RoomShards(16).topicOf("room_1"));
+    }
+
+    /**
+     * 열려있는 방의 핸들러에만 전달
+     */
+    @Test
+    public void route() {
+        RoomRouter roomRouter = new RoomRouter();
+        List<RoomMessage> received = new ArrayList<>();
+        roomRouter.join("room_1", received::add);
+        assertTrue(roomRouter.route(RoomMessage.builder().roomId("room_1").name("happydaddy").message("hello").build()));
+        assertFalse(roomRouter.route(RoomMessage.builder().roomId("room_2").name("happydaddy").message("hello").build()));
+        roomRouter.close("room_1");
+        assertFalse(roomRouter.route(RoomMessage.builder().roomId("room_1").name("happydaddy").message("hello").build()));
+        assertEquals(1, received.size());
+    }
+}
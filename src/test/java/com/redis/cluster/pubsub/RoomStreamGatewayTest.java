@@ -0,0 +1,100 @@
+package com.redis.cluster.pubsub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RoomStreamGatewayTest {
+
+    private RoomRouter roomRouter;
+    private RoomStreamGateway gateway;
+
+    @Before
+    public void setUp() {
+        roomRouter = new RoomRouter();
+        gateway = new RoomStreamGateway(roomRouter, new RoomMessageCodec(new ObjectMapper()), new SimpleMeterRegistry(), 16, 60);
+    }
+
+    /**
+     * 같은 방의 연결은 핸들러 하나를 공유하고, 마지막 연결이 끊기면 핸들러를 해제
+     */
+    @Test
+    public void shareRoomHandler() {
+        AtomicLong received = new AtomicLong();
+        List<Disposable> connections = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            connections.add(gateway.connect("room_" + (i % 2)).subscribe(event -> received.incrementAndGet()));
+        assertEquals(10, gateway.getConnections());
+
+        roomRouter.route(RoomMessage.builder().roomId("room_0").name("happydaddy").message("hello").build());
+        assertEquals(5, received.get());
+
+        connections.forEach(Disposable::dispose);
+        assertEquals(0, gateway.getConnections());
+        roomRouter.route(RoomMessage.builder().roomId("room_0").name("happydaddy").message("bye").build());
+        assertEquals(5, received.get());
+    }
+
+    /**
+     * 방이 닫히면 연결이 완료되고, 다시 연결하면 새로 등록된 핸들러로 수신
+     */
+    @Test
+    public void completeOnClose() {
+        AtomicBoolean completed = new AtomicBoolean();
+        gateway.connect("room_1").subscribe(event -> {
+        }, e -> {
+        }, () -> completed.set(true));
+        assertEquals(1, gateway.getConnections());
+
+        roomRouter.close("room_1");
+        assertTrue(completed.get());
+        assertEquals(0, gateway.getConnections());
+
+        AtomicLong received = new AtomicLong();
+        Disposable reconnected = gateway.connect("room_1").subscribe(event -> received.incrementAndGet());
+        assertTrue(roomRouter.route(RoomMessage.builder().roomId("room_1").name("happydaddy").message("hello").build()));
+        assertEquals(1, received.get());
+        reconnected.dispose();
+    }
+
+    /**
+     * 읽지 않는 연결은 버퍼가 가득 차면 종료되고 다른 연결은 계속 수신
+     */
+    @Test
+    public void evictSlowConsumer() {
+        AtomicBoolean slowCompleted = new AtomicBoolean();
+        gateway.connect("room_1").subscribe(new BaseSubscriber<ServerSentEvent<String>>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // 요청하지 않음
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                slowCompleted.set(true);
+            }
+        });
+        AtomicLong received = new AtomicLong();
+        Disposable fast = gateway.connect("room_1").subscribe(event -> received.incrementAndGet());
+
+        for (int i = 0; i < 200; i++)
+            roomRouter.route(RoomMessage.builder().roomId("room_1").name("happydaddy").message("hello " + i).build());
+
+        assertTrue(slowCompleted.get());
+        assertEquals(200, received.get());
+        assertEquals(1, gateway.getConnections());
+        fast.dispose();
+    }
+}
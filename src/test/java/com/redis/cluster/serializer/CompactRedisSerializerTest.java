@@ -0,0 +1,71 @@
+package com.redis.cluster.serializer;
+
+import com.redis.cluster.entity.User;
+import org.junit.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactRedisSerializerTest {
+
+    private final User user = User.builder()
+            .msrl(1L)
+            .uid("happydaddy@naver.com")
+            .name("happydaddy")
+            .password("password")
+            .roles(Collections.singletonList("ROLE_USER"))
+            .build();
+
+    /**
+     * WRITE_ONLY인 password를 포함하여 모든 필드를 보관
+     */
+    @Test
+    public void roundTrip() {
+        CompactRedisSerializer serializer = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 0).register(1, User.class);
+        byte[] bytes = serializer.serialize(user);
+        User cached = (User) serializer.deserialize(bytes);
+        assertEquals(1L, cached.getMsrl());
+        assertEquals("happydaddy@naver.com", cached.getUid());
+        assertEquals("password", cached.getPassword());
+        assertEquals("ROLE_USER", cached.getRoles().get(0));
+        assertTrue(bytes.length < new JdkSerializationRedisSerializer().serialize(user).length);
+    }
+
+    /**
+     * 임계치 이상은 LZ4 압축
+     */
+    @Test
+    public void compression() {
+        List<String> roles = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            roles.add("ROLE_USER_" + i);
+        User bigUser = User.builder().msrl(2L).uid("big").name("big").roles(roles).build();
+        CompactRedisSerializer plain = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 0).register(1, User.class);
+        CompactRedisSerializer compressed = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 256).register(1, User.class);
+        byte[] bytes = compressed.serialize(bigUser);
+        assertTrue(bytes.length < plain.serialize(bigUser).length);
+        assertEquals(200, ((User) compressed.deserialize(bytes)).getRoles().size());
+    }
+
+    /**
+     * 마이그레이션 모드에서는 기존 JDK 직렬화 데이터도 읽는다.
+     */
+    @Test
+    public void readJdkFormat() {
+        byte[] jdkBytes = new JdkSerializationRedisSerializer().serialize(user);
+        CompactRedisSerializer migrate = new CompactRedisSerializer(CompactRedisSerializer.Mode.MIGRATE, 0).register(1, User.class);
+        assertEquals("happydaddy", ((User) migrate.deserialize(jdkBytes)).getName());
+        CompactRedisSerializer compact = new CompactRedisSerializer(CompactRedisSerializer.Mode.COMPACT, 0).register(1, User.class);
+        try {
+            compact.deserialize(jdkBytes);
+            fail();
+        } catch (SerializationException e) {
+            assertEquals("Unknown cache value format", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.InvalidRequestException;
+import com.redis.cluster.support.GeoHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class GeoShardServiceTest {
+
+    // 경도 126.5625는 3글자 geohash 셀의 경계
+    private static final double LNG = 126.5625;
+    private static final double LAT = 37.5;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private ReactiveRedisConnectionFactory reactiveConnectionFactory;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GeoShardService geoShardService;
+    private String name;
+    private final Set<String> cells = new HashSet<>();
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        geoShardService = geoShardService(60_000);
+        name = "geo-test-" + System.nanoTime();
+    }
+
+    @After
+    public void tearDown() {
+        List<String> keys = cells.stream().map(this::cellKey).collect(Collectors.toList());
+        for (int shard = 0; shard < 16; shard++)
+            keys.add("geo:{" + name + ":members:" + shard + "}");
+        stringRedisTemplate.delete(keys);
+    }
+
+    /**
+     * 경계에 걸친 검색은 여러 셀 키에서 모은 결과를 가까운 순으로 합친다.
+     */
+    @Test
+    public void scatterGather() {
+        update(position("west", LNG - 0.0125, LAT), position("east", LNG + 0.0075, LAT), position("far", LNG + 0.04, LAT));
+        assertNotEquals(cellOf(LNG - 0.0125, LAT), cellOf(LNG + 0.0075, LAT));
+
+        StepVerifier.create(geoShardService.radius(name, LNG, LAT, 2000, 10))
+                .expectNextMatches(results -> members(results).equals(Arrays.asList("east", "west")))
+                .verifyComplete();
+        StepVerifier.create(geoShardService.radius(name, LNG, LAT, 2000, 1))
+                .expectNextMatches(results -> members(results).equals(Collections.singletonList("east")))
+                .verifyComplete();
+        StepVerifier.create(geoShardService.box(name, LNG, LAT, 2000, 200, 10))
+                .expectNextMatches(results -> members(results).equals(Collections.singletonList("east")))
+                .verifyComplete();
+        // limit만 다른 반경 검색은 조회 결과를 공유
+        assertEquals(2, meterRegistry.get("geo.query.loads").counter().count(), 0);
+        assertEquals(2, meterRegistry.get("geo.query.shards").summary().max(), 0);
+    }
+
+    /**
+     * 중심 좌표가 같은 셀인 검색은 Redis 조회 결과를 공유하고 실제 중심 기준으로 거리를 다시 계산한다.
+     */
+    @Test
+    public void queryCache() {
+        update(position("east", LNG + 0.0075, LAT));
+
+        double first = geoShardService.radius(name, LNG, LAT, 2000, 10).block().get(0).getDistance();
+        double second = geoShardService.radius(name, LNG + 0.0002, LAT, 2000, 10).block().get(0).getDistance();
+        assertEquals(1, meterRegistry.get("geo.query.loads").counter().count(), 0);
+        assertTrue(second < first);
+
+        // 캐시하지 않으면 매번 조회
+        GeoShardService uncached = geoShardService(0);
+        uncached.radius(name, LNG, LAT, 2000, 10).block();
+        uncached.radius(name, LNG, LAT, 2000, 10).block();
+        assertEquals(3, meterRegistry.get("geo.query.loads").counter().count(), 0);
+    }
+
+    /**
+     * 얇은 영역 바로 밖에 더 가까운 멤버가 몰려 있어도 영역 안의 멤버를 limit 건까지 응답한다.
+     */
+    @Test
+    public void denseOutsideThinBox() {
+        List<GeoPosition> positions = new ArrayList<>();
+        // 중심에서 북쪽으로 약 55m (영역 높이 20m 밖)
+        for (int i = 0; i < 50; i++)
+            positions.add(position("outside-" + i, LNG + 0.0001 + i * 0.00001, LAT + 0.0005));
+        // 동쪽으로 약 350~530m (영역 폭 2000m 안)
+        for (int i = 0; i < 3; i++)
+            positions.add(position("inside-" + i, LNG + 0.004 + i * 0.001, LAT));
+        update(positions.toArray(new GeoPosition[0]));
+
+        StepVerifier.create(geoShardService.box(name, LNG, LAT, 2000, 20, 3))
+                .expectNextMatches(results -> members(results).equals(Arrays.asList("inside-0", "inside-1", "inside-2")))
+                .verifyComplete();
+        StepVerifier.create(geoShardService.box(name, LNG, LAT, 2000, 20, 2))
+                .expectNextMatches(results -> members(results).equals(Arrays.asList("inside-0", "inside-1")))
+                .verifyComplete();
+    }
+
+    /**
+     * 셀을 옮기면 이전 셀에서 지우고, 두 셀에 남은 사본은 가까운 하나만 응답한다.
+     */
+    @Test
+    public void moveAndDedupe() {
+        update(position("mover", LNG + 0.0075, LAT));
+        update(position("mover", LNG - 0.0125, LAT));
+        assertNull(stringRedisTemplate.opsForZSet().score(cellKey(cellOf(LNG + 0.0075, LAT)), "mover"));
+        assertNotNull(stringRedisTemplate.opsForZSet().score(cellKey(cellOf(LNG - 0.0125, LAT)), "mover"));
+
+        // 이전 셀 삭제 전에 조회된 상태
+        stringRedisTemplate.opsForGeo().add(cellKey(cellOf(LNG + 0.0075, LAT)), new Point(LNG + 0.0075, LAT), "mover");
+        StepVerifier.create(geoShardService.radius(name, LNG, LAT, 2000, 10))
+                .expectNextMatches(results -> members(results).equals(Collections.singletonList("mover"))
+                        && results.get(0).getLng() > LNG)
+                .verifyComplete();
+    }
+
+    /**
+     * 같은 멤버의 셀이 동시에 바뀌어도 현재 셀이 아닌 셀에 사본이 남지 않는다.
+     */
+    @Test
+    public void concurrentMoves() throws Exception {
+        double[] lngs = {LNG + 0.0075, LNG - 0.0125};
+        ExecutorService executor = Executors.newFixedThreadPool(lngs.length);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (double lng : lngs)
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++)
+                        update(position("mover", lng, LAT));
+                }));
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String current = (String) stringRedisTemplate.opsForHash()
+                .get("geo:{" + name + ":members:" + Math.floorMod("mover".hashCode(), 16) + "}", "mover");
+        assertNotNull(current);
+        for (double lng : lngs) {
+            String cell = cellOf(lng, LAT);
+            if (!cell.equals(current))
+                assertNull(stringRedisTemplate.opsForZSet().score(cellKey(cell), "mover"));
+        }
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void rejectNonPositiveLimit() {
+        geoShardService.radius(name, LNG, LAT, 2000, 0);
+    }
+
+    /**
+     * 너무 많은 셀과 겹치는 검색은 Redis에 보내지 않고 실패한다.
+     */
+    @Test
+    public void rejectTooLargeArea() {
+        StepVerifier.create(geoShardService.radius(name, LNG, LAT, 5_000_000, 10))
+                .verifyError(InvalidRequestException.class);
+        assertEquals(0, meterRegistry.get("geo.query.loads").counter().count(), 0);
+    }
+
+    private GeoShardService geoShardService(long queryCacheTtlMillis) {
+        return new GeoShardService(connectionFactory, reactiveConnectionFactory, meterRegistry, 3, 16, 64, 500, 7,
+                queryCacheTtlMillis, 10_000);
+    }
+
+    private void update(GeoPosition... positions) {
+        geoShardService.updatePositions(name, Arrays.asList(positions));
+    }
+
+    private GeoPosition position(String member, double lng, double lat) {
+        synchronized (cells) {
+            cells.add(cellOf(lng, lat));
+        }
+        return GeoPosition.builder().member(member).lng(lng).lat(lat).build();
+    }
+
+    private String cellOf(double lng, double lat) {
+        return GeoHash.encode(lat, lng, 3);
+    }
+
+    private String cellKey(String cell) {
+        return "geo:{" + name + ":" + cell + "}";
+    }
+
+    private static List<String> members(List<GeoNearby> results) {
+        return results.stream().map(GeoNearby::getMember).collect(Collectors.toList());
+    }
+}
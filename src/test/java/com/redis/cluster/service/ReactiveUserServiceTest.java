@@ -0,0 +1,49 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.test.StepVerifier;
+
+import java.util.Collections;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ReactiveUserServiceTest {
+
+    @Autowired
+    private ReactiveUserService reactiveUserService;
+
+    @Autowired
+    private UserJpaRepo userJpaRepo;
+
+    private long msrl;
+
+    @Before
+    public void setUp() {
+        msrl = userJpaRepo.save(User.builder()
+                .uid("reactive@naver.com")
+                .name("reactive")
+                .roles(Collections.singletonList("ROLE_USER"))
+                .build()).getMsrl();
+    }
+
+    @Test
+    public void findOne() {
+        StepVerifier.create(reactiveUserService.findOne(msrl))
+                .expectNextMatches(user -> user.getMsrl() == msrl && "reactive".equals(user.getName()))
+                .verifyComplete();
+        StepVerifier.create(reactiveUserService.findOne(-1L)).verifyComplete();
+    }
+
+    @After
+    public void tearDown() {
+        StepVerifier.create(reactiveUserService.deleteUser(msrl)).expectNext(true).verifyComplete();
+    }
+}
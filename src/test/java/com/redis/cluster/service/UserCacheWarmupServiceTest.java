@@ -0,0 +1,109 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserCacheWarmupServiceTest {
+
+    @Autowired
+    private UserJpaRepo userJpaRepo;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserWriteBehindService userWriteBehindService;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private RedisCacheManager redisCacheManager;
+
+    private UserCacheWarmupService warmupService;
+    private Cache cache;
+    private User cached;
+    private User missing;
+
+    @Before
+    public void setUp() {
+        cache = redisCacheManager.getCache(CacheKey.USER);
+        cached = userJpaRepo.save(user("warmup_cached@naver.com", "cached"));
+        missing = userJpaRepo.save(user("warmup_missing@naver.com", "missing"));
+        cache.evict(cached.getMsrl());
+        cache.evict(missing.getMsrl());
+    }
+
+    @After
+    public void tearDown() {
+        if (warmupService != null)
+            warmupService.destroy();
+        cache.evict(cached.getMsrl());
+        cache.evict(missing.getMsrl());
+        userJpaRepo.deleteById(cached.getMsrl());
+        userJpaRepo.deleteById(missing.getMsrl());
+    }
+
+    /**
+     * 캐시에 없는 회원만 채우고, 그 사이 수정되어 캐시된 값은 덮어쓰지 않는다.
+     */
+    @Test
+    public void fillOnlyMissing() throws Exception {
+        cache.put(cached.getMsrl(), user("warmup_cached@naver.com", "cached_re"));
+        warmupService = warmupService(0);
+
+        warmupService.start().get(30, TimeUnit.SECONDS);
+        assertEquals(CacheWarmupProgress.State.COMPLETED, warmupService.getProgress().getState());
+        assertEquals("cached_re", ((User) cache.get(cached.getMsrl()).get()).getName());
+        assertEquals("missing", ((User) cache.get(missing.getMsrl()).get()).getName());
+    }
+
+    /**
+     * 진행중에 중단되면 완료가 아니라 취소로 보고한다.
+     */
+    @Test
+    public void cancelled() throws Exception {
+        // 초당 1건 - 첫 페이지를 적재한 뒤 대기하는 동안 취소
+        warmupService = warmupService(1);
+        Future<?> job = warmupService.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (warmupService.getProgress().getLoaded() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        job.cancel(true);
+
+        deadline = System.currentTimeMillis() + 5000;
+        while (warmupService.getProgress().getState() == CacheWarmupProgress.State.RUNNING && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(CacheWarmupProgress.State.CANCELLED, warmupService.getProgress().getState());
+        assertNotNull(warmupService.getProgress().getFinishedAt());
+    }
+
+    private UserCacheWarmupService warmupService(int rate) {
+        return new UserCacheWarmupService(userJpaRepo, userBatchService, userWriteBehindService, resourceLoader,
+                new SimpleMeterRegistry(), false, "", 500, rate, 30);
+    }
+
+    private static User user(String uid, String name) {
+        return User.builder().uid(uid).name(name).roles(Collections.singletonList("ROLE_USER")).build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.repo.UserJpaRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserExistenceFilterTest {
+
+    private static final long MSRL = 987_654_321L;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListener;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private UserExistenceFilter other;
+    private UserExistenceFilter rebuilder;
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        deleteKeys();
+        meterRegistry = new SimpleMeterRegistry();
+        other = filter(null, new SimpleMeterRegistry());
+        // 테이블을 읽는 동안 다른 인스턴스에서 회원이 등록된다.
+        UserJpaRepo userJpaRepo = (UserJpaRepo) Proxy.newProxyInstance(UserJpaRepo.class.getClassLoader(), new Class[]{UserJpaRepo.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findByMsrlGreaterThanOrderByMsrlAsc":
+                            other.add(MSRL);
+                            return Collections.emptyList();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        rebuilder = filter(userJpaRepo, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        rebuilder.stop();
+        deleteKeys();
+    }
+
+    /**
+     * 재생성 중 다른 인스턴스에서 추가된 msrl은 교체된 비트맵(로컬, Redis)에도 반영된다.
+     */
+    @Test
+    public void keepAddsDuringRebuild() throws Exception {
+        rebuilder.start();
+        awaitReady(meterRegistry);
+        assertTrue(rebuilder.mightContain(MSRL));
+
+        // 최근 추가분 없이 Redis 비트맵만 읽는 인스턴스
+        stringRedisTemplate.delete("{bloom:user}:recent");
+        SimpleMeterRegistry loadedRegistry = new SimpleMeterRegistry();
+        UserExistenceFilter loaded = filter(null, loadedRegistry);
+        loaded.start();
+        try {
+            awaitReady(loadedRegistry);
+            assertTrue(loaded.mightContain(MSRL));
+        } finally {
+            loaded.stop();
+        }
+    }
+
+    private void awaitReady(SimpleMeterRegistry meterRegistry) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("user.existence-filter.ready").gauge().value() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals(1, meterRegistry.get("user.existence-filter.ready").gauge().value(), 0);
+    }
+
+    private UserExistenceFilter filter(UserJpaRepo userJpaRepo, SimpleMeterRegistry meterRegistry) {
+        return new UserExistenceFilter(connectionFactory, redisMessageListener, userJpaRepo, meterRegistry, true, 10_000, 0.01, 30);
+    }
+
+    private void deleteKeys() {
+        stringRedisTemplate.delete(Arrays.asList("{bloom:user}", "{bloom:user}:tmp", "{bloom:user}:version",
+                "{bloom:user}:lock", "{bloom:user}:recent"));
+    }
+}
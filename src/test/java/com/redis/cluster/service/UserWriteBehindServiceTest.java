@@ -0,0 +1,241 @@
+package com.redis.cluster.service;
+
+import com.redis.cluster.common.CacheKey;
+import com.redis.cluster.entity.User;
+import com.redis.cluster.repo.UserJpaRepo;
+import com.redis.cluster.serializer.CompactRedisSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * shard 1개로 구성하고 flush는 스케줄러 없이 직접 호출한다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UserWriteBehindServiceTest {
+
+    private static final String LOG_KEY = "user:changelog:{0}";
+    private static final String PROCESSING_KEY = LOG_KEY + ":processing";
+    private static final String LATEST_KEY = LOG_KEY + ":latest";
+    private static final String DEAD_KEY = LOG_KEY + ":dead";
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private CompactRedisSerializer compactRedisSerializer;
+
+    @Autowired
+    private UserJpaRepo userJpaRepo;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private final List<User> users = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stringRedisTemplate.delete(Arrays.asList(LOG_KEY, PROCESSING_KEY, LATEST_KEY, DEAD_KEY));
+    }
+
+    @After
+    public void tearDown() {
+        stringRedisTemplate.delete(Arrays.asList(LOG_KEY, PROCESSING_KEY, LATEST_KEY, DEAD_KEY));
+        for (User user : users) {
+            cacheManager.getCache(CacheKey.USER).evict(user.getMsrl());
+            userJpaRepo.deleteById(user.getMsrl());
+        }
+    }
+
+    /**
+     * 같은 회원의 여러 변경은 마지막 변경 한번으로 반영되고, 반영 전에는 대기중인 변경을 조회한다.
+     */
+    @Test
+    public void coalesce() {
+        UserWriteBehindService service = service(100000);
+        User user = createUser();
+        for (String name : new String[]{"a", "b", "c"})
+            service.save(copy(user, user.getUid(), name), user);
+
+        assertEquals("c", service.findById(user.getMsrl()).get().getName());
+        assertEquals("c", service.findAllById(Collections.singletonList(user.getMsrl())).get(0).getName());
+        assertEquals(user.getName(), userJpaRepo.findById(user.getMsrl()).get().getName());
+
+        service.flushAll();
+        assertEquals("c", userJpaRepo.findById(user.getMsrl()).get().getName());
+        assertEquals(2, meterRegistry.get("user.write-behind.coalesced").counter().count(), 0);
+        assertEquals(0, meterRegistry.get("user.write-behind.backlog").gauge().value(), 0);
+        assertFalse(stringRedisTemplate.hasKey(LATEST_KEY));
+    }
+
+    /**
+     * 반영 도중 종료되어 남은 처리중 list는 다음 flush에서 새 로그보다 먼저 반영된다.
+     */
+    @Test
+    public void recoverProcessing() {
+        UserWriteBehindService service = service(100000);
+        User user = createUser();
+        byte[] payload = compactRedisSerializer.serialize(copy(user, user.getUid(), "crashed"));
+        byte[] entry = ByteBuffer.allocate(8 + payload.length).putLong(System.currentTimeMillis()).put(payload).array();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.rPush(bytes(PROCESSING_KEY), entry);
+        }
+        service.save(copy(user, user.getUid(), "latest"), user);
+
+        service.flushAll();
+        assertEquals("latest", userJpaRepo.findById(user.getMsrl()).get().getName());
+        assertFalse(stringRedisTemplate.hasKey(PROCESSING_KEY));
+        assertFalse(stringRedisTemplate.hasKey(LOG_KEY));
+        assertFalse(stringRedisTemplate.hasKey(LATEST_KEY));
+    }
+
+    /**
+     * 제약조건 위반이면 한건씩 반영하여 위반한 변경만 버리고 캐시에서도 제거한다.
+     */
+    @Test
+    public void dropConstraintViolation() {
+        UserWriteBehindService service = service(100000);
+        User first = createUser();
+        User second = createUser();
+        Cache cache = cacheManager.getCache(CacheKey.USER);
+        // name은 not null
+        User invalid = copy(first, first.getUid(), null);
+        cache.put(first.getMsrl(), invalid);
+        service.save(invalid, first);
+        service.save(copy(second, second.getUid(), "renamed"), second);
+
+        service.flushAll();
+        assertEquals(first.getName(), userJpaRepo.findById(first.getMsrl()).get().getName());
+        assertEquals("renamed", userJpaRepo.findById(second.getMsrl()).get().getName());
+        assertNull(cache.get(first.getMsrl()));
+        assertEquals(first.getName(), service.findById(first.getMsrl()).get().getName());
+    }
+
+    /**
+     * uid 변경은 DB에 바로 저장하여 중복이면 호출자가 실패를 받고, 로그에는 기록하지 않는다.
+     */
+    @Test
+    public void changeUidSynchronously() {
+        UserWriteBehindService service = service(100000);
+        User first = createUser();
+        User second = createUser();
+        try {
+            service.save(copy(first, second.getUid(), "duplicated"), first);
+            fail("duplicated uid accepted");
+        } catch (DataIntegrityViolationException e) {
+            assertFalse(stringRedisTemplate.hasKey(LATEST_KEY));
+        }
+
+        String uid = "write-behind-" + System.nanoTime() + "@naver.com";
+        service.save(copy(first, uid, "renamed"), first);
+        assertEquals(uid, userJpaRepo.findById(first.getMsrl()).get().getUid());
+        assertEquals(1, meterRegistry.get("user.write-behind.synchronous").counter().count(), 0);
+
+        service.flushAll();
+        assertEquals(uid, userJpaRepo.findById(first.getMsrl()).get().getUid());
+    }
+
+    /**
+     * 읽을 수 없는 항목(캐시 serializer를 COMPACT로 바꾼 뒤의 JDK 포맷 등)은 dead-letter list로 옮기고 나머지는 반영한다.
+     * 조회는 읽을 수 없는 대기 변경을 무시하고 DB 값을 읽는다.
+     */
+    @Test
+    public void deadLetterUndecodable() {
+        UserWriteBehindService service = service(100000);
+        User broken = createUser();
+        User user = createUser();
+        byte[] payload = {(byte) 0xAC, (byte) 0xED, 0, 5, 1};
+        byte[] entry = ByteBuffer.allocate(8 + payload.length).putLong(System.currentTimeMillis()).put(payload).array();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.rPush(bytes(LOG_KEY), entry);
+            connection.hSet(bytes(LATEST_KEY), bytes(String.valueOf(broken.getMsrl())), payload);
+        }
+        service.save(copy(user, user.getUid(), "flushed"), user);
+
+        assertEquals(broken.getName(), service.findById(broken.getMsrl()).get().getName());
+        service.flushAll();
+        assertEquals("flushed", userJpaRepo.findById(user.getMsrl()).get().getName());
+        assertEquals(1, (long) stringRedisTemplate.opsForList().size(DEAD_KEY));
+        assertEquals(1, meterRegistry.get("user.write-behind.dead-letters").counter().count(), 0);
+        assertFalse(stringRedisTemplate.hasKey(PROCESSING_KEY));
+        assertFalse(stringRedisTemplate.hasKey(LOG_KEY));
+        assertFalse(stringRedisTemplate.hasKey(LATEST_KEY));
+    }
+
+    /**
+     * 로그가 가득 차면 DB에 바로 저장하고, 로그에도 기록하여 이전 변경이 나중에 덮어쓰지 않게 한다.
+     */
+    @Test
+    public void backpressure() {
+        UserWriteBehindService service = service(0);
+        User user = createUser();
+        service.save(copy(user, user.getUid(), "sync"), user);
+
+        assertEquals("sync", userJpaRepo.findById(user.getMsrl()).get().getName());
+        assertEquals(1, meterRegistry.get("user.write-behind.synchronous").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("user.write-behind.backlog").gauge().value(), 0);
+
+        service.flushAll();
+        assertEquals("sync", userJpaRepo.findById(user.getMsrl()).get().getName());
+        assertEquals(0, meterRegistry.get("user.write-behind.backlog").gauge().value(), 0);
+    }
+
+    private UserWriteBehindService service(long maxBacklog) {
+        return new UserWriteBehindService(connectionFactory, compactRedisSerializer, userJpaRepo, cacheManager, jdbcTemplate,
+                transactionManager, meterRegistry, true, 1, 500, maxBacklog, 200);
+    }
+
+    private User createUser() {
+        User user = userJpaRepo.save(User.builder()
+                .uid("write-behind-" + System.nanoTime() + "@naver.com")
+                .name("happydaddy")
+                .password("password")
+                .roles(Collections.singletonList("ROLE_USER"))
+                .build());
+        users.add(user);
+        return user;
+    }
+
+    private static User copy(User user, String uid, String name) {
+        return User.builder().msrl(user.getMsrl()).uid(uid).password(user.getPassword()).name(name)
+                .roles(new ArrayList<>(user.getRoles())).build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,48 @@
+package com.redis.cluster.support;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class BloomFilterTest {
+
+    /**
+     * 넣은 값은 항상 있다고 판단하고, 넣지 않은 값의 오탐율은 설정값 근처
+     */
+    @Test
+    public void falsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10000, 0.01);
+        for (long msrl = 1; msrl <= 10000; msrl++)
+            filter.put(msrl);
+        for (long msrl = 1; msrl <= 10000; msrl++)
+            assertTrue(filter.mightContain(msrl));
+
+        int falsePositives = 0;
+        for (long msrl = 10001; msrl <= 110000; msrl++)
+            if (filter.mightContain(msrl))
+                falsePositives++;
+        assertTrue("false positives: " + falsePositives, falsePositives < 2000);
+    }
+
+    /**
+     * 직렬화 결과는 같은 offset으로 SETBIT한 Redis 비트맵과 같다. (바이트 단위 MSB 우선)
+     */
+    @Test
+    public void redisBitOrder() {
+        BloomFilter filter = new BloomFilter(1024, 3);
+        filter.put(42L);
+        byte[] bitmap = filter.toByteArray();
+        assertEquals(128, bitmap.length);
+        for (long offset : filter.offsets(42L))
+            assertNotEquals(0, bitmap[(int) (offset / 8)] & (0x80 >>> (offset % 8)));
+
+        // SETBIT은 마지막으로 켜진 바이트까지만 만든다.
+        long offset = filter.offsets(42L)[0];
+        byte[] partial = new byte[(int) (offset / 8) + 1];
+        partial[(int) (offset / 8)] = (byte) (0x80 >>> (offset % 8));
+        BloomFilter merged = BloomFilter.fromByteArray(1024, 3, partial);
+        assertEquals(1, Long.bitCount(ByteBuffer.wrap(merged.toByteArray()).getLong((int) (offset / 64) * 8)));
+    }
+}
@@ -0,0 +1,20 @@
+package com.redis.cluster.support;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClusterBulkWriterTest {
+
+    /**
+     * MOVED/ASK 응답에서 다시 보낼 노드를 읽는다.
+     */
+    @Test
+    public void redirectTarget() {
+        assertEquals(new ClusterBulkWriter.NodeTarget("127.0.0.1", 6381, false),
+                ClusterBulkWriter.NodeTarget.fromRedirect("MOVED 3999 127.0.0.1:6381"));
+        assertEquals(new ClusterBulkWriter.NodeTarget("127.0.0.1", 6381, true),
+                ClusterBulkWriter.NodeTarget.fromRedirect("ASK 3999 127.0.0.1:6381"));
+        assertNull(ClusterBulkWriter.NodeTarget.fromRedirect("OOM command not allowed when used memory > 'maxmemory'"));
+    }
+}
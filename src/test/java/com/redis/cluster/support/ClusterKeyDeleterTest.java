@@ -0,0 +1,131 @@
+package com.redis.cluster.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ClusterKeyDeleterTest {
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private RedisProperties redisProperties;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ClusterKeyDeleter keyDeleter;
+    private String prefix;
+
+    @Before
+    public void setUp() {
+        keyDeleter = deleter(100, 2);
+        prefix = "key-deleter:" + System.nanoTime() + ":";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        keyDeleter.delete(ClusterKeyDeleter.escape(prefix) + "*").future().get(10, TimeUnit.SECONDS);
+        keyDeleter.destroy();
+    }
+
+    /**
+     * 여러 슬롯의 키를 모두 삭제하고 노드별 진행상황과 합계를 남긴다.
+     */
+    @Test
+    public void deleteWithProgress() throws Exception {
+        write(300);
+        stringRedisTemplate.opsForValue().set(prefix.substring(0, prefix.length() - 1), "kept");
+
+        KeyDeleteJob job = keyDeleter.delete(ClusterKeyDeleter.escape(prefix) + "*");
+        assertEquals(300, (long) job.future().get(10, TimeUnit.SECONDS));
+        assertEquals(KeyDeleteJob.State.COMPLETED, job.getState());
+        assertEquals(300, job.getDeleted());
+        assertTrue(job.getScanned() >= 300);
+        assertTrue(job.getNodes().values().stream().allMatch(KeyDeleteJob.NodeProgress::isDone));
+        assertEquals(job, keyDeleter.getJob(job.getId()));
+        assertFalse(stringRedisTemplate.hasKey(prefix + 0));
+        assertEquals("kept", stringRedisTemplate.opsForValue().get(prefix.substring(0, prefix.length() - 1)));
+        stringRedisTemplate.delete(prefix.substring(0, prefix.length() - 1));
+    }
+
+    /**
+     * 이름에 포함된 glob 문자는 문자 그대로 일치시킨다.
+     */
+    @Test
+    public void escapePattern() throws Exception {
+        stringRedisTemplate.opsForValue().set(prefix + "a*:1", "deleted");
+        stringRedisTemplate.opsForValue().set(prefix + "ab:1", "kept");
+
+        keyDeleter.delete(ClusterKeyDeleter.escape(prefix + "a*:") + "*").future().get(10, TimeUnit.SECONDS);
+        assertFalse(stringRedisTemplate.hasKey(prefix + "a*:1"));
+        assertTrue(stringRedisTemplate.hasKey(prefix + "ab:1"));
+        assertEquals("user\\*\\?\\[1\\]\\\\", ClusterKeyDeleter.escape("user*?[1]\\"));
+    }
+
+    /**
+     * 취소하면 다음 SCAN을 하지 않고 취소 시점까지 삭제한 수로 끝난다.
+     */
+    @Test
+    public void cancel() throws Exception {
+        write(1000);
+        // SCAN 1건, 미응답 묶음 1개 - 천천히 진행
+        ClusterKeyDeleter slowDeleter = deleter(1, 1);
+        try {
+            KeyDeleteJob job = slowDeleter.delete(ClusterKeyDeleter.escape(prefix) + "*");
+            assertEquals(job, slowDeleter.cancel(job.getId()));
+
+            long deleted = job.future().get(10, TimeUnit.SECONDS);
+            assertEquals(KeyDeleteJob.State.CANCELLED, job.getState());
+            assertTrue(deleted < 1000);
+            assertEquals(deleted, job.getDeleted());
+            assertEquals(0, slowDeleter.getRunningJobs());
+        } finally {
+            slowDeleter.destroy();
+        }
+    }
+
+    /**
+     * 같은 hash tag의 키는 한 묶음(같은 슬롯)으로 보낸다.
+     */
+    @Test
+    public void groupBySlot() {
+        List<byte[]> keys = Arrays.asList(bytes("{user}:1"), bytes("{user}:2"), bytes("{room}:1"), bytes("user:1"));
+        Map<Integer, List<byte[]>> slots = ClusterSlots.groupBySlot(keys);
+        assertEquals(2, slots.get(ClusterSlots.slot(bytes("user"))).size());
+        assertEquals(1, slots.get(ClusterSlots.slot(bytes("room"))).size());
+        assertEquals(4, slots.values().stream().mapToInt(List::size).sum());
+    }
+
+    private ClusterKeyDeleter deleter(int batchSize, int maxInFlightBatches) {
+        return new ClusterKeyDeleter(connectionFactory, redisProperties, new SimpleMeterRegistry(), batchSize, maxInFlightBatches, 6);
+    }
+
+    private void write(int count) {
+        for (int i = 0; i < count; i++)
+            stringRedisTemplate.opsForValue().set(prefix + i, String.valueOf(i));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,34 @@
+package com.redis.cluster.support;
+
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class GeoHashTest {
+
+    @Test
+    public void encode() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("wydm", GeoHash.encode(37.5665, 126.9780, 4));
+    }
+
+    /**
+     * 영역의 네 모서리가 속한 셀은 모두 포함된다.
+     */
+    @Test
+    public void covering() {
+        double minLat = 37.4, minLng = 126.8, maxLat = 37.7, maxLng = 127.2;
+        Set<String> cells = GeoHash.covering(minLat, minLng, maxLat, maxLng, 4, 64);
+        for (double lat : new double[]{minLat, maxLat})
+            for (double lng : new double[]{minLng, maxLng})
+                assertTrue(cells.contains(GeoHash.encode(lat, lng, 4)));
+        assertEquals(1, GeoHash.covering(37.56, 126.97, 37.57, 126.98, 3, 64).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void coveringTooManyCells() {
+        GeoHash.covering(30, 120, 40, 130, 5, 64);
+    }
+}